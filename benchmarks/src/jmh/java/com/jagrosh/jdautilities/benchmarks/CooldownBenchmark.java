@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.command.CommandClientBuilder;
+import com.jagrosh.jdautilities.command.impl.CommandClientImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CommandClientImpl#applyCooldown(String, int)} and
+ * {@link CommandClientImpl#getRemainingCooldown(String)} while several threads apply and
+ * check cooldowns of the same keys concurrently.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CooldownBenchmark
+{
+    private static final int KEY_COUNT = 1024;
+
+    private CommandClientImpl client;
+    private String[] keys;
+
+    @Setup
+    public void setup()
+    {
+        client = (CommandClientImpl) new CommandClientBuilder()
+            .setOwnerId("300000000000000000")
+            .setPrefix("!")
+            .setActivity(null)
+            .build();
+
+        keys = new String[KEY_COUNT];
+        for(int i = 0; i < KEY_COUNT; i++)
+            keys[i] = "noop|U:" + (200000000000000000L + i);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        client.shutdown();
+    }
+
+    /**
+     * The key each thread uses next.
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int next;
+
+        private int next()
+        {
+            return next++ & (KEY_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public void applyCooldown(Cursor cursor)
+    {
+        client.applyCooldown(keys[cursor.next()], 60);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(6)
+    public int getRemainingCooldown(Cursor cursor)
+    {
+        return client.getRemainingCooldown(keys[cursor.next()]);
+    }
+}
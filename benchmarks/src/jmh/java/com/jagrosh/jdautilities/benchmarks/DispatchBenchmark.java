@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.command.Command;
+import com.jagrosh.jdautilities.command.CommandClientBuilder;
+import com.jagrosh.jdautilities.command.CommandEvent;
+import com.jagrosh.jdautilities.command.impl.CommandClientImpl;
+import com.jagrosh.jdautilities.harness.Fakes;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.PrivateChannel;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of dispatching a message through
+ * {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl#onEvent(net.dv8tion.jda.api.events.GenericEvent)
+ * CommandClientImpl#onEvent(GenericEvent)}, up to and including {@link Command#run(CommandEvent)}.
+ *
+ * <p>The allocation budgets of these benchmarks are declared in {@code allocation-budget.properties}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark
+{
+    private static final long SELF_ID = 100000000000000000L;
+    private static final long AUTHOR_ID = 200000000000000000L;
+
+    private CommandClientImpl client;
+    private MessageReceivedEvent commandMessage;
+    private MessageReceivedEvent nonCommandMessage;
+
+    @Setup
+    public void setup()
+    {
+        client = (CommandClientImpl) new CommandClientBuilder()
+            .setOwnerId("300000000000000000")
+            .setCoOwnerIds("400000000000000000", "500000000000000000")
+            .setPrefix("!")
+            .setAlternativePrefix("@mention")
+            .setActivity(null)
+            .addCommand(new NoopCommand())
+            .build();
+
+        SelfUser self = Fakes.stub(SelfUser.class, "getIdLong", SELF_ID, "getId", Long.toString(SELF_ID), "isBot", true);
+        JDA jda = Fakes.stub(JDA.class, "getSelfUser", self);
+        User author = Fakes.stub(User.class, "getIdLong", AUTHOR_ID, "getId", Long.toString(AUTHOR_ID));
+        PrivateChannel channel = Fakes.stub(PrivateChannel.class, "getType", ChannelType.PRIVATE, "getJDA", jda);
+
+        commandMessage = message(jda, author, channel, "!noop some arguments");
+        nonCommandMessage = message(jda, author, channel, "just chatting, nothing to see here");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        client.shutdown();
+    }
+
+    @Benchmark
+    public void commandMessage()
+    {
+        client.onEvent(commandMessage);
+    }
+
+    @Benchmark
+    public void nonCommandMessage()
+    {
+        client.onEvent(nonCommandMessage);
+    }
+
+    private static MessageReceivedEvent message(JDA jda, User author, PrivateChannel channel, String content)
+    {
+        Message message = Fakes.stub(Message.class,
+            "getIdLong", 600000000000000000L,
+            "getContentRaw", content,
+            "getAuthor", author,
+            "getChannel", channel,
+            "getChannelType", ChannelType.PRIVATE,
+            "getJDA", jda);
+        return new MessageReceivedEvent(jda, 0, message);
+    }
+
+    private static class NoopCommand extends Command
+    {
+        private NoopCommand()
+        {
+            this.name = "noop";
+            this.guildOnly = false;
+        }
+
+        @Override
+        protected void execute(CommandEvent event) {}
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.commons.waiter.EventWaiter;
+import com.jagrosh.jdautilities.harness.Fakes;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EventWaiter#onEvent(net.dv8tion.jda.api.events.GenericEvent)} with 10,000 waiters
+ * waiting for a message, each in its own channel, as menus do.
+ *
+ * <p>{@link #nonMatchingEvent()} is a message none of them waits for, {@link #matchingEvent()} is a
+ * message one of them waits for, which is registered again afterwards to keep the number of waiters
+ * constant.
+ *
+ * <p>The allocation budgets of these benchmarks are declared in {@code allocation-budget.properties}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventWaiterBenchmark
+{
+    private static final int WAITER_COUNT = 10000;
+    private static final long FIRST_CHANNEL_ID = 700000000000000000L;
+
+    private EventWaiter waiter;
+    private MessageReceivedEvent nonMatchingEvent;
+    private MessageReceivedEvent matchingEvent;
+    private long matched;
+
+    @Setup
+    public void setup()
+    {
+        waiter = new EventWaiter(Executors.newSingleThreadScheduledExecutor(), false);
+        for(int i = 0; i < WAITER_COUNT; i++)
+            register(FIRST_CHANNEL_ID + i);
+
+        JDA jda = Fakes.stub(JDA.class);
+        nonMatchingEvent = message(jda, FIRST_CHANNEL_ID - 1);
+        matchingEvent = message(jda, FIRST_CHANNEL_ID + WAITER_COUNT / 2);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        waiter.shutdown();
+    }
+
+    @Benchmark
+    public void nonMatchingEvent()
+    {
+        waiter.onEvent(nonMatchingEvent);
+    }
+
+    @Benchmark
+    public long matchingEvent()
+    {
+        waiter.onEvent(matchingEvent);
+        register(matchingEvent.getChannel().getIdLong());
+        return matched;
+    }
+
+    private void register(long channelId)
+    {
+        waiter.waitForEvent(MessageReceivedEvent.class,
+            event -> event.getChannel().getIdLong() == channelId,
+            event -> matched++);
+    }
+
+    private static MessageReceivedEvent message(JDA jda, long channelId)
+    {
+        TextChannel channel = Fakes.stub(TextChannel.class, "getIdLong", channelId, "getType", ChannelType.TEXT, "getJDA", jda);
+        Message message = Fakes.stub(Message.class,
+            "getIdLong", 600000000000000000L,
+            "getContentRaw", "yes",
+            "getChannel", channel,
+            "getChannelType", ChannelType.TEXT,
+            "getJDA", jda);
+        return new MessageReceivedEvent(jda, 0, message);
+    }
+}
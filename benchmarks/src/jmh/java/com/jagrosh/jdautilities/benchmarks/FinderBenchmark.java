@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.commons.utils.FinderUtil;
+import com.jagrosh.jdautilities.harness.Fakes;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.utils.cache.MemberCacheView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FinderUtil#findMembers(String, Guild)} over a guild of 100,000 members, for
+ * queries matched exactly, ignoring case, by prefix, and not at all.
+ *
+ * <p>Members are stubs, so the absolute times include the cost of the proxies answering them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinderBenchmark
+{
+    private static final int MEMBER_COUNT = 100000;
+
+    @Param({"user50000", "USER50000", "nick5000", "nobody"})
+    private String query;
+
+    private Guild guild;
+
+    @Setup
+    public void setup()
+    {
+        List<Member> members = new ArrayList<>(MEMBER_COUNT);
+        for(int i = 0; i < MEMBER_COUNT; i++)
+        {
+            long id = 200000000000000000L + i;
+            User user = Fakes.stub(User.class, "getIdLong", id, "getName", "user" + i, "getDiscriminator", "0001");
+            members.add(Fakes.stub(Member.class, "getIdLong", id, "getUser", user, "getEffectiveName", "nick" + i));
+        }
+        guild = Fakes.stub(Guild.class, "getMemberCache", Fakes.cacheView(MemberCacheView.class, members));
+    }
+
+    @Benchmark
+    public List<Member> findMembers()
+    {
+        return FinderUtil.findMembers(query, guild);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.oauth2.entities.OAuth2Guild;
+import com.jagrosh.jdautilities.oauth2.entities.impl.OAuth2GuildImpl;
+import com.jagrosh.jdautilities.oauth2.entities.impl.OAuth2JsonReader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a {@code /users/@me/guilds} response through a {@link org.json.JSONArray JSONArray},
+ * as the OAuth2 client used to, with the streaming {@link OAuth2JsonReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OAuth2ParseBenchmark
+{
+    @Param({"10", "200"})
+    public int guildCount;
+
+    private byte[] body;
+
+    @Setup
+    public void setup()
+    {
+        JSONArray guilds = new JSONArray();
+        for(int i = 0; i < guildCount; i++)
+        {
+            guilds.put(new JSONObject()
+                .put("id", Long.toString(81384788765712384L + i))
+                .put("name", "Guild number " + i)
+                .put("icon", i % 3 == 0 ? JSONObject.NULL : "a_1269e74af4df7417b13759eae50c83dc")
+                .put("owner", i % 10 == 0)
+                .put("permissions", "2147483647")
+                .put("features", new JSONArray().put("COMMUNITY").put("NEWS")));
+        }
+        body = guilds.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<OAuth2Guild> jsonArray()
+    {
+        JSONArray array = new JSONArray(new JSONTokener(new ByteArrayInputStream(body)));
+        List<OAuth2Guild> list = new LinkedList<>();
+        for(int i = 0; i < array.length(); i++)
+        {
+            JSONObject obj = array.getJSONObject(i);
+            list.add(new OAuth2GuildImpl(null, Long.parseLong(obj.getString("id")), obj.getString("name"),
+                obj.optString("icon", null), obj.getBoolean("owner"), (int) Long.parseLong(obj.getString("permissions"))));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public List<OAuth2Guild> streaming() throws IOException
+    {
+        return OAuth2JsonReader.readGuilds(null, new ByteArrayInputStream(body));
+    }
+}
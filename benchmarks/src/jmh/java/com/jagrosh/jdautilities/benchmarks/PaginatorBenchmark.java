@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.commons.waiter.EventWaiter;
+import com.jagrosh.jdautilities.menu.Paginator;
+import net.dv8tion.jda.api.entities.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering a page of a {@link Paginator} of 1,000 items, without sending it.
+ *
+ * <p>Rendering is private to the Paginator, so it is invoked through a method handle
+ * obtained once, at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginatorBenchmark
+{
+    private static final int ITEM_COUNT = 1000;
+
+    @Param({"1", "3"})
+    private int columns;
+
+    @Param({"1", "50"})
+    private int page;
+
+    private EventWaiter waiter;
+    private Paginator paginator;
+    private MethodHandle renderPage;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException
+    {
+        waiter = new EventWaiter(Executors.newSingleThreadScheduledExecutor(), false);
+        String[] items = new String[ITEM_COUNT];
+        for(int i = 0; i < ITEM_COUNT; i++)
+            items[i] = "Item number " + i;
+
+        paginator = new Paginator.Builder()
+            .setEventWaiter(waiter)
+            .setItems(items)
+            .setColumns(columns)
+            .setItemsPerPage(12)
+            .useNumberedItems(true)
+            .setText((current, pages) -> "Page " + current + " of " + pages)
+            .build();
+
+        Method method = Paginator.class.getDeclaredMethod("renderPage", int.class);
+        method.setAccessible(true);
+        renderPage = MethodHandles.lookup().unreflect(method);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        waiter.shutdown();
+    }
+
+    @Benchmark
+    public Message renderPage() throws Throwable
+    {
+        return (Message) renderPage.invokeExact(paginator, page);
+    }
+}
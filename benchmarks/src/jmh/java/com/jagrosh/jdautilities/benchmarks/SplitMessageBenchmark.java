@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.command.CommandEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CommandEvent#splitMessage(String)} for a message fitting in one chunk,
+ * and for one split into ten chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitMessageBenchmark
+{
+    @Param({"1500", "20000"})
+    private int length;
+
+    private String message;
+
+    @Setup
+    public void setup()
+    {
+        StringBuilder builder = new StringBuilder(length);
+        for(int line = 0; builder.length() < length; line++)
+        {
+            builder.append("Line ").append(line).append(": some text, and a ping for @everyone");
+            builder.append(line % 5 == 4 ? "\n\n" : "\n");
+        }
+        message = builder.substring(0, length);
+    }
+
+    @Benchmark
+    public List<String> splitMessage()
+    {
+        return CommandEvent.splitMessage(message);
+    }
+}
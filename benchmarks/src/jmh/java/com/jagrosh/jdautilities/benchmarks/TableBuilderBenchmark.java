@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.benchmarks;
+
+import com.jagrosh.jdautilities.commons.utils.TableBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TableBuilder#build()} for tables with headers, row names and a frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBuilderBenchmark
+{
+    private static final int COLUMN_COUNT = 6;
+
+    @Param({"10", "100"})
+    private int rowCount;
+
+    private TableBuilder table;
+
+    @Setup
+    public void setup()
+    {
+        String[] headers = new String[COLUMN_COUNT];
+        for(int c = 0; c < COLUMN_COUNT; c++)
+            headers[c] = "Column " + c;
+        String[] rowNames = new String[rowCount];
+        String[][] values = new String[rowCount][COLUMN_COUNT];
+        for(int r = 0; r < rowCount; r++)
+        {
+            rowNames[r] = "Row " + r;
+            for(int c = 0; c < COLUMN_COUNT; c++)
+                values[r][c] = Integer.toString(r * 7919 + c * 104729);
+        }
+
+        table = new TableBuilder()
+            .addHeaders(headers)
+            .addRowNames(rowNames)
+            .setValues(values)
+            .setBorders(TableBuilder.Borders.HEADER_ROW_FRAME)
+            .setAlignment(TableBuilder.Alignment.CENTER)
+            .codeblock(true)
+            .frame(true)
+            .autoAdjust(true);
+    }
+
+    @Benchmark
+    public String build()
+    {
+        return table.build();
+    }
+}
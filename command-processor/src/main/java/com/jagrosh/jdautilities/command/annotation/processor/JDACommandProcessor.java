@@ -0,0 +1,542 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.annotation.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * An annotation processor that compiles modules annotated with
+ * {@link com.jagrosh.jdautilities.command.annotation.JDACommand.Module @JDACommand.Module} ahead of time.
+ *
+ * <p>For every module, a class named after it with a {@code _JDACommands} suffix is generated in the same package,
+ * containing a {@link com.jagrosh.jdautilities.command.Command Command} subclass for each of its
+ * {@link com.jagrosh.jdautilities.command.annotation.JDACommand @JDACommand} methods that calls the method directly.
+ * These classes implement {@link com.jagrosh.jdautilities.command.CompiledModule CompiledModule} and are listed in
+ * {@code META-INF/services}, where the default {@link com.jagrosh.jdautilities.command.AnnotatedModuleCompiler
+ * AnnotatedModuleCompiler} finds them.
+ *
+ * <p>Everything the AnnotatedModuleCompiler would otherwise check at runtime is checked while compiling,
+ * and fails the build instead:
+ * <ul>
+ *     <li>Module names or children that match no public method</li>
+ *     <li>Matching methods that are not annotated with {@code @JDACommand}</li>
+ *     <li>Methods that do not take a {@code CommandEvent}, and optionally the {@code Command}, as parameters</li>
+ *     <li>Categories that do not name an accessible static {@code Command.Category} field of their location</li>
+ *     <li>Children that form a cycle</li>
+ * </ul>
+ *
+ * <p>The processor is shipped in its own {@code command-processor} artifact, registered as a service, so that it is
+ * picked up automatically when it is on the annotation processor path, for example using Gradle's
+ * {@code annotationProcessor} configuration, and never ends up on the runtime classpath of the bot.
+ */
+@SupportedAnnotationTypes(JDACommandProcessor.MODULE)
+public class JDACommandProcessor extends AbstractProcessor
+{
+    static final String MODULE = "com.jagrosh.jdautilities.command.annotation.JDACommand.Module";
+
+    private static final String JDA_COMMAND = "com.jagrosh.jdautilities.command.annotation.JDACommand";
+    private static final String CATEGORY_ANNOTATION = JDA_COMMAND + ".Category";
+    private static final String COMMAND = "com.jagrosh.jdautilities.command.Command";
+    private static final String CATEGORY = COMMAND + ".Category";
+    private static final String COMMAND_EVENT = "com.jagrosh.jdautilities.command.CommandEvent";
+    private static final String COMPILED_MODULE = "com.jagrosh.jdautilities.command.CompiledModule";
+    private static final String PERMISSION = "net.dv8tion.jda.api.Permission";
+    private static final String SUFFIX = "_JDACommands";
+
+    private final Set<String> generated = new TreeSet<>();
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Filer filer;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv)
+    {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.messager = processingEnv.getMessager();
+        this.filer = processingEnv.getFiler();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        TypeElement module = elements.getTypeElement(MODULE);
+        if(module != null)
+        {
+            for(TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(module)))
+            {
+                String name = new ModuleWriter(type).write();
+                if(name != null)
+                    generated.add(name);
+            }
+        }
+
+        if(roundEnv.processingOver() && !generated.isEmpty())
+            writeIndex();
+        return false;
+    }
+
+    private void writeIndex()
+    {
+        try
+        {
+            FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + COMPILED_MODULE);
+            try(Writer writer = index.openWriter())
+            {
+                for(String name : generated)
+                    writer.write(name + "\n");
+            }
+        }
+        catch(IOException e)
+        {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Could not write the index of compiled modules: " + e);
+        }
+    }
+
+    // Checks and generates the compiled version of a single module
+    private final class ModuleWriter
+    {
+        private final TypeElement module;
+        private final PackageElement pkg;
+        private final List<ExecutableElement> methods;
+        private final Map<ExecutableElement, String> commands = new LinkedHashMap<>();
+        private final Set<String> classNames = new HashSet<>();
+        private final StringBuilder body = new StringBuilder();
+        private boolean failed;
+
+        private ModuleWriter(TypeElement module)
+        {
+            this.module = module;
+            this.pkg = elements.getPackageOf(module);
+            this.methods = new ArrayList<>();
+            for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(module)))
+            {
+                if(method.getModifiers().contains(Modifier.PUBLIC))
+                    methods.add(method);
+            }
+        }
+
+        // Returns the name of the generated class, or null if the module has errors
+        private String write()
+        {
+            if(module.getKind() != ElementKind.CLASS && module.getKind() != ElementKind.ENUM)
+                return error(module, "@JDACommand.Module can only be applied to classes");
+            if(!isAccessible(module))
+                return error(module, "Module " + module.getQualifiedName() + " must not be private");
+
+            AnnotationMirror annotation = getAnnotation(module, MODULE);
+            List<String> roots = new ArrayList<>();
+            for(String name : strings(values(annotation).get("value")))
+            {
+                List<ExecutableElement> matched = match(name);
+                if(matched.isEmpty())
+                    error(module, "Module " + module.getSimpleName() + " has no public method named " + name, annotation);
+                for(ExecutableElement method : matched)
+                    roots.add(command(method, new ArrayDeque<>()));
+            }
+            if(roots.isEmpty())
+                error(module, "Module " + module.getSimpleName() + " is annotated with an empty command module", annotation);
+            if(failed)
+                return null;
+
+            String simpleName = flatName(module) + SUFFIX;
+            String qualifiedName = pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName;
+            String moduleType = typeName(module);
+
+            StringBuilder source = new StringBuilder();
+            source.append("// Generated by ").append(JDACommandProcessor.class.getName()).append(", do not edit\n");
+            if(!pkg.isUnnamed())
+                source.append("package ").append(pkg.getQualifiedName()).append(";\n");
+            source.append('\n')
+                .append("/**\n")
+                .append(" * The Commands of {@link ").append(moduleType).append("}, compiled from its @JDACommand methods.\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" implements ")
+                .append(COMPILED_MODULE).append('<').append(moduleType).append(">\n")
+                .append("{\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(moduleType).append("> getModuleType()\n")
+                .append("    {\n")
+                .append("        return ").append(moduleType).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(COMMAND).append("> compile(").append(moduleType).append(" module)\n")
+                .append("    {\n")
+                .append("        java.util.List<").append(COMMAND).append("> commands = new java.util.ArrayList<>(").append(roots.size()).append(");\n");
+            for(String root : roots)
+                source.append("        commands.add(new ").append(root).append("(module));\n");
+            source.append("        return commands;\n")
+                .append("    }\n")
+                .append(body)
+                .append("}\n");
+
+            try(Writer writer = filer.createSourceFile(qualifiedName, module).openWriter())
+            {
+                writer.write(source.toString());
+            }
+            catch(IOException e)
+            {
+                return error(module, "Could not write " + qualifiedName + ": " + e);
+            }
+            return qualifiedName;
+        }
+
+        private List<ExecutableElement> match(String name)
+        {
+            List<ExecutableElement> matched = new ArrayList<>();
+            for(ExecutableElement method : methods)
+            {
+                if(name.equalsIgnoreCase(method.getSimpleName().toString()))
+                    matched.add(method);
+            }
+            return matched;
+        }
+
+        // Generates the Command class of a method if it wasn't yet, and returns its name
+        private String command(ExecutableElement method, Deque<ExecutableElement> parents)
+        {
+            String existing = commands.get(method);
+            if(existing != null)
+                return existing;
+
+            String className = method.getSimpleName() + "Command";
+            for(int i = 2; !classNames.add(className); i++)
+                className = method.getSimpleName() + "Command" + i;
+            commands.put(method, className);
+
+            AnnotationMirror annotation = getAnnotation(method, JDA_COMMAND);
+            if(annotation == null)
+            {
+                error(method, "Method named " + method.getSimpleName() + " is not annotated with JDACommand");
+                return className;
+            }
+            Map<String, AnnotationValue> values = values(annotation);
+
+            String invocation = invocation(method);
+
+            // Children
+            List<String> children = new ArrayList<>();
+            parents.push(method);
+            for(String name : strings(values.get("children")))
+            {
+                List<ExecutableElement> matched = match(name);
+                if(matched.isEmpty())
+                    error(method, "Module " + module.getSimpleName() + " has no public method named " + name, annotation);
+                for(ExecutableElement child : matched)
+                {
+                    if(parents.contains(child))
+                        error(method, "Child command " + child.getSimpleName() + " would be its own parent", annotation);
+                    else
+                        children.add(command(child, parents));
+                }
+            }
+            parents.pop();
+
+            String moduleType = typeName(module);
+            StringBuilder b = new StringBuilder();
+            b.append('\n')
+                .append("    private static final class ").append(className).append(" extends ").append(COMMAND).append('\n')
+                .append("    {\n")
+                .append("        private final ").append(moduleType).append(" module;\n\n")
+                .append("        private ").append(className).append('(').append(moduleType).append(" module)\n")
+                .append("        {\n")
+                .append("            this.module = module;\n");
+
+            // Name and Aliases
+            List<String> names = strings(values.get("name"));
+            field(b, "name", literal(names.isEmpty() ? "null" : names.get(0)));
+            if(names.size() > 1)
+                field(b, "aliases", array("String", names.subList(1, names.size()), JDACommandProcessor::literal));
+
+            // Help
+            field(b, "help", literal((String) values.get("help").getValue()));
+
+            // Arguments
+            field(b, "arguments", trimmed((String) values.get("arguments").getValue()));
+
+            // Category
+            String category = category(method, (AnnotationMirror) values.get("category").getValue());
+            if(category != null)
+                field(b, "category", category);
+
+            // Guild Only, Required Role, Owner Command
+            field(b, "guildOnly", values.get("guildOnly").getValue().toString());
+            field(b, "requiredRole", trimmed((String) values.get("requiredRole").getValue()));
+            field(b, "ownerCommand", values.get("ownerCommand").getValue().toString());
+
+            // Cooldown
+            Map<String, AnnotationValue> cooldown = values((AnnotationMirror) values.get("cooldown").getValue());
+            field(b, "cooldown", cooldown.get("value").getValue().toString());
+            field(b, "cooldownScope", COMMAND + ".CooldownScope." + ((VariableElement) cooldown.get("scope").getValue()).getSimpleName());
+
+            // Permissions
+            field(b, "botPermissions", array(PERMISSION, constants(values.get("botPermissions")), p -> PERMISSION + "." + p));
+            field(b, "userPermissions", array(PERMISSION, constants(values.get("userPermissions")), p -> PERMISSION + "." + p));
+
+            // Uses Topic Tags, Hidden
+            field(b, "usesTopicTags", values.get("useTopicTags").getValue().toString());
+            field(b, "hidden", values.get("isHidden").getValue().toString());
+
+            // Child Commands
+            if(!children.isEmpty())
+                field(b, "children", array(COMMAND, children, c -> "new " + c + "(module)"));
+
+            b.append("        }\n\n")
+                .append("        @Override\n")
+                .append("        protected void execute(").append(COMMAND_EVENT).append(" event)\n")
+                .append("        {\n");
+            if(throwsChecked(method))
+            {
+                // Checked exceptions are rethrown as they are, like when the method is called reflectively
+                b.append("            try\n")
+                    .append("            {\n")
+                    .append("                ").append(invocation).append(";\n")
+                    .append("            }\n")
+                    .append("            catch(Exception e)\n")
+                    .append("            {\n")
+                    .append("                throw ").append(className).append(".<RuntimeException>rethrow(e);\n")
+                    .append("            }\n")
+                    .append("        }\n\n")
+                    .append("        @SuppressWarnings(\"unchecked\")\n")
+                    .append("        private static <E extends Throwable> E rethrow(Throwable t) throws E\n")
+                    .append("        {\n")
+                    .append("            throw (E) t;\n")
+                    .append("        }\n");
+            }
+            else
+            {
+                b.append("            ").append(invocation).append(";\n")
+                    .append("        }\n");
+            }
+            b.append("    }\n");
+            body.append(b);
+            return className;
+        }
+
+        // The call of the method with the parameters it takes, from within a Command's execute
+        private String invocation(ExecutableElement method)
+        {
+            List<? extends VariableElement> parameters = method.getParameters();
+            String target = method.getModifiers().contains(Modifier.STATIC) ? typeName(module) : "module";
+            String call = target + "." + method.getSimpleName();
+            if(parameters.size() == 2 && isType(parameters.get(0), COMMAND) && isType(parameters.get(1), COMMAND_EVENT))
+                return call + "(this, event)";
+            if(parameters.size() == 1 && isType(parameters.get(0), COMMAND_EVENT))
+                return call + "(event)";
+            if(parameters.size() == 2 && isType(parameters.get(0), COMMAND_EVENT) && isType(parameters.get(1), COMMAND))
+                return call + "(event, this)";
+            error(method, "Method named " + method.getSimpleName() + " was not compiled due to improper parameter types");
+            return call + "()";
+        }
+
+        // Resolves the static Category field named by the annotation, or returns null if there is no category
+        private String category(ExecutableElement method, AnnotationMirror annotation)
+        {
+            Map<String, AnnotationValue> values = values(annotation);
+            TypeMirror location = (TypeMirror) values.get("location").getValue();
+            TypeElement noLocation = elements.getTypeElement(CATEGORY_ANNOTATION);
+            if(noLocation != null && types.isSameType(types.erasure(location), types.erasure(noLocation.asType())))
+                return null;
+
+            String name = (String) values.get("name").getValue();
+            TypeElement category = elements.getTypeElement(CATEGORY);
+            Element locationElement = types.asElement(location);
+            VariableElement found = null;
+            if(locationElement != null && category != null)
+            {
+                for(VariableElement field : ElementFilter.fieldsIn(locationElement.getEnclosedElements()))
+                {
+                    if(field.getModifiers().contains(Modifier.STATIC) && name.equalsIgnoreCase(field.getSimpleName().toString())
+                       && types.isSameType(field.asType(), category.asType()))
+                        found = field;
+                }
+            }
+            if(found == null)
+            {
+                error(method, "Category location " + location + " has no static Command.Category field named " + name, annotation);
+                return null;
+            }
+            if(!isAccessible(found))
+            {
+                error(method, "Category field " + location + "." + found.getSimpleName() + " is not accessible from " + typeName(module), annotation);
+                return null;
+            }
+            return typeName((TypeElement) locationElement) + "." + found.getSimpleName();
+        }
+
+        private boolean throwsChecked(ExecutableElement method)
+        {
+            TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+            TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+            for(TypeMirror thrown : method.getThrownTypes())
+            {
+                if(!types.isSubtype(thrown, runtimeException) && !types.isSubtype(thrown, error))
+                    return true;
+            }
+            return false;
+        }
+
+        private boolean isType(VariableElement parameter, String type)
+        {
+            TypeElement element = elements.getTypeElement(type);
+            return element != null && types.isSameType(types.erasure(parameter.asType()), types.erasure(element.asType()));
+        }
+
+        // Whether an element can be referenced from the generated class, which is in the package of the module
+        private boolean isAccessible(Element element)
+        {
+            for(Element e = element; e instanceof TypeElement || e instanceof VariableElement; e = e.getEnclosingElement())
+            {
+                Set<Modifier> modifiers = e.getModifiers();
+                if(modifiers.contains(Modifier.PRIVATE))
+                    return false;
+                if(!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(e).equals(pkg))
+                    return false;
+            }
+            return true;
+        }
+
+        private void field(StringBuilder b, String name, String value)
+        {
+            b.append("            this.").append(name).append(" = ").append(value).append(";\n");
+        }
+
+        private String error(Element element, String message)
+        {
+            return error(element, message, null);
+        }
+
+        private String error(Element element, String message, AnnotationMirror annotation)
+        {
+            failed = true;
+            messager.printMessage(Diagnostic.Kind.ERROR, message, element, annotation);
+            return null;
+        }
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String type)
+    {
+        for(AnnotationMirror annotation : element.getAnnotationMirrors())
+        {
+            if(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(type))
+                return annotation;
+        }
+        return null;
+    }
+
+    private Map<String, AnnotationValue> values(AnnotationMirror annotation)
+    {
+        Map<String, AnnotationValue> values = new HashMap<>();
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotation).entrySet())
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
+        return values;
+    }
+
+    private static List<String> strings(AnnotationValue value)
+    {
+        List<String> strings = new ArrayList<>();
+        for(Object element : (List<?>) value.getValue())
+            strings.add((String) ((AnnotationValue) element).getValue());
+        return strings;
+    }
+
+    private static List<String> constants(AnnotationValue value)
+    {
+        List<String> constants = new ArrayList<>();
+        for(Object element : (List<?>) value.getValue())
+            constants.add(((VariableElement) ((AnnotationValue) element).getValue()).getSimpleName().toString());
+        return constants;
+    }
+
+    // The name of a type as it can be referenced in source, which for nested types includes the enclosing types
+    private static String typeName(TypeElement type)
+    {
+        return type.getQualifiedName().toString();
+    }
+
+    // The simple names of a type and the types it is nested in, joined by underscores
+    private static String flatName(TypeElement type)
+    {
+        String name = type.getSimpleName().toString();
+        for(Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement())
+            name = e.getSimpleName() + "_" + name;
+        return name;
+    }
+
+    private static String array(String type, List<String> elements, java.util.function.Function<String, String> mapper)
+    {
+        if(elements.isEmpty())
+            return "new " + type + "[0]";
+        StringJoiner joiner = new StringJoiner(", ", "new " + type + "[]{", "}");
+        for(String element : elements)
+            joiner.add(mapper.apply(element));
+        return joiner.toString();
+    }
+
+    private static String trimmed(String value)
+    {
+        return value.trim().isEmpty() ? "null" : literal(value.trim());
+    }
+
+    private static String literal(String value)
+    {
+        StringBuilder b = new StringBuilder(value.length() + 2).append('"');
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch(c)
+            {
+                case '"':  b.append("\\\""); break;
+                case '\\': b.append("\\\\"); break;
+                case '\n': b.append("\\n");  break;
+                case '\r': b.append("\\r");  break;
+                case '\t': b.append("\\t");  break;
+                default:
+                    if(c < 0x20 || c > 0x7E)
+                        b.append(String.format("\\u%04x", (int) c));
+                    else
+                        b.append(c);
+            }
+        }
+        return b.append('"').toString();
+    }
+}
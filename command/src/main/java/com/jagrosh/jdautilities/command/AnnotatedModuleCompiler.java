@@ -32,6 +32,9 @@ import java.util.List;
  * <br>The primary duty of this class is to provide a "in runtime" converter for generics that are annotated with
  * the {@link JDACommand.Module JDACommand.Module}
  *
+ * <p>Modules can also be compiled ahead of time, while compiling the bot, by putting the {@code command-processor}
+ * artifact on the annotation processor path. The default implementation then loads them without reflection.
+ *
  * @since  1.7
  * @author Kaidan Gustave
  */
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+
+import java.util.List;
+
+/**
+ * Provides the suggestions shown while a user types an option of a
+ * {@link com.jagrosh.jdautilities.command.SlashCommand SlashCommand}.
+ *
+ * <p>Providers are declared per option, in {@link SlashCommand#autoComplete SlashCommand#autoComplete}.
+ * Discord only waits three seconds for suggestions, and sends a new request for every key typed,
+ * so providers should answer from a precomputed index rather than scanning their data:
+ * <ul>
+ *     <li>{@link com.jagrosh.jdautilities.command.impl.PrefixAutoCompleteProvider PrefixAutoCompleteProvider}
+ *     suggests the choices with a name or a word of their name starting with the input.</li>
+ *
+ *     <li>{@link com.jagrosh.jdautilities.command.impl.NGramAutoCompleteProvider NGramAutoCompleteProvider}
+ *     suggests the choices with the names most similar to the input, and tolerates typos.</li>
+ *
+ *     <li>{@link com.jagrosh.jdautilities.command.impl.EntityAutoCompleteProvider EntityAutoCompleteProvider}
+ *     suggests the roles, members, channels or emotes of the guild the command is used in.</li>
+ * </ul>
+ *
+ * <p>Any provider can be wrapped in a {@link CachingAutoCompleteProvider CachingAutoCompleteProvider},
+ * which caches its results and debounces the requests of each user.
+ */
+@FunctionalInterface
+public interface AutoCompleteProvider
+{
+    /**
+     * Gets the suggestions for the focused option of the provided event.
+     * <br>Only the first {@link net.dv8tion.jda.api.interactions.commands.build.OptionData#MAX_CHOICES 25}
+     * suggestions are shown.
+     *
+     * @param  event
+     *         The CommandAutoCompleteEvent to suggest choices for
+     * @param  input
+     *         What the user has typed so far, never {@code null}
+     *
+     * @return The suggestions, in the order they are shown
+     */
+    List<Choice> complete(CommandAutoCompleteEvent event, String input);
+
+    /**
+     * Narrows down all the suggestions this provider made for an input to the ones it would make for
+     * a longer input, without computing them again.
+     * <br>This is used by {@link CachingAutoCompleteProvider} to answer users typing quickly, and is only
+     * called with suggestions that were not cut off at the maximum number of choices.
+     *
+     * <p>The default implementation returns {@code null}, as the suggestions for a longer input are not
+     * necessarily among the ones for a shorter input, for example when tolerating typos.
+     *
+     * @param  choices
+     *         All the suggestions made for a shorter input
+     * @param  input
+     *         What the user has typed so far, starting with the shorter input
+     *
+     * @return The suggestions for the input, or {@code null} if they cannot be narrowed down from the provided ones
+     */
+    default List<Choice> narrow(List<Choice> choices, String input)
+    {
+        return null;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * An {@link com.jagrosh.jdautilities.command.AutoCompleteProvider AutoCompleteProvider} that caches
+ * the suggestions of another AutoCompleteProvider, and debounces the requests of each user.
+ *
+ * <p>Discord sends a request for every key a user types. For expensive providers, this class:
+ * <ul>
+ *     <li>Caches suggestions by command, option, input and scope (the guild, by default), for a
+ *     limited time and up to a maximum number of inputs, evicting the least recently used first.</li>
+ *
+ *     <li>Answers a user typing faster than the debounce delay by {@link AutoCompleteProvider#narrow(List, String)
+ *     narrowing down} the last suggestions computed for them, if the wrapped provider supports it and they were
+ *     not cut off at the maximum number of choices. The wrapped provider is called again once the delay has
+ *     passed since it last ran for that user.</li>
+ * </ul>
+ *
+ * <p>Providers whose suggestions depend on more than the guild, for example on the user, must
+ * {@link Builder#setScope(Function) set a scope} accordingly.
+ *
+ * @see    CachingAutoCompleteProvider.Builder
+ */
+public class CachingAutoCompleteProvider implements AutoCompleteProvider
+{
+    private final AutoCompleteProvider provider;
+    private final Function<CommandAutoCompleteEvent, Object> scope;
+    private final long debounce;
+    private final long expireAfter;
+    private final int maximumSize;
+    private final Map<String, Entry> cache;
+    private final ConcurrentHashMap<Long, Recent> recent = new ConcurrentHashMap<>();
+
+    protected CachingAutoCompleteProvider(AutoCompleteProvider provider, Function<CommandAutoCompleteEvent, Object> scope,
+                                          long debounce, long expireAfter, int maximumSize)
+    {
+        this.provider = provider;
+        this.scope = scope;
+        this.debounce = debounce;
+        this.expireAfter = expireAfter;
+        this.maximumSize = maximumSize;
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75F, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    @Override
+    public List<Choice> complete(CommandAutoCompleteEvent event, String input)
+    {
+        long now = System.nanoTime();
+        long user = event.getUser().getIdLong();
+        OptionMapping focused = event.getFocusedOption();
+        String prefix = event.getCommandPath() + '\0' + (focused == null ? "" : focused.getName()) + '\0'
+            + scope.apply(event) + '\0';
+
+        Recent last = recent.get(user);
+        // Suggestions cut off at the maximum may be missing some of the ones for the longer input
+        if(last != null && now - last.computedAt < debounce && last.prefix.equals(prefix) && input.startsWith(last.input)
+            && last.choices.size() < OptionData.MAX_CHOICES)
+        {
+            List<Choice> narrowed = provider.narrow(last.choices, input);
+            if(narrowed != null)
+                return narrowed;
+        }
+
+        String key = prefix + input;
+        List<Choice> choices = getCached(key, now);
+        if(choices == null)
+        {
+            choices = provider.complete(event, input);
+            synchronized(cache)
+            {
+                cache.put(key, new Entry(choices, now));
+            }
+        }
+
+        if(recent.size() >= maximumSize)
+            recent.values().removeIf(other -> now - other.computedAt >= debounce);
+        recent.put(user, new Recent(prefix, input, choices, now));
+        return choices;
+    }
+
+    /**
+     * Removes all cached suggestions.
+     */
+    public void invalidateAll()
+    {
+        synchronized(cache)
+        {
+            cache.clear();
+        }
+        recent.clear();
+    }
+
+    private List<Choice> getCached(String key, long now)
+    {
+        synchronized(cache)
+        {
+            Entry entry = cache.get(key);
+            if(entry == null)
+                return null;
+            if(now - entry.computedAt < expireAfter)
+                return entry.choices;
+            cache.remove(key);
+            return null;
+        }
+    }
+
+    private static final class Entry
+    {
+        private final List<Choice> choices;
+        private final long computedAt;
+
+        private Entry(List<Choice> choices, long computedAt)
+        {
+            this.choices = choices;
+            this.computedAt = computedAt;
+        }
+    }
+
+    private static final class Recent
+    {
+        private final String prefix;
+        private final String input;
+        private final List<Choice> choices;
+        private final long computedAt;
+
+        private Recent(String prefix, String input, List<Choice> choices, long computedAt)
+        {
+            this.prefix = prefix;
+            this.input = input;
+            this.choices = choices;
+            this.computedAt = computedAt;
+        }
+    }
+
+    /**
+     * A builder for a {@link CachingAutoCompleteProvider}.
+     */
+    public static class Builder
+    {
+        private final AutoCompleteProvider provider;
+        private Function<CommandAutoCompleteEvent, Object> scope = event ->
+        {
+            Guild guild = event.getGuild();
+            return guild == null ? 0L : guild.getIdLong();
+        };
+        private long debounce = TimeUnit.MILLISECONDS.toNanos(300);
+        private long expireAfter = TimeUnit.MINUTES.toNanos(5);
+        private int maximumSize = 10000;
+
+        /**
+         * Constructs a new Builder wrapping the provided provider.
+         *
+         * @param  provider
+         *         The AutoCompleteProvider to cache the suggestions of
+         */
+        public Builder(AutoCompleteProvider provider)
+        {
+            this.provider = provider;
+        }
+
+        /**
+         * Sets what, besides the command, option and input, the suggestions depend on.
+         * <br>Default is the ID of the guild, or {@code 0} in direct messages.
+         *
+         * @param  scope
+         *         Gets the scope of a request, compared using its string form
+         *
+         * @return This builder
+         */
+        public Builder setScope(Function<CommandAutoCompleteEvent, Object> scope)
+        {
+            this.scope = scope;
+            return this;
+        }
+
+        /**
+         * Sets how long after the wrapped provider ran for a user their next requests are answered
+         * from its last suggestions. A delay of {@code 0} disables debouncing.
+         * <br>Default is 300 milliseconds.
+         *
+         * @param  delay
+         *         The debounce delay
+         * @param  unit
+         *         The unit of the delay
+         *
+         * @return This builder
+         */
+        public Builder setDebounce(long delay, TimeUnit unit)
+        {
+            this.debounce = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the age after which cached suggestions are no longer returned.
+         * <br>Default is 5 minutes.
+         *
+         * @param  delay
+         *         The expiry delay
+         * @param  unit
+         *         The unit of the delay
+         *
+         * @return This builder
+         */
+        public Builder setExpireAfter(long delay, TimeUnit unit)
+        {
+            this.expireAfter = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of inputs whose suggestions are cached.
+         * <br>Default is 10000.
+         *
+         * @param  maximumSize
+         *         The maximum number of cached inputs
+         *
+         * @return This builder
+         */
+        public Builder setMaximumSize(int maximumSize)
+        {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Builds the CachingAutoCompleteProvider.
+         *
+         * @return The CachingAutoCompleteProvider
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If the maximum size is not positive
+         */
+        public CachingAutoCompleteProvider build()
+        {
+            if(maximumSize <= 0)
+                throw new IllegalArgumentException("Maximum size must be positive!");
+            return new CachingAutoCompleteProvider(provider, scope, debounce, expireAfter, maximumSize);
+        }
+    }
+}
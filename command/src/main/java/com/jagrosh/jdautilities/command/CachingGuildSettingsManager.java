@@ -0,0 +1,567 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link com.jagrosh.jdautilities.command.GuildSettingsManager GuildSettingsManager} that caches
+ * the settings provided by another GuildSettingsManager, and only ever loads them asynchronously.
+ *
+ * <p>{@link #getSettings(Guild)} is called for every message received in a guild, before it is even known
+ * to be a command. When the wrapped manager is backed by a database, wrapping it with this class means
+ * that message handling never waits on it:
+ * <ul>
+ *     <li>Settings of all guilds of a shard are loaded in bulk, through
+ *     {@link GuildSettingsManager#getAllSettings(Collection)}, when the shard is ready.</li>
+ *
+ *     <li>A cache miss starts loading the settings and returns {@code null} right away.
+ *     {@link #getSettingsAsync(Guild)} can be used to wait for them instead.</li>
+ *
+ *     <li>Settings accessed after their refresh delay are reloaded in the background, while
+ *     the cached settings keep being returned until the new ones are loaded.</li>
+ *
+ *     <li>Guilds without settings are cached as well, for a separate (usually shorter) delay.</li>
+ *
+ *     <li>Failed loads are cached for that same delay: while the wrapped manager is failing, the settings of
+ *     a guild are loaded at most once per delay, and the cached settings, if any, keep being returned.</li>
+ * </ul>
+ *
+ * <p>Concurrent loads of the same guild are merged into one call to the wrapped manager.
+ * Cache hits, misses and load times are recorded and can be retrieved using {@link #getStats()}.
+ *
+ * @param  <T>
+ *         The type of settings
+ *
+ * @see    CachingGuildSettingsManager.Builder
+ */
+public class CachingGuildSettingsManager<T> implements GuildSettingsManager<T>
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CachingGuildSettingsManager.class);
+
+    private final GuildSettingsManager<T> manager;
+    private final ExecutorService executor;
+    private final boolean shutdownExecutor;
+    private final long refreshAfter;
+    private final long expireAfter;
+    private final long negativeExpireAfter;
+    private final ConcurrentHashMap<Long, Entry<T>> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<T>> loading = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Failure> failures = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+
+    protected CachingGuildSettingsManager(GuildSettingsManager<T> manager, ExecutorService executor, boolean shutdownExecutor,
+                                          long refreshAfter, long expireAfter, long negativeExpireAfter)
+    {
+        this.manager = manager;
+        this.executor = executor;
+        this.shutdownExecutor = shutdownExecutor;
+        this.refreshAfter = refreshAfter;
+        this.expireAfter = expireAfter;
+        this.negativeExpireAfter = negativeExpireAfter;
+    }
+
+    /**
+     * Gets the cached settings of a {@link net.dv8tion.jda.api.entities.Guild Guild}.
+     *
+     * <p>This never blocks: if the settings are not cached yet, they start loading
+     * and {@code null} is returned.
+     *
+     * @param  guild
+     *         The guild to get settings for.
+     *
+     * @return The cached settings of the guild, or {@code null} if it has no settings or
+     *         if they are not loaded yet.
+     */
+    @Nullable
+    @Override
+    public T getSettings(Guild guild)
+    {
+        Entry<T> entry = getFresh(guild);
+        if(entry != null)
+            return entry.value;
+        load(guild);
+        return null;
+    }
+
+    /**
+     * Gets the settings of a {@link net.dv8tion.jda.api.entities.Guild Guild}, loading them
+     * if they are not cached.
+     *
+     * @param  guild
+     *         The guild to get settings for.
+     *
+     * @return A future completed with the settings of the guild, or with {@code null} if it has no settings.
+     */
+    public CompletableFuture<T> getSettingsAsync(Guild guild)
+    {
+        Entry<T> entry = getFresh(guild);
+        return entry != null ? CompletableFuture.completedFuture(entry.value) : load(guild);
+    }
+
+    @Override
+    public Map<Long, T> getAllSettings(Collection<Guild> guilds)
+    {
+        return manager.getAllSettings(guilds);
+    }
+
+    /**
+     * Removes the cached settings of a {@link net.dv8tion.jda.api.entities.Guild Guild},
+     * so that they are loaded again the next time they are accessed.
+     *
+     * <p>Settings being loaded when this is called are not cached once loaded, as they may predate the change.
+     *
+     * @param  guild
+     *         The guild whose settings changed.
+     */
+    public void invalidate(Guild guild)
+    {
+        long id = guild.getIdLong();
+        invalidations.incrementAndGet();
+        // Detaches the load in progress, in the same order as it caches its result
+        loading.remove(id);
+        cache.remove(id);
+        failures.remove(id);
+    }
+
+    /**
+     * Removes all cached settings.
+     */
+    public void invalidateAll()
+    {
+        invalidations.incrementAndGet();
+        loading.clear();
+        cache.clear();
+        failures.clear();
+    }
+
+    /**
+     * Gets a snapshot of the statistics of this cache.
+     *
+     * @return The statistics of this cache
+     */
+    public Stats getStats()
+    {
+        return new Stats(hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(), loadTime.sum(), cache.size());
+    }
+
+    @Override
+    public void init()
+    {
+        manager.init();
+    }
+
+    @Override
+    public void init(JDA jda)
+    {
+        manager.init(jda);
+        executor.execute(() -> preload(jda.getGuildCache().asList()));
+    }
+
+    @Override
+    public void shutdown()
+    {
+        if(shutdownExecutor)
+            executor.shutdown();
+        manager.shutdown();
+    }
+
+    private Entry<T> getFresh(Guild guild)
+    {
+        Entry<T> entry = cache.get(guild.getIdLong());
+        if(entry != null)
+        {
+            long age = System.nanoTime() - entry.loadedAt;
+            if(age < (entry.value == null ? negativeExpireAfter : expireAfter))
+            {
+                hits.increment();
+                // Refresh ahead of expiry, still serving the cached settings meanwhile
+                if(entry.value != null && age >= refreshAfter)
+                    load(guild);
+                return entry;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private CompletableFuture<T> load(Guild guild)
+    {
+        long id = guild.getIdLong();
+        CompletableFuture<T> future = loading.get(id);
+        if(future != null)
+            return future;
+        // Back off while the last load failed recently
+        Failure failure = failures.get(id);
+        if(failure != null && System.nanoTime() - failure.failedAt < negativeExpireAfter)
+        {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(failure.cause);
+            return failed;
+        }
+        CompletableFuture<T> created = new CompletableFuture<>();
+        future = loading.putIfAbsent(id, created);
+        if(future != null)
+            return future;
+
+        try
+        {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try
+                {
+                    T settings = manager.getSettings(guild);
+                    Entry<T> loaded = new Entry<>(settings, System.nanoTime());
+                    // Only cached if the guild was not invalidated while loading
+                    loading.computeIfPresent(id, (key, current) ->
+                    {
+                        if(current != created)
+                            return current;
+                        cache.put(id, loaded);
+                        failures.remove(id);
+                        return null;
+                    });
+                    created.complete(settings);
+                }
+                catch(Throwable t)
+                {
+                    loadFailures.increment();
+                    LOG.error("Failed to load settings for guild {}, retrying in {}ms at the earliest", id,
+                        TimeUnit.NANOSECONDS.toMillis(negativeExpireAfter), t);
+                    Failure failed = new Failure(t, System.nanoTime());
+                    loading.computeIfPresent(id, (key, current) ->
+                    {
+                        if(current != created)
+                            return current;
+                        failures.put(id, failed);
+                        return null;
+                    });
+                    created.completeExceptionally(t);
+                }
+                finally
+                {
+                    loads.increment();
+                    loadTime.add(System.nanoTime() - start);
+                }
+            });
+        }
+        catch(RejectedExecutionException ex)
+        {
+            loading.remove(id, created);
+            created.completeExceptionally(ex);
+        }
+        return created;
+    }
+
+    private void preload(List<Guild> guilds)
+    {
+        long start = System.nanoTime();
+        long invalidationsBefore = invalidations.get();
+        try
+        {
+            Map<Long, T> settings = manager.getAllSettings(guilds);
+            long loadedAt = System.nanoTime();
+            // Some of the settings may predate an invalidation, they are loaded lazily instead
+            if(invalidations.get() != invalidationsBefore)
+            {
+                LOG.debug("Discarded preloaded settings for {} guilds, as settings were invalidated meanwhile", guilds.size());
+                return;
+            }
+            for(Guild guild : guilds)
+                cache.putIfAbsent(guild.getIdLong(), new Entry<>(settings.get(guild.getIdLong()), loadedAt));
+            LOG.debug("Preloaded settings for {} guilds in {}ms", guilds.size(), TimeUnit.NANOSECONDS.toMillis(loadedAt - start));
+        }
+        catch(Throwable t)
+        {
+            loadFailures.increment();
+            LOG.error("Failed to preload settings for {} guilds", guilds.size(), t);
+        }
+        finally
+        {
+            loads.increment();
+            loadTime.add(System.nanoTime() - start);
+        }
+    }
+
+    private static final class Entry<T>
+    {
+        private final T value;
+        private final long loadedAt;
+
+        private Entry(T value, long loadedAt)
+        {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final class Failure
+    {
+        private final Throwable cause;
+        private final long failedAt;
+
+        private Failure(Throwable cause, long failedAt)
+        {
+            this.cause = cause;
+            this.failedAt = failedAt;
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of a {@link CachingGuildSettingsManager}.
+     */
+    public static final class Stats
+    {
+        private final long hits, misses, loads, loadFailures, loadTime, size;
+
+        private Stats(long hits, long misses, long loads, long loadFailures, long loadTime, long size)
+        {
+            this.hits = hits;
+            this.misses = misses;
+            this.loads = loads;
+            this.loadFailures = loadFailures;
+            this.loadTime = loadTime;
+            this.size = size;
+        }
+
+        /**
+         * Gets the number of times cached settings were returned.
+         *
+         * @return The number of cache hits
+         */
+        public long getHitCount()
+        {
+            return hits;
+        }
+
+        /**
+         * Gets the number of times settings were not cached or had expired.
+         *
+         * @return The number of cache misses
+         */
+        public long getMissCount()
+        {
+            return misses;
+        }
+
+        /**
+         * Gets the ratio of cache hits to cache accesses, or {@code 1} if the cache was never accessed.
+         *
+         * @return The hit rate, between {@code 0} and {@code 1}
+         */
+        public double getHitRate()
+        {
+            long total = hits + misses;
+            return total == 0 ? 1D : (double) hits / total;
+        }
+
+        /**
+         * Gets the ratio of cache misses to cache accesses, or {@code 0} if the cache was never accessed.
+         *
+         * @return The miss rate, between {@code 0} and {@code 1}
+         */
+        public double getMissRate()
+        {
+            long total = hits + misses;
+            return total == 0 ? 0D : (double) misses / total;
+        }
+
+        /**
+         * Gets the number of loads from the wrapped manager, including bulk preloads and failed loads.
+         *
+         * @return The number of loads
+         */
+        public long getLoadCount()
+        {
+            return loads;
+        }
+
+        /**
+         * Gets the number of loads from the wrapped manager that threw an exception.
+         *
+         * @return The number of failed loads
+         */
+        public long getLoadFailureCount()
+        {
+            return loadFailures;
+        }
+
+        /**
+         * Gets the average time taken by a load from the wrapped manager.
+         *
+         * @param  unit
+         *         The unit to get the time in
+         *
+         * @return The average load time, or {@code 0} if nothing was loaded yet
+         */
+        public long getAverageLoadTime(TimeUnit unit)
+        {
+            return loads == 0 ? 0 : unit.convert(loadTime / loads, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Gets the number of guilds whose settings are cached, including guilds without settings.
+         *
+         * @return The number of cached guilds
+         */
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Stats(hitRate=%.3f, hits=%d, misses=%d, loads=%d, failures=%d, avgLoad=%dms, size=%d)",
+                getHitRate(), hits, misses, loads, loadFailures, getAverageLoadTime(TimeUnit.MILLISECONDS), size);
+        }
+    }
+
+    /**
+     * A builder for a {@link CachingGuildSettingsManager}.
+     *
+     * @param  <T>
+     *         The type of settings
+     */
+    public static class Builder<T>
+    {
+        private final GuildSettingsManager<T> manager;
+        private ExecutorService executor = null;
+        private long refreshAfter = TimeUnit.MINUTES.toNanos(45);
+        private long expireAfter = TimeUnit.HOURS.toNanos(1);
+        private long negativeExpireAfter = TimeUnit.MINUTES.toNanos(5);
+
+        /**
+         * Constructs a new Builder wrapping the provided manager.
+         *
+         * @param  manager
+         *         The GuildSettingsManager to cache the settings of
+         */
+        public Builder(GuildSettingsManager<T> manager)
+        {
+            this.manager = manager;
+        }
+
+        /**
+         * Sets the executor settings are loaded on.
+         * <br>If not set, a fixed pool of 2 daemon threads is created, and shut down with the manager.
+         *
+         * @param  executor
+         *         The executor to load settings on
+         *
+         * @return This builder
+         */
+        public Builder<T> setExecutor(ExecutorService executor)
+        {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the age after which cached settings are reloaded in the background when accessed.
+         * <br>Default is 45 minutes.
+         *
+         * @param  delay
+         *         The refresh delay
+         * @param  unit
+         *         The unit of the delay
+         *
+         * @return This builder
+         */
+        public Builder<T> setRefreshAfter(long delay, TimeUnit unit)
+        {
+            this.refreshAfter = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the age after which cached settings are no longer returned.
+         * <br>Default is 1 hour.
+         *
+         * @param  delay
+         *         The expiry delay
+         * @param  unit
+         *         The unit of the delay
+         *
+         * @return This builder
+         */
+        public Builder<T> setExpireAfter(long delay, TimeUnit unit)
+        {
+            this.expireAfter = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the age after which a guild cached as having no settings is looked up again,
+         * which is also how long loading the settings of a guild is not retried after it failed.
+         * <br>Default is 5 minutes.
+         *
+         * @param  delay
+         *         The expiry delay
+         * @param  unit
+         *         The unit of the delay
+         *
+         * @return This builder
+         */
+        public Builder<T> setNegativeExpireAfter(long delay, TimeUnit unit)
+        {
+            this.negativeExpireAfter = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Builds the CachingGuildSettingsManager.
+         *
+         * @return The CachingGuildSettingsManager
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If the refresh delay is longer than the expiry delay
+         */
+        public CachingGuildSettingsManager<T> build()
+        {
+            if(refreshAfter > expireAfter)
+                throw new IllegalArgumentException("Refresh delay must not be longer than the expiry delay!");
+            ExecutorService executor = this.executor;
+            if(executor == null)
+            {
+                executor = Executors.newFixedThreadPool(2, r -> {
+                    Thread thread = new Thread(r, "GuildSettings-Loader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return new CachingGuildSettingsManager<>(manager, executor, this.executor == null,
+                refreshAfter, expireAfter, negativeExpireAfter);
+        }
+    }
+}
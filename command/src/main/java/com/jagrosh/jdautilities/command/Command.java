@@ -21,8 +21,6 @@ import net.dv8tion.jda.api.entities.*;
 import net.dv8tion.jda.api.MessageBuilder;
 
 import java.awt.Color;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Locale;
@@ -85,8 +83,6 @@ public abstract class Command
      */
     protected String help = "Aucune aide disponible.";
 
-    private Class<?> messageHelper;
-
     /**
      * A small example
      */
@@ -234,13 +230,6 @@ public abstract class Command
      */
     public final void run(CommandEvent event)
     {
-        if(messageHelper == null) {
-            try {
-                messageHelper = Class.forName("net.thesimpleteam.simplebot.utils.MessageHelper");
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
         // child check
         if(!event.getArgs().isEmpty())
         {
@@ -671,40 +660,27 @@ public abstract class Command
     }
 
     private String getTranslatedString(String key, CommandEvent e) {
-        try {
-            return (String) Class.forName("net.thesimpleteam.simplebot.utils.MessageHelper").getMethod("translateMessage", String.class, CommandEvent.class).invoke(null, key, e);
-        } catch (ClassNotFoundException | NoSuchMethodException | InvocationTargetException | IllegalAccessException ex) {
-            ex.printStackTrace();
-            return key;
-        }
+        return e.getClient().getCommandMessages().translate(key, e);
     }
 
     private Message isNotOwner(CommandEvent event) {
-        try {
-            return new MessageBuilder(new EmbedBuilder()
-                .setColor(Color.RED)
-                .setFooter((String) messageHelper.getMethod("getTag", User.class).invoke(null, event.getAuthor()), event.getAuthor().getEffectiveAvatarUrl())
-                .setTimestamp(Instant.now())
-                .setTitle(Class.forName("net.thesimpleteam.simplebot.utils.UnicodeCharacters").getField("crossMarkEmoji").get(null) + " " + getTranslatedString("error.commands.notOwner", event))
-                .build()).build();
-        } catch (IllegalAccessException | NoSuchMethodException | NoSuchFieldException | ClassNotFoundException | InvocationTargetException e) {
-            e.printStackTrace();
-            return null;
-        }
+        CommandMessages messages = event.getClient().getCommandMessages();
+        return new MessageBuilder(new EmbedBuilder()
+            .setColor(Color.RED)
+            .setFooter(messages.getTag(event.getAuthor()), event.getAuthor().getEffectiveAvatarUrl())
+            .setTimestamp(Instant.now())
+            .setTitle(messages.getErrorEmoji() + " " + messages.translate("error.commands.notOwner", event))
+            .build()).build();
     }
 
     private Message getErrorMessage(Member member, CommandEvent event, Permission perm) {
-        try {
-            return new MessageBuilder(new EmbedBuilder()
-                .setColor(Color.RED)
-                .setFooter((String) messageHelper.getMethod("getTag", User.class).invoke(null, event.getAuthor()), event.getAuthor().getEffectiveAvatarUrl())
-                .setTimestamp(Instant.now())
-                .setTitle(member.getUser().isBot() ? getTranslatedString("error.commands.botHasNotPermission", event) : getTranslatedString("error.commands.userHasNotPermission", event), perm.getName())
-                .build()).build();
-        } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-            e.printStackTrace();
-        }
-        return null;
+        CommandMessages messages = event.getClient().getCommandMessages();
+        return new MessageBuilder(new EmbedBuilder()
+            .setColor(Color.RED)
+            .setFooter(messages.getTag(event.getAuthor()), event.getAuthor().getEffectiveAvatarUrl())
+            .setTimestamp(Instant.now())
+            .setTitle(member.getUser().isBot() ? messages.translate("error.commands.botHasNotPermission", event) : messages.translate("error.commands.userHasNotPermission", event), perm.getName())
+            .build()).build();
     }
 
     /**
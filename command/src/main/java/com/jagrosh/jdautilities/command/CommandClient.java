@@ -439,6 +439,28 @@ public interface CommandClient
      * @return The {@code long} ID(s) of any CoOwners of this bot
      */
     long[] getCoOwnerIdsLong();
+
+    /**
+     * Tests whether the {@link net.dv8tion.jda.api.entities.User User} with the provided ID
+     * is the owner or one of the CoOwners of this bot.
+     *
+     * @param  userId
+     *         The ID of the User to test
+     *
+     * @return {@code true} if the User is the Owner or a CoOwner, else {@code false}
+     */
+    default boolean isOwner(long userId)
+    {
+        if(userId == getOwnerIdLong())
+            return true;
+        long[] coOwnerIds = getCoOwnerIdsLong();
+        if(coOwnerIds == null)
+            return false;
+        for(long id : coOwnerIds)
+            if(id == userId)
+                return true;
+        return false;
+    }
     
     /**
      * Gets the success emoji.
@@ -460,6 +482,17 @@ public interface CommandClient
      * @return The error emoji
      */
     String getError();
+
+    /**
+     * Gets the {@link com.jagrosh.jdautilities.command.CommandMessages CommandMessages} that
+     * {@link com.jagrosh.jdautilities.command.Command Command}s use for the responses they send by themselves.
+     *
+     * @return The CommandMessages
+     */
+    default CommandMessages getCommandMessages()
+    {
+        return CommandMessages.getDefault();
+    }
     
     /**
      * Gets the {@link java.util.concurrent.ScheduledExecutorService ScheduledExecutorService} held by this client.
@@ -54,6 +54,8 @@ public class CommandClientBuilder
     private String error;
     private String carbonKey;
     private String botsKey;
+    private final LinkedList<StatsSink> statsSinks = new LinkedList<>();
+    private long statsDelay = 30;
     private final LinkedList<Command> commands = new LinkedList<>();
     private final LinkedList<SlashCommand> slashCommands = new LinkedList<>();
     private String forcedGuildId = null;
@@ -67,6 +69,7 @@ public class CommandClientBuilder
     private int linkedCacheSize = 0;
     private AnnotatedModuleCompiler compiler = new AnnotatedModuleCompilerImpl();
     private GuildSettingsManager manager = null;
+    private CommandMessages commandMessages = null;
 
     /**
      * Builds a {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl CommandClientImpl}
@@ -79,8 +82,8 @@ public class CommandClientBuilder
     public CommandClient build()
     {
         CommandClient client = new CommandClientImpl(ownerId, coOwnerIds, prefix, altprefix, prefixes, prefixFunction, commandPreProcessFunction, activity, status, serverInvite,
-                                                     success, warning, error, carbonKey, botsKey, new ArrayList<>(commands), new ArrayList<>(slashCommands), forcedGuildId, manualUpsert, useHelp,
-                                                     shutdownAutomatically, helpConsumer, helpWord, executor, linkedCacheSize, compiler, manager);
+                                                     success, warning, error, carbonKey, botsKey, new ArrayList<>(statsSinks), statsDelay, new ArrayList<>(commands), new ArrayList<>(slashCommands), forcedGuildId, manualUpsert, useHelp,
+                                                     shutdownAutomatically, helpConsumer, helpWord, executor, linkedCacheSize, compiler, manager, commandMessages);
         if(listener!=null)
             client.setListener(listener);
         return client;
@@ -558,6 +561,42 @@ public class CommandClientBuilder
         return this;
     }
     
+    /**
+     * Adds a {@link com.jagrosh.jdautilities.command.StatsSink StatsSink} to publish the bot's
+     * guild statistics to.
+     *
+     * <p>This is in addition to the sinks registered by {@link #setCarbonitexKey(String)} and
+     * {@link #setDiscordBotsKey(String)}.
+     *
+     * @param  sink
+     *         The StatsSink to add
+     *
+     * @return This builder
+     */
+    public CommandClientBuilder addStatsSink(StatsSink sink)
+    {
+        this.statsSinks.add(sink);
+        return this;
+    }
+
+    /**
+     * Sets the delay, in seconds, over which guild joins and leaves are coalesced before
+     * publishing the bot's guild statistics to its {@link com.jagrosh.jdautilities.command.StatsSink StatsSink}s.
+     * <br>This is also the minimum time between two publications.
+     *
+     * <p>Default is {@code 30} seconds.
+     *
+     * @param  statsDelay
+     *         The delay in seconds
+     *
+     * @return This builder
+     */
+    public CommandClientBuilder setStatsDelay(long statsDelay)
+    {
+        this.statsDelay = statsDelay;
+        return this;
+    }
+
     /**
      * This method has been deprecated as the new(ish) ratelimit system is more complex than we'd like to
      * implement in JDA-Utils. Considering using some other library which correctly handles the ratelimits
@@ -656,4 +695,23 @@ public class CommandClientBuilder
         this.manager = manager;
         return this;
     }
+
+    /**
+     * Sets the {@link com.jagrosh.jdautilities.command.CommandMessages CommandMessages} that
+     * {@link com.jagrosh.jdautilities.command.Command Command}s use for the responses they send by themselves,
+     * such as cooldown and missing permission errors.
+     *
+     * <p>By default these are looked up reflectively from the bot's {@code MessageHelper}.
+     * Setting them avoids this reflection, for example for native images.
+     *
+     * @param  commandMessages
+     *         The CommandMessages to use, or {@code null} to use the default ones.
+     *
+     * @return This builder
+     */
+    public CommandClientBuilder setCommandMessages(CommandMessages commandMessages)
+    {
+        this.commandMessages = commandMessages;
+        return this;
+    }
 }
@@ -16,15 +16,24 @@
 package com.jagrosh.jdautilities.command;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 import com.jagrosh.jdautilities.command.impl.CommandClientImpl;
+import com.jagrosh.jdautilities.commons.utils.MessageChunker;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.*;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.exceptions.PermissionException;
+import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.internal.utils.Checks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A wrapper class for a {@link net.dv8tion.jda.api.events.message.MessageReceivedEvent MessageReceivedEvent},
@@ -45,6 +54,16 @@ import net.dv8tion.jda.internal.utils.Checks;
 public class CommandEvent
 {
     public static int MAX_MESSAGES = 2;
+    /**
+     * The length, in characters, past which String replies are sent as a {@code message.txt} attachment
+     * instead of being split in several messages, or {@code 0} to always split them.
+     * <br>Replies that would need more than {@link #MAX_MESSAGES} messages are truncated.
+     */
+    public static int ATTACHMENT_THRESHOLD = 0;
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommandEvent.class);
+    private static final MessageChunker CHUNKER = new MessageChunker();
+    private static final String ATTACHMENT_NAME = "message.txt";
     
     private final MessageReceivedEvent event;
     private final String prefix;
@@ -210,6 +229,28 @@ public class CommandEvent
         sendMessage(event.getChannel(), message, success, failure);
     }
 
+    /**
+     * Replies with a String message, and returns a {@link java.util.concurrent.CompletableFuture CompletableFuture}
+     * completed with every {@link net.dv8tion.jda.api.entities.Message Message} sent.
+     *
+     * <p>If the message exceeds the 2000 character cap, it is split using {@link #splitMessage(String)} and
+     * each part is only sent once the previous one has been, so the reply always appears in order.
+     * <br>If sending one of the parts fails, the remaining parts are not sent and the returned future
+     * completes exceptionally with that failure.
+     *
+     * <p>Messages longer than {@link #ATTACHMENT_THRESHOLD} characters are sent as a text attachment instead,
+     * if the threshold is set.
+     *
+     * @param  message
+     *         A String message to reply with
+     *
+     * @return A CompletableFuture completed with the messages sent, in order
+     */
+    public CompletableFuture<List<Message>> submitReply(String message)
+    {
+        return submitMessage(event.getChannel(), message);
+    }
+
     /**
      * Replies with a {@link net.dv8tion.jda.api.entities.MessageEmbed MessageEmbed}.
      * 
@@ -927,60 +968,66 @@ public class CommandEvent
     
     private void sendMessage(MessageChannel chan, String message)
     {
-        ArrayList<String> messages = splitMessage(message);
-        for(int i=0; i<MAX_MESSAGES && i<messages.size(); i++)
-        {
-            chan.sendMessage(messages.get(i)).queue(m -> {
-                if(event.isFromType(ChannelType.TEXT))
-                    linkId(m);
-            });
-        }
+        submitMessage(chan, message).whenComplete((messages, t) -> {
+            if(t != null)
+                RestAction.getDefaultFailure().accept(t);
+        });
     }
-    
+
     private void sendMessage(MessageChannel chan, String message, Consumer<Message> success)
     {
-        ArrayList<String> messages = splitMessage(message);
-        for(int i=0; i<MAX_MESSAGES && i<messages.size(); i++)
-        {
-            if(i+1==MAX_MESSAGES || i+1==messages.size())
-            {
-                chan.sendMessage(messages.get(i)).queue(m -> {
-                    if(event.isFromType(ChannelType.TEXT))
-                        linkId(m);
-                    success.accept(m);
-                });
-            }
-            else
-            {
-                chan.sendMessage(messages.get(i)).queue(m -> {
-                    if(event.isFromType(ChannelType.TEXT))
-                        linkId(m);
-                });
-            }
-        }
+        sendMessage(chan, message, success, RestAction.getDefaultFailure());
     }
 
     private void sendMessage(MessageChannel chan, String message, Consumer<Message> success, Consumer<Throwable> failure)
     {
-        ArrayList<String> messages = splitMessage(message);
-        for(int i = 0; i < MAX_MESSAGES && i < messages.size(); i++)
+        submitMessage(chan, message).whenComplete((messages, t) -> {
+            if(t != null)
+                failure.accept(t);
+            else if(!messages.isEmpty())
+                success.accept(messages.get(messages.size() - 1));
+        });
+    }
+
+    private CompletableFuture<List<Message>> submitMessage(MessageChannel chan, String message)
+    {
+        if(message != null && ATTACHMENT_THRESHOLD > 0 && message.length() > ATTACHMENT_THRESHOLD)
         {
-            if(i + 1 == MAX_MESSAGES || i + 1 == messages.size())
-            {
-                chan.sendMessage(messages.get(i)).queue(m -> {
-                    if(event.isFromType(ChannelType.TEXT))
-                        linkId(m);
-                    success.accept(m);
-                }, failure);
-            }
-            else
-            {
-                chan.sendMessage(messages.get(i)).queue(m -> {
-                    if(event.isFromType(ChannelType.TEXT))
-                        linkId(m);
-                });
-            }
+            List<Message> sent = new ArrayList<>(1);
+            byte[] data = message.getBytes(StandardCharsets.UTF_8);
+            return link(chan.sendFile(data, ATTACHMENT_NAME).submit().thenAccept(sent::add), sent);
         }
+
+        List<String> parts = new ArrayList<>(Math.max(0, MAX_MESSAGES));
+        int[] total = new int[1];
+        CHUNKER.split(message, chunk -> {
+            if(total[0]++ < MAX_MESSAGES)
+                parts.add(chunk.toString());
+        });
+        if(total[0] > parts.size())
+            LOG.warn("Reply to message {} was truncated to {} of {} messages", event.getMessageId(), parts.size(), total[0]);
+
+        // Each part is only sent once the previous one has been
+        List<Message> sent = new ArrayList<>(parts.size());
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for(String part : parts)
+            chain = chain.thenCompose(unused -> chan.sendMessage(part).submit()).thenAccept(sent::add);
+        return link(chain, sent);
+    }
+
+    private CompletableFuture<List<Message>> link(CompletableFuture<Void> future, List<Message> sent)
+    {
+        CompletableFuture<List<Message>> linked = new CompletableFuture<>();
+        future.whenComplete((unused, t) -> {
+            // Messages sent before a failure are linked as well
+            if(event.isFromType(ChannelType.TEXT) && !sent.isEmpty())
+                ((CommandClientImpl)client).linkIds(event.getMessageIdLong(), sent);
+            if(t != null)
+                linked.completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            else
+                linked.complete(Collections.unmodifiableList(sent));
+        });
+        return linked;
     }
 
     /**
@@ -988,6 +1035,9 @@ public class CommandEvent
      * <br>Also nullifies usages of {@code @here} and {@code @everyone} so that they do not mention anyone.
      * <br>Useful for splitting long messages so that they can be sent in more than one 
      * {@link net.dv8tion.jda.api.entities.Message Message} at maximum potential length.
+     *
+     * <p>To split text without holding all of it in memory, use a
+     * {@link com.jagrosh.jdautilities.commons.utils.MessageChunker MessageChunker} directly.
      * 
      * @param  stringtoSend
      *         The String to split and send
@@ -998,26 +1048,8 @@ public class CommandEvent
      */
     public static ArrayList<String> splitMessage(String stringtoSend)
     {
-        ArrayList<String> msgs =  new ArrayList<>();
-        if(stringtoSend!=null)
-        {
-            stringtoSend = stringtoSend.replace("@everyone", "@\u0435veryone").replace("@here", "@h\u0435re").trim();
-            while(stringtoSend.length()>2000)
-            {
-                int leeway = 2000 - (stringtoSend.length()%2000);
-                int index = stringtoSend.lastIndexOf("\n", 2000);
-                if(index<leeway)
-                    index = stringtoSend.lastIndexOf(" ", 2000);
-                if(index<leeway)
-                    index=2000;
-                String temp = stringtoSend.substring(0,index).trim();
-                if(!temp.equals(""))
-                    msgs.add(temp);
-                stringtoSend = stringtoSend.substring(index).trim();
-            }
-            if(!stringtoSend.equals(""))
-                msgs.add(stringtoSend);
-        }
+        ArrayList<String> msgs = new ArrayList<>();
+        CHUNKER.split(stringtoSend, chunk -> msgs.add(chunk.toString()));
         return msgs;
     }
 
@@ -1055,14 +1087,7 @@ public class CommandEvent
      */
     public boolean isOwner()
     {
-    	if(event.getAuthor().getId().equals(this.getClient().getOwnerId()))
-    	    return true;
-        if(this.getClient().getCoOwnerIds()==null)
-            return false;
-        for(String id : this.getClient().getCoOwnerIds())
-            if(id.equals(event.getAuthor().getId()))
-                return true;
-        return false;
+        return client.isOwner(event.getAuthor().getIdLong());
     }
     
     
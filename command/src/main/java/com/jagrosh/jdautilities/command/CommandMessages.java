@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import com.jagrosh.jdautilities.command.impl.ReflectiveCommandMessages;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * Provides the texts of the responses a {@link com.jagrosh.jdautilities.command.Command Command} sends
+ * by itself, such as when it is on cooldown or when permissions are missing.
+ *
+ * <p>Messages are looked up by key, for example {@code error.permissions.cooldownError}, so that bots
+ * can translate them.
+ * <br>Implementations can be set using
+ * {@link com.jagrosh.jdautilities.command.CommandClientBuilder#setCommandMessages(CommandMessages)
+ * CommandClientBuilder#setCommandMessages(CommandMessages)}. By default they are looked up reflectively from
+ * the bot's {@code MessageHelper}, which does not work in native images unless it is registered for reflection.
+ */
+public interface CommandMessages
+{
+    /**
+     * Gets the default CommandMessages, which are looked up reflectively from the bot's {@code MessageHelper}
+     * and fall back to the keys themselves if it is not present.
+     *
+     * @return The default CommandMessages
+     */
+    static CommandMessages getDefault()
+    {
+        return ReflectiveCommandMessages.INSTANCE;
+    }
+
+    /**
+     * Gets the message for a key, in the language used for the provided
+     * {@link com.jagrosh.jdautilities.command.CommandEvent CommandEvent}.
+     *
+     * @param  key
+     *         The key of the message
+     * @param  event
+     *         The CommandEvent the message is a response to
+     *
+     * @return The message, which may contain format specifiers
+     */
+    String translate(String key, CommandEvent event);
+
+    /**
+     * Gets how a {@link net.dv8tion.jda.api.entities.User User} is shown in the footer of error embeds.
+     * <br>By default this is their {@link net.dv8tion.jda.api.entities.User#getAsTag() tag}.
+     *
+     * @param  user
+     *         The User
+     *
+     * @return The text representing the User
+     */
+    default String getTag(User user)
+    {
+        return user.getAsTag();
+    }
+
+    /**
+     * Gets the emoji put in front of the titles of error embeds.
+     * <br>By default this is a cross mark.
+     *
+     * @return The emoji
+     */
+    default String getErrorEmoji()
+    {
+        return "\u274C";
+    }
+}
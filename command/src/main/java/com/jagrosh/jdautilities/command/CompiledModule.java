@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import java.util.List;
+
+/**
+ * The {@link com.jagrosh.jdautilities.command.Command Command}s of a module annotated with
+ * {@link com.jagrosh.jdautilities.command.annotation.JDACommand.Module @JDACommand.Module},
+ * compiled ahead of time.
+ *
+ * <p>Implementations of this are generated by the {@code JDACommandProcessor} of the {@code command-processor}
+ * artifact while compiling a module, along with an index of them used by
+ * {@link java.util.ServiceLoader ServiceLoader}.
+ * <br>The default {@link com.jagrosh.jdautilities.command.AnnotatedModuleCompiler AnnotatedModuleCompiler}
+ * looks modules up in this index before falling back to reflection, so modules compiled with the processor
+ * are loaded without any reflection.
+ *
+ * @param  <T>
+ *         The type of module
+ */
+public interface CompiledModule<T>
+{
+    /**
+     * Gets the type of module whose Commands this compiles.
+     *
+     * @return The type of module
+     */
+    Class<T> getModuleType();
+
+    /**
+     * Creates the Commands of the provided module, the same as an
+     * {@link com.jagrosh.jdautilities.command.AnnotatedModuleCompiler AnnotatedModuleCompiler} would.
+     *
+     * @param  module
+     *         The module, an instance of {@link #getModuleType()}.
+     *
+     * @return A {@link java.util.List} of Commands executing the methods of the module
+     */
+    List<Command> compile(T module);
+}
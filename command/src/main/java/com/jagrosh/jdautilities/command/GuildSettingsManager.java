@@ -15,9 +15,13 @@
  */
 package com.jagrosh.jdautilities.command;
 
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * An implementable frame for classes that handle Guild-Specific
@@ -59,6 +63,26 @@ public interface GuildSettingsManager<T>
     @Nullable
     T getSettings(Guild guild);
 
+    /**
+     * Gets settings for several {@link net.dv8tion.jda.api.entities.Guild Guild}s at once,
+     * mapped by guild ID. Guilds without settings may be absent or mapped to {@code null}.
+     *
+     * <p>By default this calls {@link #getSettings(Guild)} for each guild. Implementations backed by
+     * a database should override this to load all of them with a single query.
+     *
+     * @param  guilds
+     *         The guilds to get settings for.
+     *
+     * @return The settings objects of the guilds, mapped by guild ID.
+     */
+    default Map<Long, T> getAllSettings(Collection<Guild> guilds)
+    {
+        Map<Long, T> settings = new HashMap<>(guilds.size() * 4 / 3 + 1);
+        for(Guild guild : guilds)
+            settings.put(guild.getIdLong(), getSettings(guild));
+        return settings;
+    }
+
     /**
      * Called when JDA has fired a {@link net.dv8tion.jda.api.events.ReadyEvent ReadyEvent}.
      *
@@ -66,6 +90,21 @@ public interface GuildSettingsManager<T>
      */
     default void init() {}
 
+    /**
+     * Called when JDA has fired a {@link net.dv8tion.jda.api.events.ReadyEvent ReadyEvent}, with the
+     * {@link net.dv8tion.jda.api.JDA JDA} instance (or shard) that fired it.
+     *
+     * <p>By default this calls {@link #init()}. Developers may implement this method instead to access the
+     * guilds of the shard when starting their bot, for example to preload their settings.
+     *
+     * @param  jda
+     *         The JDA instance that is ready.
+     */
+    default void init(JDA jda)
+    {
+        init();
+    }
+
     /**
      * Called when JDA has fired a {@link net.dv8tion.jda.api.events.ShutdownEvent ShutdownEvent}.
      *
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A flyweight view over the settings of a single guild in a
+ * {@link com.jagrosh.jdautilities.command.MappedGuildSettingsManager MappedGuildSettingsManager}.
+ *
+ * <p>Instances are reused by each thread calling {@link MappedGuildSettingsManager#getSettings(long)}, and are
+ * moved to another guild on the next call made from the same thread. They must therefore only be used for the
+ * duration of the current event, and never be stored or shared with other threads.
+ *
+ * <p>Every getter reads directly from the mapped file, and none of them allocates.
+ */
+public final class MappedGuildSettings implements GuildSettingsProvider
+{
+    private final MappedGuildSettingsManager manager;
+    private final PrefixList prefixes = new PrefixList();
+    private ByteBuffer buffer;
+    private int offset;
+
+    MappedGuildSettings(MappedGuildSettingsManager manager)
+    {
+        this.manager = manager;
+    }
+
+    MappedGuildSettings moveTo(ByteBuffer buffer, int offset)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Gets the ID of the guild these settings belong to.
+     *
+     * @return The ID of the guild
+     */
+    public long getGuildId()
+    {
+        return buffer.getLong(offset + MappedGuildSettingsManager.GUILD_ID);
+    }
+
+    /**
+     * Gets all 64 flags of the guild as a bit field.
+     *
+     * @return The flags of the guild
+     */
+    public long getFlags()
+    {
+        return buffer.getLong(offset + MappedGuildSettingsManager.FLAGS);
+    }
+
+    /**
+     * Checks a single flag of the guild.
+     *
+     * @param  flag
+     *         The index of the flag, from {@code 0} to {@code 63}
+     *
+     * @return {@code true} if the flag is set
+     */
+    public boolean hasFlag(int flag)
+    {
+        return (getFlags() & (1L << flag)) != 0;
+    }
+
+    /**
+     * Gets a snowflake field of the guild, such as the ID of a moderator role or of a log channel.
+     * <br>The meaning of each field is up to the bot.
+     *
+     * @param  field
+     *         The index of the field, from {@code 0} to {@link MappedGuildSettingsManager#SNOWFLAKE_FIELDS} (exclusive)
+     *
+     * @return The value of the field, or {@code 0} if it is not set
+     */
+    public long getSnowflake(int field)
+    {
+        return buffer.getLong(offset + MappedGuildSettingsManager.snowflakeOffset(field));
+    }
+
+    /**
+     * Gets the prefixes of the guild.
+     *
+     * <p>The returned list is a reusable view: like these settings, it must not be kept past the current event.
+     * It implements {@link java.util.RandomAccess RandomAccess}, so it can be iterated by index without
+     * allocating an iterator.
+     *
+     * @return The prefixes of the guild, which may be empty
+     */
+    @Override
+    public List<String> getPrefixes()
+    {
+        return prefixes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedGuildSettings(" + getGuildId() + ")";
+    }
+
+    private final class PrefixList extends AbstractList<String> implements RandomAccess
+    {
+        @Override
+        public String get(int index)
+        {
+            if(index < 0 || index >= size())
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            return manager.getPrefix(buffer.getInt(offset + MappedGuildSettingsManager.prefixOffset(index)));
+        }
+
+        @Override
+        public int size()
+        {
+            int size = 0;
+            while(size < MappedGuildSettingsManager.MAX_PREFIXES
+                    && buffer.getInt(offset + MappedGuildSettingsManager.prefixOffset(size)) != 0)
+                size++;
+            return size;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import net.dv8tion.jda.api.entities.Guild;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A {@link com.jagrosh.jdautilities.command.GuildSettingsManager GuildSettingsManager} that stores fixed-layout
+ * guild settings off-heap, in a memory-mapped file.
+ *
+ * <p>This is intended for bots in a very large number of guilds, where keeping a settings object per guild
+ * on the heap would use gigabytes of memory. Each guild instead takes a fixed 64 byte record in the file,
+ * holding:
+ * <ul>
+ *     <li>64 boolean flags, see {@link MappedGuildSettings#hasFlag(int)}</li>
+ *     <li>{@value #SNOWFLAKE_FIELDS} snowflake fields, see {@link MappedGuildSettings#getSnowflake(int)}</li>
+ *     <li>Up to {@value #MAX_PREFIXES} prefixes, see {@link MappedGuildSettings#getPrefixes()}</li>
+ * </ul>
+ *
+ * <p>Records are found by guild ID in an open-addressing hash table, and read through a flyweight
+ * {@link MappedGuildSettings} reused by each thread, so {@link #getSettings(Guild)} does not allocate.
+ * Since the settings implement {@link GuildSettingsProvider}, guild prefixes are picked up by the
+ * {@link CommandClient}'s prefix matcher as usual.
+ *
+ * <p>Prefixes are interned in a small table stored next to the file (with a {@code .prefixes} suffix), and
+ * records only hold their indices, so the heap usage only grows with the number of <i>distinct</i> prefixes.
+ *
+ * <p>Opening the file only maps it: nothing is read back into memory, so the settings are available right
+ * away after a restart. Changes are written to the mapping immediately and flushed to disk by the
+ * operating system; use {@link #force()} to flush them explicitly.
+ *
+ * <p>Writes are synchronized with each other, but not with reads: a thread reading a guild being updated
+ * concurrently may see some of its fields before the update and some after.
+ */
+public class MappedGuildSettingsManager implements GuildSettingsManager<MappedGuildSettings>
+{
+    /** The number of snowflake fields stored for each guild. */
+    public static final int SNOWFLAKE_FIELDS = 4;
+    /** The maximum number of prefixes stored for each guild. */
+    public static final int MAX_PREFIXES = 4;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedGuildSettingsManager.class);
+
+    // File header
+    private static final int MAGIC = 0x4A475354; // "JGST"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int H_MAGIC = 0, H_VERSION = 4, H_CAPACITY = 8, H_SIZE = 12, H_TOMBSTONES = 16;
+
+    // Record layout
+    static final int RECORD_SIZE = 64;
+    static final int GUILD_ID = 0;
+    static final int FLAGS = 8;
+    static final int SNOWFLAKES = 16;
+    static final int PREFIXES = SNOWFLAKES + SNOWFLAKE_FIELDS * Long.BYTES;
+
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final Path file;
+    private final Path prefixFile;
+    private final ThreadLocal<MappedGuildSettings> flyweights;
+    private final Map<String, Integer> prefixIds = new HashMap<>();
+    private volatile String[] prefixTable = new String[0];
+    private volatile MappedByteBuffer buffer;
+    private volatile int capacity;
+    private DataOutputStream prefixOut;
+
+    /**
+     * Opens or creates a MappedGuildSettingsManager.
+     *
+     * @param  file
+     *         The file to store settings in
+     * @param  expectedGuilds
+     *         The number of guilds expected to have settings, used to size a new file.
+     *         <br>The file grows automatically past this number.
+     *
+     * @throws IOException
+     *         If the file could not be opened, or is not a settings file
+     */
+    public MappedGuildSettingsManager(Path file, int expectedGuilds) throws IOException
+    {
+        this.file = file;
+        this.prefixFile = file.resolveSibling(file.getFileName() + ".prefixes");
+        this.flyweights = ThreadLocal.withInitial(() -> new MappedGuildSettings(this));
+
+        if(Files.exists(file))
+        {
+            this.buffer = map(file, Files.size(file));
+            if(buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION)
+                throw new IOException(file + " is not a guild settings file");
+            this.capacity = buffer.getInt(H_CAPACITY);
+        }
+        else
+        {
+            this.capacity = tableSize(expectedGuilds);
+            this.buffer = create(file, capacity);
+        }
+        loadPrefixes();
+    }
+
+    @Nullable
+    @Override
+    public MappedGuildSettings getSettings(Guild guild)
+    {
+        return getSettings(guild.getIdLong());
+    }
+
+    /**
+     * Gets the settings of a guild by ID.
+     *
+     * <p>The returned settings are a flyweight reused by the calling thread, and are only valid
+     * until its next call to this method.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     *
+     * @return The settings of the guild, or {@code null} if it has no settings.
+     */
+    @Nullable
+    public MappedGuildSettings getSettings(long guildId)
+    {
+        MappedByteBuffer buffer = this.buffer;
+        int slot = find(buffer, buffer.getInt(H_CAPACITY), guildId);
+        return slot < 0 ? null : flyweights.get().moveTo(buffer, recordOffset(slot));
+    }
+
+    /**
+     * Gets the number of guilds with settings.
+     *
+     * @return The number of guilds with settings
+     */
+    public int size()
+    {
+        return buffer.getInt(H_SIZE);
+    }
+
+    /**
+     * Sets all flags of a guild, creating its settings if it has none.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     * @param  flags
+     *         The flags, as a bit field
+     */
+    public synchronized void setFlags(long guildId, long flags)
+    {
+        // Insert first, as it may replace the buffer
+        int offset = insert(guildId);
+        buffer.putLong(offset + FLAGS, flags);
+    }
+
+    /**
+     * Sets or clears a single flag of a guild, creating its settings if it has none.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     * @param  flag
+     *         The index of the flag, from {@code 0} to {@code 63}
+     * @param  value
+     *         {@code true} to set the flag, {@code false} to clear it
+     */
+    public synchronized void setFlag(long guildId, int flag, boolean value)
+    {
+        int offset = insert(guildId) + FLAGS;
+        long flags = buffer.getLong(offset);
+        buffer.putLong(offset, value ? flags | (1L << flag) : flags & ~(1L << flag));
+    }
+
+    /**
+     * Sets a snowflake field of a guild, creating its settings if it has none.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     * @param  field
+     *         The index of the field, from {@code 0} to {@value #SNOWFLAKE_FIELDS} (exclusive)
+     * @param  value
+     *         The value of the field, or {@code 0} to clear it
+     */
+    public synchronized void setSnowflake(long guildId, int field, long value)
+    {
+        int offset = snowflakeOffset(field);
+        offset += insert(guildId);
+        buffer.putLong(offset, value);
+    }
+
+    /**
+     * Sets the prefixes of a guild, creating its settings if it has none.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     * @param  prefixes
+     *         Up to {@value #MAX_PREFIXES} prefixes, or an empty collection to clear them
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If more than {@value #MAX_PREFIXES} prefixes are provided, or if one of them is empty
+     * @throws java.io.UncheckedIOException
+     *         If a new prefix could not be written to the prefix table
+     */
+    public synchronized void setPrefixes(long guildId, Collection<String> prefixes)
+    {
+        if(prefixes.size() > MAX_PREFIXES)
+            throw new IllegalArgumentException("A guild cannot have more than " + MAX_PREFIXES + " prefixes!");
+        int[] ids = new int[MAX_PREFIXES];
+        int i = 0;
+        for(String prefix : prefixes)
+        {
+            if(prefix == null || prefix.isEmpty())
+                throw new IllegalArgumentException("Prefixes cannot be null or empty!");
+            ids[i++] = internPrefix(prefix);
+        }
+        int offset = insert(guildId);
+        for(i = 0; i < MAX_PREFIXES; i++)
+            buffer.putInt(offset + prefixOffset(i), ids[i]);
+    }
+
+    /**
+     * Removes all settings of a guild.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     */
+    public synchronized void removeSettings(long guildId)
+    {
+        int slot = find(buffer, capacity, guildId);
+        if(slot < 0)
+            return;
+        int offset = recordOffset(slot);
+        for(int i = Long.BYTES; i < RECORD_SIZE; i += Long.BYTES)
+            buffer.putLong(offset + i, 0L);
+        buffer.putLong(offset + GUILD_ID, TOMBSTONE);
+        buffer.putInt(H_SIZE, buffer.getInt(H_SIZE) - 1);
+        buffer.putInt(H_TOMBSTONES, buffer.getInt(H_TOMBSTONES) + 1);
+    }
+
+    /**
+     * Forces all changes to be written to disk.
+     *
+     * @throws java.io.UncheckedIOException
+     *         If the prefix table could not be flushed
+     */
+    public synchronized void force()
+    {
+        buffer.force();
+        try
+        {
+            if(prefixOut != null)
+                prefixOut.flush();
+        }
+        catch(IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void shutdown()
+    {
+        try
+        {
+            force();
+            if(prefixOut != null)
+                prefixOut.close();
+            prefixOut = null;
+        }
+        catch(IOException | UncheckedIOException ex)
+        {
+            LOG.error("Failed to flush guild settings to {}", file, ex);
+        }
+    }
+
+    String getPrefix(int id)
+    {
+        return prefixTable[id - 1];
+    }
+
+    static int snowflakeOffset(int field)
+    {
+        if(field < 0 || field >= SNOWFLAKE_FIELDS)
+            throw new IndexOutOfBoundsException("Snowflake field: " + field);
+        return SNOWFLAKES + field * Long.BYTES;
+    }
+
+    static int prefixOffset(int index)
+    {
+        return PREFIXES + index * Integer.BYTES;
+    }
+
+    // Returns the offset of the record of the guild, creating it if needed
+    private int insert(long guildId)
+    {
+        if(guildId == EMPTY || guildId == TOMBSTONE)
+            throw new IllegalArgumentException("Invalid guild ID: " + guildId);
+        int slot = find(buffer, capacity, guildId);
+        if(slot >= 0)
+            return recordOffset(slot);
+
+        int size = buffer.getInt(H_SIZE);
+        int tombstones = buffer.getInt(H_TOMBSTONES);
+        if((size + tombstones + 1) * 4L > capacity * 3L)
+        {
+            // Only grow if the table is actually full, otherwise rebuilding it drops the tombstones
+            rebuild((size + 1) * 2L > capacity ? tableSize(capacity) : capacity);
+            tombstones = 0;
+        }
+
+        int mask = capacity - 1;
+        for(int i = mix(guildId) & mask; ; i = (i + 1) & mask)
+        {
+            int offset = recordOffset(i);
+            long id = buffer.getLong(offset + GUILD_ID);
+            if(id == EMPTY || id == TOMBSTONE)
+            {
+                if(id == TOMBSTONE)
+                    buffer.putInt(H_TOMBSTONES, tombstones - 1);
+                buffer.putLong(offset + GUILD_ID, guildId);
+                buffer.putInt(H_SIZE, size + 1);
+                return offset;
+            }
+        }
+    }
+
+    private static int find(ByteBuffer buffer, int capacity, long guildId)
+    {
+        int mask = capacity - 1;
+        for(int i = mix(guildId) & mask, probes = 0; probes < capacity; i = (i + 1) & mask, probes++)
+        {
+            long id = buffer.getLong(recordOffset(i) + GUILD_ID);
+            if(id == guildId)
+                return i;
+            if(id == EMPTY)
+                return -1;
+        }
+        return -1;
+    }
+
+    // Copies all records into a new table, then swaps it in place of the current file
+    private void rebuild(int newCapacity)
+    {
+        try
+        {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            MappedByteBuffer rebuilt = create(temp, newCapacity);
+            int size = 0;
+            int mask = newCapacity - 1;
+            for(int slot = 0; slot < capacity; slot++)
+            {
+                int offset = recordOffset(slot);
+                long id = buffer.getLong(offset + GUILD_ID);
+                if(id == EMPTY || id == TOMBSTONE)
+                    continue;
+                int i = mix(id) & mask;
+                while(rebuilt.getLong(recordOffset(i) + GUILD_ID) != EMPTY)
+                    i = (i + 1) & mask;
+                for(int b = 0; b < RECORD_SIZE; b += Long.BYTES)
+                    rebuilt.putLong(recordOffset(i) + b, buffer.getLong(offset + b));
+                size++;
+            }
+            rebuilt.putInt(H_SIZE, size);
+            rebuilt.force();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Readers still holding the old mapping keep reading it safely until their next lookup
+            this.capacity = newCapacity;
+            this.buffer = rebuilt;
+            LOG.debug("Rebuilt guild settings table with {} slots for {} guilds", newCapacity, size);
+        }
+        catch(IOException ex)
+        {
+            throw new UncheckedIOException("Failed to grow guild settings file " + file, ex);
+        }
+    }
+
+    private int internPrefix(String prefix)
+    {
+        Integer id = prefixIds.get(prefix);
+        if(id != null)
+            return id;
+        try
+        {
+            if(prefixOut == null)
+                prefixOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(prefixFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            prefixOut.writeUTF(prefix);
+            prefixOut.flush();
+        }
+        catch(IOException ex)
+        {
+            throw new UncheckedIOException("Failed to write prefix table " + prefixFile, ex);
+        }
+        String[] table = Arrays.copyOf(prefixTable, prefixTable.length + 1);
+        table[table.length - 1] = prefix;
+        prefixTable = table;
+        prefixIds.put(prefix, table.length);
+        return table.length;
+    }
+
+    private void loadPrefixes() throws IOException
+    {
+        if(!Files.exists(prefixFile))
+            return;
+        List<String> prefixes = new ArrayList<>();
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(prefixFile))))
+        {
+            while(true)
+                prefixes.add(in.readUTF());
+        }
+        catch(EOFException ignored) {}
+        prefixTable = prefixes.toArray(new String[0]);
+        for(int i = 0; i < prefixTable.length; i++)
+            prefixIds.put(prefixTable[i], i + 1);
+    }
+
+    private static MappedByteBuffer create(Path file, int capacity) throws IOException
+    {
+        MappedByteBuffer buffer = map(file, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        buffer.putInt(H_MAGIC, MAGIC);
+        buffer.putInt(H_VERSION, VERSION);
+        buffer.putInt(H_CAPACITY, capacity);
+        return buffer;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int recordOffset(int slot)
+    {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    // Snowflakes share their low bits in a burst, so spread the timestamp bits over the whole hash
+    private static int mix(long id)
+    {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // The smallest power of two keeping the table at most 75% full
+    private static int tableSize(long guilds)
+    {
+        long needed = Math.max(16, guilds * 4 / 3 + 1);
+        long size = Long.highestOneBit(needed - 1) << 1;
+        if(size > MAX_CAPACITY)
+            throw new IllegalArgumentException("Too many guilds for a single settings file: " + guilds);
+        return (int) size;
+    }
+}
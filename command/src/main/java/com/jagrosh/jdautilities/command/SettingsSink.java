@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A durable destination for guild settings, used by a
+ * {@link com.jagrosh.jdautilities.command.WriteBehindSettingsManager WriteBehindSettingsManager}.
+ *
+ * <p>Writes are always made from a single thread, in batches that contain only the latest
+ * settings of each guild changed since the previous batch.
+ *
+ * <p>The standard implementation is {@link com.jagrosh.jdautilities.command.impl.JournalSettingsSink JournalSettingsSink},
+ * which appends batches to a journal file and periodically compacts it into a snapshot.
+ *
+ * @param  <T>
+ *         The type of settings
+ */
+public interface SettingsSink<T>
+{
+    /**
+     * Loads all the settings previously written to this sink.
+     *
+     * <p>This is called once, before any call to {@link #write(Map)}.
+     *
+     * @return The settings of every guild, mapped by guild ID.
+     *
+     * @throws IOException
+     *         If the settings could not be read
+     */
+    Map<Long, T> load() throws IOException;
+
+    /**
+     * Writes a batch of changed settings.
+     * <br>A guild mapped to {@code null} had its settings removed.
+     *
+     * <p>When this returns normally the whole batch must be durable. If this throws, the batch
+     * is retried with the next flush.
+     *
+     * @param  changes
+     *         The changed settings, mapped by guild ID.
+     *
+     * @throws IOException
+     *         If the batch could not be written
+     */
+    void write(Map<Long, T> changes) throws IOException;
+
+    /**
+     * Closes this sink. Called after the final flush when the manager shuts down.
+     *
+     * @throws IOException
+     *         If the sink could not be closed cleanly
+     */
+    default void close() throws IOException {}
+}
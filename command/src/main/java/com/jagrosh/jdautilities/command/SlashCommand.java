@@ -20,7 +20,10 @@ import net.dv8tion.jda.api.entities.ChannelType;
 import net.dv8tion.jda.api.entities.GuildVoiceState;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.VoiceChannel;
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
@@ -29,6 +32,7 @@ import net.dv8tion.jda.api.interactions.commands.privileges.CommandPrivilege;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -162,6 +166,20 @@ public abstract class SlashCommand extends Command
      */
     protected List<OptionData> options = new ArrayList<>();
 
+    /**
+     * The {@link AutoCompleteProvider AutoCompleteProviders} of the options of this command, by option name.
+     *
+     * Options with a provider are marked as autocompleted when the command data is built, and suggestions
+     * are requested from their provider while a user types them. Only options of type string, integer
+     * and number can be autocompleted, and they cannot have choices.
+     *
+     * For example, to suggest the names of colors for the "color" option, you can do this:<br>
+     * <pre><code>
+     *     this.options = Collections.singletonList(new OptionData(OptionType.STRING, "color", "The color").setRequired(true));
+     *     this.autoComplete.put("color", PrefixAutoCompleteProvider.ofStrings(colorNames));</code></pre>
+     */
+    protected Map<String, AutoCompleteProvider> autoComplete = new HashMap<>();
+
     /**
      * The command client to be retrieved if needed.
      */
@@ -372,14 +390,7 @@ public abstract class SlashCommand extends Command
      */
     public boolean isOwner(SlashCommandEvent event, CommandClient client)
     {
-        if(event.getUser().getId().equals(client.getOwnerId()))
-            return true;
-        if(client.getCoOwnerIds()==null)
-            return false;
-        for(String id : client.getCoOwnerIds())
-            if(id.equals(event.getUser().getId()))
-                return true;
-        return false;
+        return client.isOwner(event.getUser().getIdLong());
     }
 
     /**
@@ -471,6 +482,50 @@ public abstract class SlashCommand extends Command
         return subcommandGroup;
     }
 
+    /**
+     * Answers a {@link CommandAutoCompleteEvent CommandAutoCompleteEvent} for this command, with the suggestions
+     * of the {@link #autoComplete AutoCompleteProvider} of the focused option.
+     * <br>Requests for a subcommand are passed to the matching child, and no suggestions are sent for options
+     * without a provider.
+     *
+     * <p>This can be overridden to suggest choices another way. Discord only waits three seconds for suggestions.
+     *
+     * @param  event
+     *         The CommandAutoCompleteEvent to answer
+     */
+    public void onAutoComplete(CommandAutoCompleteEvent event)
+    {
+        // child check
+        if(event.getSubcommandName() != null)
+        {
+            for(SlashCommand cmd: getChildren())
+            {
+                if(cmd.isCommandFor(event.getSubcommandName()))
+                {
+                    cmd.onAutoComplete(event);
+                    return;
+                }
+            }
+        }
+
+        OptionMapping focused = event.getFocusedOption();
+        AutoCompleteProvider provider = focused != null ? autoComplete.get(focused.getName()) : null;
+        List<Choice> choices = provider != null ? provider.complete(event, focused.getAsString()) : Collections.emptyList();
+        if(choices.size() > OptionData.MAX_CHOICES)
+            choices = choices.subList(0, OptionData.MAX_CHOICES);
+        event.replyChoices(choices).queue();
+    }
+
+    /**
+     * Gets the {@link #autoComplete AutoCompleteProviders} of the options of this command, by option name.
+     *
+     * @return The AutoCompleteProviders of the options
+     */
+    public Map<String, AutoCompleteProvider> getAutoComplete()
+    {
+        return autoComplete;
+    }
+
     /**
      * Gets the options associated with this command.
      *
@@ -495,6 +550,7 @@ public abstract class SlashCommand extends Command
         CommandData data = new CommandData(getName(), getHelp());
         if (!getOptions().isEmpty())
         {
+            markAutoComplete(this);
             data.addOptions(getOptions());
         }
         // Check for children
@@ -509,6 +565,7 @@ public abstract class SlashCommand extends Command
                 // Add options
                 if (!child.getOptions().isEmpty())
                 {
+                    markAutoComplete(child);
                     subcommandData.addOptions(child.getOptions());
                 }
 
@@ -592,6 +649,15 @@ public abstract class SlashCommand extends Command
         return children;
     }
 
+    private static void markAutoComplete(SlashCommand command)
+    {
+        for (OptionData option : command.getOptions())
+        {
+            if (command.getAutoComplete().containsKey(option.getName()))
+                option.setAutoComplete(true);
+        }
+    }
+
     private void terminate(SlashCommandEvent event, String message, CommandClient client)
     {
         if(message!=null)
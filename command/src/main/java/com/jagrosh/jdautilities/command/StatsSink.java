@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import net.dv8tion.jda.api.JDA;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A destination for the guild statistics of a bot, such as a bot listing website.
+ *
+ * <p>Sinks are registered using {@link CommandClientBuilder#addStatsSink(StatsSink)} and are
+ * driven by the {@link com.jagrosh.jdautilities.command.impl.StatsPublisher StatsPublisher} of the
+ * {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl CommandClientImpl}, which coalesces
+ * guild joins, leaves and ready events and only publishes on a fixed schedule.
+ *
+ * <p>The standard implementations are
+ * {@link com.jagrosh.jdautilities.command.impl.CarbonitexStatsSink CarbonitexStatsSink} and
+ * {@link com.jagrosh.jdautilities.command.impl.DiscordBotsStatsSink DiscordBotsStatsSink}, which are
+ * registered automatically when using {@link CommandClientBuilder#setCarbonitexKey(String)} and
+ * {@link CommandClientBuilder#setDiscordBotsKey(String)}.
+ */
+public interface StatsSink
+{
+    /**
+     * Publishes the guild count of a single shard.
+     *
+     * <p>This is called at most once per shard for each scheduled publication, regardless of how many
+     * guild events have happened in the meantime.
+     * <br>Implementations should not block, and should instead complete the returned future once the
+     * service has responded.
+     *
+     * @param  jda
+     *         The shard being published
+     * @param  guildCount
+     *         The number of guilds cached by the shard
+     *
+     * @return A future completed with the total guild count across all shards as reported by the service,
+     *         or completed with {@code null} if the service does not report it.
+     */
+    CompletableFuture<Integer> publish(JDA jda, long guildCount);
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command;
+
+import net.dv8tion.jda.api.entities.Guild;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link com.jagrosh.jdautilities.command.GuildSettingsManager GuildSettingsManager} that keeps all
+ * guild settings in memory, and persists changes to them in the background through a {@link SettingsSink}.
+ *
+ * <p>{@link #setSettings(long, Object)} only updates memory and marks the guild as dirty, so commands
+ * changing settings never wait on the disk. Dirty guilds are written to the sink as a single batch
+ * every flush interval, or as soon as the number of dirty guilds reaches the batch size.
+ * A guild changed several times between two flushes is only written once, with its latest settings.
+ *
+ * <p>Settings are loaded from the sink when this manager is {@link #init() initialized}, and pending
+ * changes are flushed when it is {@link #shutdown() shut down}. Settings can no longer be changed once it
+ * is shut down.
+ * <br>A {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl CommandClientImpl} shuts its settings
+ * manager down when it receives a {@link net.dv8tion.jda.api.events.ShutdownEvent ShutdownEvent}, including
+ * the one of a single shard. Bots running several shards should build their client with
+ * {@link CommandClientBuilder#setShutdownAutomatically(boolean) setShutdownAutomatically(false)}
+ * and shut it down once every shard is.
+ *
+ * <p>Settings objects should be treated as immutable: to change the settings of a guild, call
+ * {@link #setSettings(long, Object)} with a new object rather than mutating the existing one.
+ *
+ * @param  <T>
+ *         The type of settings
+ *
+ * @see    WriteBehindSettingsManager.Builder
+ * @see    com.jagrosh.jdautilities.command.impl.JournalSettingsSink
+ */
+public class WriteBehindSettingsManager<T> implements GuildSettingsManager<T>
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindSettingsManager.class);
+
+    private final SettingsSink<T> sink;
+    private final ScheduledExecutorService scheduler;
+    private final boolean shutdownScheduler;
+    private final long flushInterval;
+    private final int batchSize;
+    private final Map<Long, T> settings = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    protected WriteBehindSettingsManager(SettingsSink<T> sink, ScheduledExecutorService scheduler,
+                                         boolean shutdownScheduler, long flushInterval, int batchSize)
+    {
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.shutdownScheduler = shutdownScheduler;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+    }
+
+    @Nullable
+    @Override
+    public T getSettings(Guild guild)
+    {
+        return settings.get(guild.getIdLong());
+    }
+
+    /**
+     * Gets the settings of a guild by ID.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     *
+     * @return The settings of the guild, or {@code null} if it has no settings.
+     */
+    @Nullable
+    public T getSettings(long guildId)
+    {
+        return settings.get(guildId);
+    }
+
+    /**
+     * Sets the settings of a guild, and schedules them to be persisted.
+     * <br>This never blocks on the sink.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     * @param  settings
+     *         The new settings of the guild, or {@code null} to remove them
+     *
+     * @throws java.lang.IllegalStateException
+     *         If this manager was shut down, as the change would never be persisted
+     */
+    public void setSettings(long guildId, @Nullable T settings)
+    {
+        if(shutdown.get())
+            throw new IllegalStateException("Cannot change the settings of guild " + guildId + ", the settings manager was shut down!");
+        if(settings == null)
+            this.settings.remove(guildId);
+        else
+            this.settings.put(guildId, settings);
+        dirty.add(guildId);
+        if(dirty.size() >= batchSize && flushQueued.compareAndSet(false, true))
+        {
+            try
+            {
+                scheduler.execute(this::flushQueued);
+            }
+            catch(RejectedExecutionException ex)
+            {
+                // A scheduler shut down by its owner also stops the periodic flushes, so this is reported loudly
+                flushQueued.set(false);
+                LOG.error("Could not flush the settings of {} guilds, the scheduler was shut down and they will not be persisted",
+                    dirty.size(), ex);
+            }
+        }
+    }
+
+    /**
+     * Removes the settings of a guild, and schedules the removal to be persisted.
+     *
+     * @param  guildId
+     *         The ID of the guild
+     *
+     * @throws java.lang.IllegalStateException
+     *         If this manager was shut down, as the removal would never be persisted
+     */
+    public void removeSettings(long guildId)
+    {
+        setSettings(guildId, null);
+    }
+
+    /**
+     * Gets the number of guilds whose settings changed since the last flush.
+     *
+     * @return The number of dirty guilds
+     */
+    public int getPendingCount()
+    {
+        return dirty.size();
+    }
+
+    @Override
+    public void init()
+    {
+        if(!initialized.compareAndSet(false, true))
+            return;
+        try
+        {
+            Map<Long, T> loaded = sink.load();
+            loaded.forEach((id, value) -> {
+                if(value != null)
+                    settings.putIfAbsent(id, value);
+            });
+            LOG.info("Loaded settings for {} guilds", loaded.size());
+        }
+        catch(IOException ex)
+        {
+            LOG.error("Failed to load guild settings", ex);
+        }
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        if(!shutdown.compareAndSet(false, true))
+            return;
+        try
+        {
+            // Run the final flush on the scheduler, so it never overlaps with a scheduled one
+            scheduler.submit(this::flush).get();
+        }
+        catch(Exception ex)
+        {
+            LOG.error("Failed to flush guild settings on shutdown", ex);
+        }
+        if(shutdownScheduler)
+            scheduler.shutdown();
+        try
+        {
+            sink.close();
+        }
+        catch(IOException ex)
+        {
+            LOG.error("Failed to close settings sink", ex);
+        }
+    }
+
+    private void flushQueued()
+    {
+        flushQueued.set(false);
+        flush();
+    }
+
+    // Only ever runs on the single scheduler thread
+    private void flush()
+    {
+        if(dirty.isEmpty())
+            return;
+        Map<Long, T> batch = new HashMap<>();
+        for(Long id : dirty)
+        {
+            // Remove before reading, so a concurrent update marks the guild dirty again
+            dirty.remove(id);
+            batch.put(id, settings.get(id));
+        }
+        try
+        {
+            sink.write(batch);
+            LOG.debug("Flushed settings for {} guilds", batch.size());
+        }
+        catch(Throwable t)
+        {
+            dirty.addAll(batch.keySet());
+            LOG.error("Failed to flush settings for {} guilds, will retry", batch.size(), t);
+        }
+    }
+
+    /**
+     * A builder for a {@link WriteBehindSettingsManager}.
+     *
+     * @param  <T>
+     *         The type of settings
+     */
+    public static class Builder<T>
+    {
+        private final SettingsSink<T> sink;
+        private ScheduledExecutorService scheduler = null;
+        private long flushInterval = TimeUnit.SECONDS.toMillis(5);
+        private int batchSize = 256;
+
+        /**
+         * Constructs a new Builder persisting to the provided sink.
+         *
+         * @param  sink
+         *         The SettingsSink to persist settings to
+         */
+        public Builder(SettingsSink<T> sink)
+        {
+            this.sink = sink;
+        }
+
+        /**
+         * Sets the scheduler flushes are run on.
+         * <br>If not set, a single daemon thread is created, and shut down with the manager.
+         *
+         * <p>The scheduler must be single-threaded, as flushes are not synchronized with each other.
+         *
+         * @param  scheduler
+         *         A single-threaded scheduler
+         *
+         * @return This builder
+         */
+        public Builder<T> setScheduler(ScheduledExecutorService scheduler)
+        {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Sets the delay between two flushes.
+         * <br>Default is 5 seconds.
+         *
+         * @param  interval
+         *         The flush interval
+         * @param  unit
+         *         The unit of the interval
+         *
+         * @return This builder
+         */
+        public Builder<T> setFlushInterval(long interval, TimeUnit unit)
+        {
+            this.flushInterval = unit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Sets the number of dirty guilds that triggers a flush before the flush interval has elapsed.
+         * <br>Default is 256.
+         *
+         * @param  batchSize
+         *         The batch size
+         *
+         * @return This builder
+         */
+        public Builder<T> setBatchSize(int batchSize)
+        {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Builds the WriteBehindSettingsManager.
+         *
+         * @return The WriteBehindSettingsManager
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If the flush interval or batch size is not positive
+         */
+        public WriteBehindSettingsManager<T> build()
+        {
+            if(flushInterval <= 0)
+                throw new IllegalArgumentException("Flush interval must be positive!");
+            if(batchSize <= 0)
+                throw new IllegalArgumentException("Batch size must be positive!");
+            ScheduledExecutorService scheduler = this.scheduler;
+            if(scheduler == null)
+            {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "GuildSettings-Writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return new WriteBehindSettingsManager<>(sink, scheduler, this.scheduler == null, flushInterval, batchSize);
+        }
+    }
+}
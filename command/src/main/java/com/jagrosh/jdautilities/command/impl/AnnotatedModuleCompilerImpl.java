@@ -19,29 +19,52 @@ import com.jagrosh.jdautilities.command.AnnotatedModuleCompiler;
 import com.jagrosh.jdautilities.command.Command;
 import com.jagrosh.jdautilities.command.CommandBuilder;
 import com.jagrosh.jdautilities.command.CommandEvent;
+import com.jagrosh.jdautilities.command.CompiledModule;
 import com.jagrosh.jdautilities.command.annotation.JDACommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 /**
  * Default implementation for {@link com.jagrosh.jdautilities.command.AnnotatedModuleCompiler
  * AnnotatedModuleCompiler}.
  *
+ * <p>Modules that were compiled ahead of time by the {@code JDACommandProcessor} are loaded
+ * through their generated {@link com.jagrosh.jdautilities.command.CompiledModule CompiledModule},
+ * without any reflection. All other modules are compiled using reflection.
+ *
  * @since  1.8
  * @author Kaidan Gustave
  */
 public class AnnotatedModuleCompilerImpl implements AnnotatedModuleCompiler
 {
     private static final Logger LOG = LoggerFactory.getLogger(AnnotatedModuleCompiler.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
 
     @Override
+    @SuppressWarnings("unchecked")
     public List<Command> compile(Object o)
     {
+        CompiledModule<Object> compiled = (CompiledModule<Object>) CompiledModules.INDEX.get(o.getClass());
+        if(compiled != null)
+            return compiled.compile(o);
+
         JDACommand.Module module = o.getClass().getAnnotation(JDACommand.Module.class);
         if(module == null)
             throw new IllegalArgumentException("Object provided is not annotated with JDACommand.Module!");
@@ -160,39 +183,24 @@ public class AnnotatedModuleCompilerImpl implements AnnotatedModuleCompiler
 
         Class<?>[] parameters = method.getParameterTypes();
         // Dual Parameter Command, CommandEvent
-        if(parameters[0] == Command.class && parameters[1] == CommandEvent.class)
+        if(parameters.length == 2 && parameters[0] == Command.class && parameters[1] == CommandEvent.class)
         {
-            return builder.build((command, event) -> {
-                try {
-                    method.invoke(o, command, event);
-                } catch(IllegalAccessException | InvocationTargetException e) {
-                    LOG.error("Encountered Exception ", e);
-                }
-            });
+            BiConsumer<Command, CommandEvent> invoker = compileInvoker(o, method, BiConsumer.class);
+            return builder.build(invoker);
         }
-        else if(parameters[0] == CommandEvent.class)
+        else if(parameters.length > 0 && parameters[0] == CommandEvent.class)
         {
             // Single parameter CommandEvent
             if(parameters.length == 1)
             {
-                return builder.build(event -> {
-                    try {
-                        method.invoke(o, event);
-                    } catch(IllegalAccessException | InvocationTargetException e) {
-                        LOG.error("Encountered Exception ", e);
-                    }
-                });
+                Consumer<CommandEvent> invoker = compileInvoker(o, method, Consumer.class);
+                return builder.build(invoker);
             }
             // Dual Parameter CommandEvent, Command
-            else if(parameters[1] == Command.class)
+            else if(parameters.length == 2 && parameters[1] == Command.class)
             {
-                return builder.build((command, event) -> {
-                    try {
-                        method.invoke(o, event, command);
-                    } catch(IllegalAccessException | InvocationTargetException e) {
-                        LOG.error("Encountered Exception ", e);
-                    }
-                });
+                BiConsumer<CommandEvent, Command> invoker = compileInvoker(o, method, BiConsumer.class);
+                return builder.build((command, event) -> invoker.accept(event, command));
             }
         }
 
@@ -200,6 +208,143 @@ public class AnnotatedModuleCompilerImpl implements AnnotatedModuleCompiler
         throw new MalformedParametersException("Method named "+method.getName()+" was not compiled due to improper parameter types!");
     }
 
+    /*
+     * Compiles a call of the method on the object into an implementation of Consumer or BiConsumer, which
+     * calls it as directly as a method reference would, without any boxing of arguments or access checks on
+     * each call, and without wrapping any exception thrown by the method.
+     *
+     * Methods that cannot be linked to from here, such as ones declared in a non-public class or in a class
+     * loaded by a class loader we cannot see (as with plugins), are instead called through a MethodHandle
+     * that has access to them.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T compileInvoker(Object o, Method method, Class<?> functionalInterface)
+    {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        int arity = method.getParameterCount();
+        MethodType samType = MethodType.genericMethodType(arity).changeReturnType(void.class);
+        if(isVisible(method.getDeclaringClass()) && isVisible(method.getParameterTypes()))
+        {
+            try
+            {
+                MethodHandle target = LOOKUP.unreflect(method);
+                MethodType factoryType = isStatic
+                    ? MethodType.methodType(functionalInterface)
+                    : MethodType.methodType(functionalInterface, method.getDeclaringClass());
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", factoryType, samType, target,
+                    MethodType.methodType(void.class, method.getParameterTypes()));
+                return (T) (isStatic ? site.getTarget().invoke() : site.getTarget().invoke(o));
+            }
+            catch(Throwable t)
+            {
+                LOG.debug("Method named {} could not be linked directly, falling back to a MethodHandle", method.getName(), t);
+            }
+        }
+        else
+        {
+            LOG.debug("Method named {} is not visible from our class loader, falling back to a MethodHandle", method.getName());
+        }
+
+        try
+        {
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if(!isStatic)
+                handle = handle.bindTo(o);
+            return (T) new HandleInvoker(handle.asType(samType));
+        }
+        catch(IllegalAccessException | RuntimeException e)
+        {
+            throw new IllegalArgumentException("Method named "+method.getName()+" could not be accessed!", e);
+        }
+    }
+
+    // The generated invoker is defined in our class loader, so it can only link to the classes it resolves to
+    private static boolean isVisible(Class<?>... types)
+    {
+        ClassLoader loader = AnnotatedModuleCompilerImpl.class.getClassLoader();
+        for(Class<?> type : types)
+        {
+            if(type.isPrimitive())
+                continue;
+            try
+            {
+                if(Class.forName(type.getName(), false, loader) != type)
+                    return false;
+            }
+            catch(ClassNotFoundException | LinkageError e)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class HandleInvoker implements Consumer<Object>, BiConsumer<Object, Object>
+    {
+        private final MethodHandle handle;
+
+        private HandleInvoker(MethodHandle handle)
+        {
+            this.handle = handle;
+        }
+
+        @Override
+        public void accept(Object first)
+        {
+            try {
+                handle.invokeExact(first);
+            } catch(Throwable t) {
+                throw HandleInvoker.<RuntimeException>rethrow(t);
+            }
+        }
+
+        @Override
+        public void accept(Object first, Object second)
+        {
+            try {
+                handle.invokeExact(first, second);
+            } catch(Throwable t) {
+                throw HandleInvoker.<RuntimeException>rethrow(t);
+            }
+        }
+
+        // Rethrows checked exceptions as well, as they would be thrown by a direct call
+        @SuppressWarnings("unchecked")
+        private static <E extends Throwable> E rethrow(Throwable t) throws E
+        {
+            throw (E) t;
+        }
+    }
+
+    // The modules compiled by the annotation processor, loaded once when first needed
+    private static final class CompiledModules
+    {
+        private static final Map<Class<?>, CompiledModule<?>> INDEX = load();
+
+        @SuppressWarnings("rawtypes")
+        private static Map<Class<?>, CompiledModule<?>> load()
+        {
+            Map<Class<?>, CompiledModule<?>> index = new HashMap<>();
+            Iterator<CompiledModule> iterator = ServiceLoader.load(CompiledModule.class).iterator();
+            while(true)
+            {
+                try
+                {
+                    if(!iterator.hasNext())
+                        break;
+                    CompiledModule<?> compiled = iterator.next();
+                    index.put(compiled.getModuleType(), compiled);
+                }
+                catch(ServiceConfigurationError e)
+                {
+                    LOG.warn("Could not load a compiled module, it will be compiled using reflection instead", e);
+                }
+            }
+            return index;
+        }
+    }
+
     @SafeVarargs
     private static <T> List<T> collect(Predicate<T> filter, T... entities)
     {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.StatsSink;
+import net.dv8tion.jda.api.JDA;
+import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link com.jagrosh.jdautilities.command.StatsSink StatsSink} posting the server count
+ * of each shard to <a href="https://www.carbonitex.net/discord/bots">Carbonitex</a>.
+ */
+public class CarbonitexStatsSink implements StatsSink
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CarbonitexStatsSink.class);
+    private static final String DEFAULT_URL = "https://www.carbonitex.net/discord/data/botdata.php";
+
+    private final String key;
+    private final String url;
+
+    /**
+     * Constructs a new CarbonitexStatsSink.
+     *
+     * @param  key
+     *         The Carbonitex key
+     */
+    public CarbonitexStatsSink(String key)
+    {
+        this(key, DEFAULT_URL);
+    }
+
+    /**
+     * Constructs a new CarbonitexStatsSink posting to a custom endpoint.
+     *
+     * @param  key
+     *         The Carbonitex key
+     * @param  url
+     *         The endpoint to post the data to
+     */
+    public CarbonitexStatsSink(String key, String url)
+    {
+        this.key = key;
+        this.url = url;
+    }
+
+    @Override
+    public CompletableFuture<Integer> publish(JDA jda, long guildCount)
+    {
+        FormBody.Builder bodyBuilder = new FormBody.Builder()
+                .add("key", key)
+                .add("servercount", Long.toString(guildCount));
+
+        if(jda.getShardInfo() != null)
+        {
+            bodyBuilder.add("shard_id", Integer.toString(jda.getShardInfo().getShardId()))
+                       .add("shard_count", Integer.toString(jda.getShardInfo().getShardTotal()));
+        }
+
+        Request.Builder builder = new Request.Builder()
+                .post(bodyBuilder.build())
+                .url(url);
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        jda.getHttpClient().newCall(builder.build()).enqueue(new Callback()
+        {
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                LOG.info("Successfully send information to carbonitex.net");
+                response.close();
+                future.complete(null);
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -28,6 +28,7 @@ import net.dv8tion.jda.api.events.ReadyEvent;
 import net.dv8tion.jda.api.events.ShutdownEvent;
 import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
 import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.events.message.guild.GuildMessageDeleteEvent;
@@ -35,21 +36,16 @@ import net.dv8tion.jda.api.hooks.EventListener;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.privileges.CommandPrivilege;
 import net.dv8tion.jda.internal.utils.Checks;
-import okhttp3.*;
-import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
-import org.json.JSONObject;
-import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.Reader;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -76,6 +72,8 @@ public class CommandClientImpl implements CommandClient, EventListener
     private final OnlineStatus status;
     private final String ownerId;
     private final String[] coOwnerIds;
+    private final long ownerIdLong;
+    private final long[] coOwnerIdsLong;
     private final String prefix;
     private final String altprefix;
     private final String[] prefixes;
@@ -92,7 +90,7 @@ public class CommandClientImpl implements CommandClient, EventListener
     private final String success;
     private final String warning;
     private final String error;
-    private final String botsKey, carbonKey;
+    private final StatsPublisher statsPublisher;
     private final HashMap<String,OffsetDateTime> cooldowns;
     private final HashMap<String,Integer> uses;
     private final FixedSizeCache<Long, Set<Message>> linkMap;
@@ -103,15 +101,16 @@ public class CommandClientImpl implements CommandClient, EventListener
     private final ScheduledExecutorService executor;
     private final AnnotatedModuleCompiler compiler;
     private final GuildSettingsManager manager;
+    private final CommandMessages commandMessages;
+    private final HelpCache helpCache = new HelpCache();
 
     private String textPrefix;
     private CommandListener listener = null;
-    private int totalGuilds;
 
     public CommandClientImpl(String ownerId, String[] coOwnerIds, String prefix, String altprefix, String[] prefixes, Function<MessageReceivedEvent, String> prefixFunction, Function<MessageReceivedEvent, Boolean> commandPreProcessFunction, Activity activity, OnlineStatus status, String serverInvite,
-                             String success, String warning, String error, String carbonKey, String botsKey, ArrayList<Command> commands, ArrayList<SlashCommand> slashCommands, String forcedGuildId, boolean manualUpsert,
+                             String success, String warning, String error, String carbonKey, String botsKey, List<StatsSink> statsSinks, long statsDelay, ArrayList<Command> commands, ArrayList<SlashCommand> slashCommands, String forcedGuildId, boolean manualUpsert,
                              boolean useHelp, boolean shutdownAutomatically, Consumer<CommandEvent> helpConsumer, String helpWord, ScheduledExecutorService executor,
-                             int linkedCacheSize, AnnotatedModuleCompiler compiler, GuildSettingsManager manager)
+                             int linkedCacheSize, AnnotatedModuleCompiler compiler, GuildSettingsManager manager, CommandMessages commandMessages)
     {
         Checks.check(ownerId != null, "Owner ID was set null or not set! Please provide an User ID to register as the owner!");
 
@@ -131,6 +130,9 @@ public class CommandClientImpl implements CommandClient, EventListener
 
         this.ownerId = ownerId;
         this.coOwnerIds = coOwnerIds;
+        // Unsafe IDs are converted to 0, which no user can have
+        this.ownerIdLong = SafeIdUtil.safeConvert(ownerId);
+        this.coOwnerIdsLong = coOwnerIds==null ? new long[0] : Arrays.stream(coOwnerIds).mapToLong(SafeIdUtil::safeConvert).toArray();
         this.prefix = prefix==null || prefix.isEmpty() ? DEFAULT_PREFIX : prefix;
         this.altprefix = altprefix==null || altprefix.isEmpty() ? null : altprefix;
 
@@ -148,8 +150,6 @@ public class CommandClientImpl implements CommandClient, EventListener
         this.success = success==null ? "": success;
         this.warning = warning==null ? "": warning;
         this.error = error==null ? "": error;
-        this.carbonKey = carbonKey;
-        this.botsKey = botsKey;
         this.commandIndex = new HashMap<>();
         this.slashCommandIndex = new HashMap<>();
         this.commands = new ArrayList<>();
@@ -164,39 +164,18 @@ public class CommandClientImpl implements CommandClient, EventListener
         this.shutdownAutomatically = shutdownAutomatically;
         this.helpWord = helpWord==null ? "help" : helpWord;
         this.executor = executor==null ? Executors.newSingleThreadScheduledExecutor() : executor;
+        List<StatsSink> sinks = new ArrayList<>();
+        if(carbonKey != null)
+            sinks.add(new CarbonitexStatsSink(carbonKey));
+        if(botsKey != null)
+            sinks.add(new DiscordBotsStatsSink(botsKey));
+        if(statsSinks != null)
+            sinks.addAll(statsSinks);
+        this.statsPublisher = new StatsPublisher(this.executor, sinks, statsDelay, TimeUnit.SECONDS);
         this.compiler = compiler;
         this.manager = manager;
-        this.helpConsumer = helpConsumer==null ? (event) -> {
-                StringBuilder builder = new StringBuilder("Commandes de **"+event.getSelfUser().getName()+"** :\n");
-                Category category = null;
-                List<Command> botCommands = getCommands().stream().sorted(Comparator.comparing(o -> o.getCategory().getName())).collect(Collectors.toList());
-                for(Command command : botCommands)
-                {
-                    if(!command.isHidden() && (!command.isOwnerCommand() || event.isOwner()))
-                    {
-                        if(!Objects.equals(category, command.getCategory()))
-                        {
-                            category = command.getCategory();
-                            builder.append("\n\n  __").append(category==null ? "Aucune catégorie" : category.getName()).append("__:\n");
-                        }
-                        builder.append("\n`").append(textPrefix).append(prefix==null?" ":"").append(command.getName())
-                               .append(command.getArguments()==null ? "`" : " "+command.getArguments()+"`")
-                               .append(" - ").append(command.getHelp());
-                    }
-                }
-                User owner = event.getJDA().getUserById(ownerId);
-                if(owner!=null)
-                {
-                    builder.append("\n\nPour plus d'aide, contactez **").append(owner.getName()).append("**#").append(owner.getDiscriminator());
-                    if(serverInvite!=null)
-                        builder.append(" ou rejoignez le discord ").append(serverInvite);
-                }
-                event.replyInDm(builder.toString(), unused ->
-                {
-                    if(event.isFromType(ChannelType.TEXT))
-                        event.reactSuccess();
-                }, t -> event.replyWarning("Aucune aide ne peut vous être envoyé car vous avez bloqué vos messages privés."));
-        } : helpConsumer;
+        this.commandMessages = commandMessages==null ? CommandMessages.getDefault() : commandMessages;
+        this.helpConsumer = helpConsumer==null ? this::sendDefaultHelp : helpConsumer;
 
         // Load commands
         for(Command command : commands)
@@ -335,6 +314,7 @@ public class CommandClientImpl implements CommandClient, EventListener
                 commandIndex.put(alias.toLowerCase(Locale.ROOT), index);
         }
         commands.add(index,command);
+        helpCache.invalidate();
     }
 
     @Override
@@ -382,6 +362,7 @@ public class CommandClientImpl implements CommandClient, EventListener
             commandIndex.entrySet().stream().filter(entry -> entry.getValue()>targetIndex).collect(Collectors.toList())
                 .forEach(entry -> commandIndex.put(entry.getKey(), entry.getValue()-1));
         }
+        helpCache.invalidate();
     }
 
     @Override
@@ -428,6 +409,17 @@ public class CommandClientImpl implements CommandClient, EventListener
         return ids;
     }
 
+    @Override
+    public boolean isOwner(long userId)
+    {
+        if(userId == ownerIdLong)
+            return true;
+        for(long id : coOwnerIdsLong)
+            if(id == userId)
+                return true;
+        return false;
+    }
+
     @Override
     public String getSuccess()
     {
@@ -446,6 +438,12 @@ public class CommandClientImpl implements CommandClient, EventListener
         return error;
     }
 
+    @Override
+    public CommandMessages getCommandMessages()
+    {
+        return commandMessages;
+    }
+
     @Override
     public ScheduledExecutorService getScheduleExecutor()
     {
@@ -490,7 +488,7 @@ public class CommandClientImpl implements CommandClient, EventListener
     @Override
     public int getTotalGuilds()
     {
-        return totalGuilds;
+        return statsPublisher.getTotalGuilds();
     }
 
     @Override
@@ -538,6 +536,9 @@ public class CommandClientImpl implements CommandClient, EventListener
         else if(event instanceof SlashCommandEvent)
             onSlashCommand((SlashCommandEvent)event);
 
+        else if(event instanceof CommandAutoCompleteEvent)
+            onCommandAutoComplete((CommandAutoCompleteEvent)event);
+
         else if(event instanceof GuildMessageDeleteEvent && usesLinkedDeletion())
             onMessageDelete((GuildMessageDeleteEvent) event);
 
@@ -545,10 +546,10 @@ public class CommandClientImpl implements CommandClient, EventListener
         {
             if(((GuildJoinEvent)event).getGuild().getSelfMember().getTimeJoined()
                     .plusMinutes(10).isAfter(OffsetDateTime.now()))
-                sendStats(event.getJDA());
+                statsPublisher.requestUpdate(event.getJDA());
         }
         else if(event instanceof GuildLeaveEvent)
-            sendStats(event.getJDA());
+            statsPublisher.requestUpdate(event.getJDA());
         else if(event instanceof ReadyEvent)
             onReady((ReadyEvent)event);
         else if(event instanceof ShutdownEvent)
@@ -567,6 +568,7 @@ public class CommandClientImpl implements CommandClient, EventListener
             return;
         }
         textPrefix = prefix.equals(DEFAULT_PREFIX) ? "@"+event.getJDA().getSelfUser().getName()+" " : prefix;
+        helpCache.invalidate();
         
         if(activity != null) 
             event.getJDA().getPresence().setPresence(status==null ? OnlineStatus.ONLINE : status, 
@@ -575,7 +577,7 @@ public class CommandClientImpl implements CommandClient, EventListener
         // Start SettingsManager if necessary
         GuildSettingsManager<?> manager = getSettingsManager();
         if(manager != null)
-            manager.init();
+            manager.init(event.getJDA());
 
         // Upsert slash commands, if not manual
         if (!manualUpsert)
@@ -603,7 +605,7 @@ public class CommandClientImpl implements CommandClient, EventListener
             }
         }
 
-        sendStats(event.getJDA());
+        statsPublisher.requestUpdate(event.getJDA());
     }
 
     private void onMessageReceived(MessageReceivedEvent event)
@@ -612,13 +614,20 @@ public class CommandClientImpl implements CommandClient, EventListener
         if(event.getAuthor().isBot())
             return;
 
-        final MessageParts parts = getParts(event);
+        final String rawContent = event.getMessage().getContentRaw();
+        final int prefixLength = getPrefixLength(event, rawContent);
 
-        if(parts!=null) //starts with valid prefix
+        if(prefixLength >= 0) //starts with valid prefix
         {
-            if(useHelp && parts.command.equalsIgnoreCase(helpWord))
+            // The command name ends at the first whitespace after the prefix
+            int nameEnd = prefixLength;
+            while(nameEnd < rawContent.length() && !Character.isWhitespace(rawContent.charAt(nameEnd)))
+                nameEnd++;
+            final int nameLength = nameEnd - prefixLength;
+
+            if(useHelp && nameLength == helpWord.length() && rawContent.regionMatches(true, prefixLength, helpWord, 0, nameLength))
             {
-                CommandEvent cevent = new CommandEvent(event, parts.prefixUsed, parts.args, this);
+                CommandEvent cevent = new CommandEvent(event, rawContent.substring(0, prefixLength), getArgs(rawContent, nameEnd), this);
                 if(listener!=null)
                     listener.onCommand(cevent, null);
                 helpConsumer.accept(cevent); // Fire help consumer
@@ -628,8 +637,7 @@ public class CommandClientImpl implements CommandClient, EventListener
             }
             else if(event.isFromType(ChannelType.PRIVATE) || event.getTextChannel().canTalk())
             {
-                String name = parts.command;
-                String args = parts.args;
+                String name = rawContent.substring(prefixLength, nameEnd);
                 final Command command; // this will be null if it's not a command
                 synchronized(commandIndex)
                 {
@@ -639,7 +647,9 @@ public class CommandClientImpl implements CommandClient, EventListener
 
                 if(command != null)
                 {
-                    CommandEvent cevent = new CommandEvent(event, parts.prefixUsed, args, this);
+                    String args = getArgs(rawContent, nameEnd);
+                    LOG.trace("Received command named '{}' with args '{}'", name, args);
+                    CommandEvent cevent = new CommandEvent(event, rawContent.substring(0, prefixLength), args, this);
 
                     if(listener != null)
                         listener.onCommand(cevent, command);
@@ -657,121 +667,127 @@ public class CommandClientImpl implements CommandClient, EventListener
             listener.onNonCommandMessage(event);
     }
 
-    @Nullable
-    private MessageParts getParts(MessageReceivedEvent event) {
-        String rawContent = event.getMessage().getContentRaw();
-
-        GuildSettingsProvider settings = event.isFromType(ChannelType.TEXT)? provideSettings(event.getGuild()) : null;
-
+    /**
+     * Finds the length of the prefix the raw content of a message starts with.
+     *
+     * <p>Prefixes are matched in place, without copying or lowercasing the content, so that
+     * messages which are not commands can be discarded without allocating.
+     *
+     * @param  event
+     *         The event of the message
+     * @param  rawContent
+     *         The raw content of the message
+     *
+     * @return The length of the prefix used, or {@code -1} if the message doesn't start with a prefix
+     */
+    private int getPrefixLength(MessageReceivedEvent event, String rawContent)
+    {
         // Check for prefix or alternate prefix (@mention cases)
-        if(prefix.equals(DEFAULT_PREFIX) || (altprefix != null && altprefix.equals(DEFAULT_PREFIX))) {
-            if(rawContent.startsWith("<@"+ event.getJDA().getSelfUser().getId()+">") ||
-                    rawContent.startsWith("<@!"+ event.getJDA().getSelfUser().getId()+">")) {
-                final int prefixLength = rawContent.indexOf('>') + 1;
-                return makeMessageParts(rawContent, prefixLength);
-            }
+        if(prefix.equals(DEFAULT_PREFIX) || (altprefix != null && altprefix.equals(DEFAULT_PREFIX)))
+        {
+            int mentionLength = getMentionLength(rawContent, event.getJDA().getSelfUser().getIdLong());
+            if(mentionLength > 0)
+                return mentionLength;
         }
 
         // Check for prefix
         // Run Function check if there is one, then fallback to normal prefixes
-        if (prefixFunction != null) {
+        if(prefixFunction != null)
+        {
             String prefix = prefixFunction.apply(event);
             // Don't lowercase, up to Function to handle this
-            if (prefix != null && rawContent.startsWith(prefix)) {
-                final int prefixLength = prefix.length();
-                return makeMessageParts(rawContent, prefixLength);
-            }
+            if(prefix != null && rawContent.startsWith(prefix))
+                return prefix.length();
         }
 
-        final String lowerCaseContent = rawContent.toLowerCase(Locale.ROOT);
         // Check for default prefix
-        if (lowerCaseContent.startsWith(prefix.toLowerCase(Locale.ROOT))) {
-            final int prefixLength = prefix.length();
-            return makeMessageParts(rawContent, prefixLength);
-        }
+        if(startsWithIgnoreCase(rawContent, prefix))
+            return prefix.length();
 
         // Check for alternate prefix
-        if(altprefix != null && lowerCaseContent.startsWith(altprefix.toLowerCase(Locale.ROOT))) {
-            final int prefixLength = altprefix.length();
-            return makeMessageParts(rawContent, prefixLength);
-        }
+        if(altprefix != null && startsWithIgnoreCase(rawContent, altprefix))
+            return altprefix.length();
 
         // Check for prefixes
-        if (prefixes != null) {
-            for (String pre : prefixes) {
-                if (lowerCaseContent.startsWith(pre.toLowerCase(Locale.ROOT))) {
-                    final int prefixLength = pre.length();
-                    return makeMessageParts(rawContent, prefixLength);
-                }
+        if(prefixes != null)
+        {
+            for(String pre : prefixes)
+            {
+                if(startsWithIgnoreCase(rawContent, pre))
+                    return pre.length();
             }
         }
 
         // Check for guild specific prefixes
-        if(settings != null) {
+        GuildSettingsProvider settings = event.isFromType(ChannelType.TEXT)? provideSettings(event.getGuild()) : null;
+        if(settings != null)
+        {
             Collection<String> prefixes = settings.getPrefixes();
-            if(prefixes != null) {
-                for(String prefix : prefixes) {
-                    if(lowerCaseContent.startsWith(prefix.toLowerCase(Locale.ROOT))) {
-                        final int prefixLength = prefix.length();
-                        return makeMessageParts(rawContent, prefixLength);
-                    }
+            if(prefixes instanceof List && prefixes instanceof RandomAccess)
+            {
+                // Index lists such as MappedGuildSettings' prefixes without allocating an iterator
+                List<String> list = (List<String>) prefixes;
+                for(int i = 0; i < list.size(); i++)
+                {
+                    String prefix = list.get(i);
+                    if(startsWithIgnoreCase(rawContent, prefix))
+                        return prefix.length();
+                }
+            }
+            else if(prefixes != null)
+            {
+                for(String prefix : prefixes)
+                {
+                    if(startsWithIgnoreCase(rawContent, prefix))
+                        return prefix.length();
                 }
             }
         }
 
-        return null;
+        return -1;
     }
 
     /**
-     * Processes the message raw content and returns the "parts" of the message
-     * <br>These parts include:
-     * <ul>
-     *     <li>Used prefix</li>
-     *     <li>Command name</li>
-     *     <li>Arguments</li>
-     * </ul>
+     * Parses a leading {@code <@id>} or {@code <@!id>} mention in place, and compares its ID
+     * with the provided one.
      *
-     * @param rawContent
-     *        The raw content of the incoming message
-     * @param prefixLength
-     *        The length of the prefix that has been successfully detected before calling this method
-     * @return A MessageParts objects with all the parts cited above
+     * @return The length of the mention, or {@code -1} if the content doesn't start with a mention of the ID
      */
-    @NotNull
-    private CommandClientImpl.MessageParts makeMessageParts(String rawContent, int prefixLength) {
-        //Replacement method below
-//        final String[] split = rawContent.substring(prefixLength).trim().split("\\s+", 2);
-
-        //What we do is search for the first whitespace after the prefix, this gets us the command name
-        // To then get the arguments, we find the first occurrence of a character other than a whitespace, after the command index, and take the string from that index
-        String cmd = null;
-        for (int i = prefixLength; i < rawContent.length(); i++) {
-            if (Character.isWhitespace(rawContent.charAt(i))) { //If a whitespace assume we found the end of the command name
-                cmd = rawContent.substring(prefixLength, i);
+    private static int getMentionLength(String rawContent, long selfId)
+    {
+        if(!rawContent.startsWith("<@"))
+            return -1;
+        int i = 2;
+        if(i < rawContent.length() && rawContent.charAt(i) == '!')
+            i++;
+        long id = 0;
+        int digits = 0;
+        for(; i < rawContent.length() && digits < 20; i++, digits++)
+        {
+            char c = rawContent.charAt(i);
+            if(c < '0' || c > '9')
                 break;
-            }
-        }
-
-        String args = "";
-        if (cmd == null) { //Assume there are no args since there were absolutely no whitespace
-            cmd = rawContent.substring(prefixLength);
-        } else {
-            for (int i = prefixLength + cmd.length(); i < rawContent.length(); i++) {
-                if (!Character.isWhitespace(rawContent.charAt(i))) { //If not a whitespace assume we found the start of the arguments
-                    args = rawContent.substring(i);
-                    break;
-                }
-            }
+            id = id * 10 + (c - '0');
         }
+        if(digits == 0 || i >= rawContent.length() || rawContent.charAt(i) != '>' || id != selfId)
+            return -1;
+        return i + 1;
+    }
 
-        //Just in case something fucked up
-        LOG.trace("Received command named '{}' with args '{}'", cmd, args);
+    private static boolean startsWithIgnoreCase(String rawContent, String prefix)
+    {
+        return rawContent.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
 
-        return new MessageParts(
-            rawContent.substring(0, prefixLength),
-            cmd,
-            args
-        );
+    // The arguments start at the first non-whitespace character after the command name
+    private static String getArgs(String rawContent, int nameEnd)
+    {
+        for(int i = nameEnd; i < rawContent.length(); i++)
+        {
+            if(!Character.isWhitespace(rawContent.charAt(i)))
+                return rawContent.substring(i);
+        }
+        return "";
     }
 
     private void onSlashCommand(SlashCommandEvent event)
@@ -793,95 +809,50 @@ public class CommandClientImpl implements CommandClient, EventListener
         }
     }
 
-    private void sendStats(JDA jda)
+    private void onCommandAutoComplete(CommandAutoCompleteEvent event)
     {
-        OkHttpClient client = jda.getHttpClient();
-
-        if(carbonKey != null)
+        final SlashCommand command; // this will be null if it's not a command
+        synchronized(slashCommandIndex)
         {
-            FormBody.Builder bodyBuilder = new FormBody.Builder()
-                    .add("key", carbonKey)
-                    .add("servercount", Integer.toString(jda.getGuilds().size()));
-            
-            if(jda.getShardInfo() != null)
-            {
-                bodyBuilder.add("shard_id", Integer.toString(jda.getShardInfo().getShardId()))
-                           .add("shard_count", Integer.toString(jda.getShardInfo().getShardTotal()));
-            }
+            int i = slashCommandIndex.getOrDefault(event.getName().toLowerCase(Locale.ROOT), -1);
+            command = i != -1? slashCommands.get(i) : null;
+        }
 
-            Request.Builder builder = new Request.Builder()
-                    .post(bodyBuilder.build())
-                    .url("https://www.carbonitex.net/discord/data/botdata.php");
+        if(command != null)
+            command.onAutoComplete(event);
+    }
 
-            client.newCall(builder.build()).enqueue(new Callback()
-            {
-                @Override
-                public void onResponse(Call call, Response response)
-                {
-                    LOG.info("Successfully send information to carbonitex.net");
-                    response.close();
-                }
+    private void sendDefaultHelp(CommandEvent event)
+    {
+        HelpPages help = helpCache.get(event);
+        List<String> pages = help.pages;
 
-                @Override
-                public void onFailure(Call call, IOException e)
-                {
-                    LOG.error("Failed to send information to carbonitex.net ", e);
-                }
-            });
-        }
-        
-        if(botsKey != null)
+        // "help <category>" or "help <page>"
+        String args = event.getArgs().trim();
+        int page = 0;
+        if(!args.isEmpty())
         {
-            JSONObject body = new JSONObject().put("guildCount", jda.getGuilds().size());
-            if(jda.getShardInfo() != null)
-            {
-                body.put("shardId", jda.getShardInfo().getShardId())
-                    .put("shardCount", jda.getShardInfo().getShardTotal());
-            }
-            
-            Request.Builder builder = new Request.Builder()
-                    .post(RequestBody.create(MediaType.parse("application/json"), body.toString()))
-                    .url("https://discord.bots.gg/api/v1/bots/" + jda.getSelfUser().getId() + "/stats")
-                    .header("Authorization", botsKey)
-                    .header("Content-Type", "application/json");
-
-            client.newCall(builder.build()).enqueue(new Callback()
+            List<String> categoryPages = help.categories.get(args.toLowerCase(Locale.ROOT));
+            if(categoryPages != null)
+                pages = categoryPages;
+            else
             {
-                @Override
-                public void onResponse(Call call, Response response) throws IOException
+                try
                 {
-                    if(response.isSuccessful())
-                    {
-                        LOG.info("Successfully sent information to discord.bots.gg");
-                        try(Reader reader = response.body().charStream())
-                        {
-                            totalGuilds = new JSONObject(new JSONTokener(reader)).getInt("guildCount");
-                        }
-                        catch(Exception ex)
-                        {
-                            LOG.error("Failed to retrieve bot shard information from discord.bots.gg ", ex);
-                        }
-                    }
-                    else
-                        LOG.error("Failed to send information to discord.bots.gg: "+response.body().string());
-                    response.close();
+                    page = Math.max(0, Math.min(Integer.parseInt(args) - 1, pages.size() - 1));
                 }
-
-                @Override
-                public void onFailure(Call call, IOException e)
-                {
-                    LOG.error("Failed to send information to discord.bots.gg ", e);
-                }
-            });
-        }
-        else if (jda.getShardManager() != null)
-        {
-            totalGuilds = (int) jda.getShardManager().getGuildCache().size();
+                catch(NumberFormatException ignored) {}
+            }
         }
-        else
+
+        String content = pages.get(page);
+        if(pages.size() > 1)
+            content += "\n\nPage " + (page + 1) + "/" + pages.size() + " - `" + textPrefix + helpWord + " <page>`";
+        event.replyInDm(content, unused ->
         {
-            totalGuilds = (int) jda.getGuildCache().size();
-        }
+            if(event.isFromType(ChannelType.TEXT))
+                event.reactSuccess();
+        }, t -> event.replyWarning("Aucune aide ne peut vous être envoyé car vous avez bloqué vos messages privés."));
     }
 
     private void onMessageDelete(GuildMessageDeleteEvent event)
@@ -943,15 +914,189 @@ public class CommandClientImpl implements CommandClient, EventListener
         }
     }
 
-    private static class MessageParts {
-        private final String prefixUsed;
-        private final String command;
-        private final String args;
+    /**
+     * <b>DO NOT USE THIS!</b>
+     *
+     * <p>This is a method necessary for linking all of a bot's response messages
+     * to their corresponding call message ID at once.
+     * <br><b>Using this anywhere in your code can and will break your bot.</b>
+     *
+     * @param  callId
+     *         The ID of the call Message
+     * @param  messages
+     *         The Messages to link to the ID
+     */
+    public void linkIds(long callId, Collection<Message> messages)
+    {
+        // We don't use linked deletion, so we don't do anything.
+        if(!usesLinkedDeletion())
+            return;
+
+        synchronized(linkMap)
+        {
+            Set<Message> stored = linkMap.get(callId);
+            if(stored != null)
+                stored.addAll(messages);
+            else
+                linkMap.add(callId, new HashSet<>(messages));
+        }
+    }
+
+    /**
+     * Caches the rendered output of the default help consumer, separately for owners and everyone else.
+     * <br>It is invalidated when a command is added or removed, when the textual prefix changes, and once the
+     * owner shown in the footer has been retrieved.
+     */
+    private final class HelpCache
+    {
+        // Leaves room for the page indicator
+        private static final int PAGE_LENGTH = Message.MAX_CONTENT_LENGTH - 100;
+
+        private final AtomicBoolean ownerRequested = new AtomicBoolean(false);
+        private volatile HelpPages ownerHelp, publicHelp;
+        private volatile String ownerTag;
+        // Bumped by invalidate(), so that pages built from stale commands are not stored
+        private long generation;
+
+        private HelpPages get(CommandEvent event)
+        {
+            boolean owner = event.isOwner();
+            HelpPages help = owner ? ownerHelp : publicHelp;
+            if(help != null)
+                return help;
+
+            long generation;
+            synchronized(this)
+            {
+                generation = this.generation;
+            }
+            resolveOwner(event.getJDA());
+            help = build(event, owner);
+            store(help, owner, generation);
+            return help;
+        }
 
-        private MessageParts(String prefixUsed, String command, String args) {
-            this.prefixUsed = prefixUsed;
-            this.command = command;
-            this.args = args;
+        private synchronized void store(HelpPages help, boolean owner, long generation)
+        {
+            if(generation != this.generation)
+                return;
+            if(owner)
+                ownerHelp = help;
+            else
+                publicHelp = help;
+        }
+
+        private synchronized void invalidate()
+        {
+            generation++;
+            ownerHelp = null;
+            publicHelp = null;
+        }
+
+        // The owner is rarely in the member cache, so it is retrieved once and the pages rebuilt with its tag
+        private void resolveOwner(JDA jda)
+        {
+            if(ownerTag != null)
+                return;
+            User cached = jda.getUserById(ownerId);
+            if(cached != null)
+            {
+                ownerTag = cached.getName() + "**#" + cached.getDiscriminator();
+                return;
+            }
+            if(ownerRequested.compareAndSet(false, true))
+            {
+                jda.retrieveUserById(ownerId).queue(user ->
+                {
+                    ownerTag = user.getName() + "**#" + user.getDiscriminator();
+                    invalidate();
+                }, failure -> LOG.warn("Could not retrieve the owner to show in the help", failure));
+            }
+        }
+
+        private HelpPages build(CommandEvent event, boolean owner)
+        {
+            List<Command> botCommands;
+            synchronized(commandIndex)
+            {
+                botCommands = new ArrayList<>(commands);
+            }
+            botCommands.sort(Comparator.comparing(Command::getCategory,
+                Comparator.nullsFirst(Comparator.comparing(Category::getName))));
+
+            // Render each category once, as a list of lines
+            Map<Category, List<String>> sections = new LinkedHashMap<>();
+            Category category = null;
+            List<String> section = null;
+            for(Command command : botCommands)
+            {
+                if(command.isHidden() || (command.isOwnerCommand() && !owner))
+                    continue;
+                if(section == null || !Objects.equals(category, command.getCategory()))
+                {
+                    category = command.getCategory();
+                    section = sections.computeIfAbsent(category, c -> new ArrayList<>());
+                    if(category != null && section.isEmpty())
+                        section.add("\n\n  __" + category.getName() + "__:\n");
+                }
+                section.add("\n`" + textPrefix + (prefix==null ? " " : "") + command.getName()
+                            + (command.getArguments()==null ? "`" : " " + command.getArguments() + "`")
+                            + " - " + command.getHelp());
+            }
+
+            String header = "Commandes de **" + event.getSelfUser().getName() + "** :\n";
+            String footer = "";
+            String ownerTag = this.ownerTag;
+            if(ownerTag != null)
+            {
+                footer = "\n\nPour plus d'aide, contactez **" + ownerTag;
+                if(serverInvite != null)
+                    footer += " ou rejoignez le discord " + serverInvite;
+            }
+
+            List<String> all = new ArrayList<>();
+            Map<String, List<String>> categories = new HashMap<>();
+            for(Map.Entry<Category, List<String>> entry : sections.entrySet())
+            {
+                all.addAll(entry.getValue());
+                if(entry.getKey() != null)
+                    categories.put(entry.getKey().getName().toLowerCase(Locale.ROOT), paginate(header, entry.getValue(), footer));
+            }
+            return new HelpPages(paginate(header, all, footer), categories);
+        }
+
+        private List<String> paginate(String header, List<String> lines, String footer)
+        {
+            List<String> pages = new ArrayList<>();
+            StringBuilder page = new StringBuilder(PAGE_LENGTH).append(header);
+            for(String line : lines)
+            {
+                if(page.length() + line.length() > PAGE_LENGTH && page.length() > 0)
+                {
+                    pages.add(page.toString());
+                    page.setLength(0);
+                }
+                page.append(line);
+            }
+            if(page.length() + footer.length() > PAGE_LENGTH && page.length() > 0)
+            {
+                pages.add(page.toString());
+                page.setLength(0);
+            }
+            pages.add(page.append(footer).toString());
+            return Collections.unmodifiableList(pages);
+        }
+    }
+
+    private static class HelpPages
+    {
+        private final List<String> pages;
+        private final Map<String, List<String>> categories;
+
+        private HelpPages(List<String> pages, Map<String, List<String>> categories)
+        {
+            this.pages = pages;
+            this.categories = categories;
         }
     }
 }
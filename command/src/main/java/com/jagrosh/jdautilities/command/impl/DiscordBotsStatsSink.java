@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.StatsSink;
+import net.dv8tion.jda.api.JDA;
+import okhttp3.*;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link com.jagrosh.jdautilities.command.StatsSink StatsSink} posting the guild count
+ * of each shard to <a href="https://discord.bots.gg/">Discord Bots</a>.
+ *
+ * <p>The total guild count of the bot is read back from the response.
+ */
+public class DiscordBotsStatsSink implements StatsSink
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DiscordBotsStatsSink.class);
+    private static final String DEFAULT_URL = "https://discord.bots.gg/api/v1/bots/";
+
+    private final String key;
+    private final String baseUrl;
+
+    /**
+     * Constructs a new DiscordBotsStatsSink.
+     *
+     * @param  key
+     *         The Discord Bots API key
+     */
+    public DiscordBotsStatsSink(String key)
+    {
+        this(key, DEFAULT_URL);
+    }
+
+    /**
+     * Constructs a new DiscordBotsStatsSink posting to a custom endpoint.
+     *
+     * @param  key
+     *         The Discord Bots API key
+     * @param  baseUrl
+     *         The base URL of the API, to which {@code <bot id>/stats} is appended
+     */
+    public DiscordBotsStatsSink(String key, String baseUrl)
+    {
+        this.key = key;
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public CompletableFuture<Integer> publish(JDA jda, long guildCount)
+    {
+        JSONObject body = new JSONObject().put("guildCount", guildCount);
+        if(jda.getShardInfo() != null)
+        {
+            body.put("shardId", jda.getShardInfo().getShardId())
+                .put("shardCount", jda.getShardInfo().getShardTotal());
+        }
+
+        Request.Builder builder = new Request.Builder()
+                .post(RequestBody.create(MediaType.parse("application/json"), body.toString()))
+                .url(baseUrl + jda.getSelfUser().getId() + "/stats")
+                .header("Authorization", key)
+                .header("Content-Type", "application/json");
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        jda.getHttpClient().newCall(builder.build()).enqueue(new Callback()
+        {
+            @Override
+            public void onResponse(Call call, Response response) throws IOException
+            {
+                try(Response ignored = response)
+                {
+                    if(!response.isSuccessful())
+                    {
+                        future.completeExceptionally(new IOException("Failed to send information to discord.bots.gg: "
+                            + response.body().string()));
+                        return;
+                    }
+                    LOG.info("Successfully sent information to discord.bots.gg");
+                    try(Reader reader = response.body().charStream())
+                    {
+                        future.complete(new JSONObject(new JSONTokener(reader)).getInt("guildCount"));
+                    }
+                    catch(Exception ex)
+                    {
+                        LOG.error("Failed to retrieve bot shard information from discord.bots.gg ", ex);
+                        future.complete(null);
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.AutoCompleteProvider;
+import net.dv8tion.jda.api.entities.Emote;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.ISnowflake;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.VoiceChannel;
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.utils.cache.CacheView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An {@link com.jagrosh.jdautilities.command.AutoCompleteProvider AutoCompleteProvider} suggesting
+ * entities of the {@link net.dv8tion.jda.api.entities.Guild Guild} a command is used in, such as
+ * its roles or members, by their name. The value of each choice is the ID of its entity.
+ *
+ * <p>Rather than scanning the cache of the guild for every request, the entities of each guild are
+ * indexed in a {@link PrefixAutoCompleteProvider PrefixAutoCompleteProvider}, which is rebuilt when it
+ * is used after its refresh delay. Suggestions may therefore miss entities created during that delay.
+ *
+ * <p>In direct messages, nothing is suggested.
+ */
+public class EntityAutoCompleteProvider implements AutoCompleteProvider
+{
+    private static final long DEFAULT_REFRESH_SECONDS = 60;
+
+    private final Function<Guild, Collection<Choice>> source;
+    private final long refreshAfter;
+    private final ConcurrentHashMap<Long, Index> indices = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an EntityAutoCompleteProvider suggesting the choices provided for each guild.
+     *
+     * @param  source
+     *         Provides the choices to suggest in a guild
+     * @param  refreshAfter
+     *         How long the choices of a guild are used before they are provided again
+     * @param  unit
+     *         The unit of {@code refreshAfter}
+     */
+    public EntityAutoCompleteProvider(Function<Guild, Collection<Choice>> source, long refreshAfter, TimeUnit unit)
+    {
+        this.source = source;
+        this.refreshAfter = unit.toNanos(refreshAfter);
+    }
+
+    /**
+     * Creates an EntityAutoCompleteProvider suggesting the roles of a guild, except for its public role.
+     *
+     * @return The EntityAutoCompleteProvider
+     */
+    public static EntityAutoCompleteProvider roles()
+    {
+        return new EntityAutoCompleteProvider(choices(Guild::getRoleCache, Role::getName, role -> !role.isPublicRole()),
+            DEFAULT_REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates an EntityAutoCompleteProvider suggesting the cached members of a guild, by their effective name.
+     * <br>Only the members in the member cache are suggested, which depends on the
+     * {@link net.dv8tion.jda.api.utils.MemberCachePolicy MemberCachePolicy} of the bot.
+     *
+     * @return The EntityAutoCompleteProvider
+     */
+    public static EntityAutoCompleteProvider members()
+    {
+        return new EntityAutoCompleteProvider(choices(Guild::getMemberCache, Member::getEffectiveName, member -> true),
+            DEFAULT_REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates an EntityAutoCompleteProvider suggesting the text channels of a guild.
+     *
+     * @return The EntityAutoCompleteProvider
+     */
+    public static EntityAutoCompleteProvider textChannels()
+    {
+        return new EntityAutoCompleteProvider(choices(Guild::getTextChannelCache, TextChannel::getName, channel -> true),
+            DEFAULT_REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates an EntityAutoCompleteProvider suggesting the voice channels of a guild.
+     *
+     * @return The EntityAutoCompleteProvider
+     */
+    public static EntityAutoCompleteProvider voiceChannels()
+    {
+        return new EntityAutoCompleteProvider(choices(Guild::getVoiceChannelCache, VoiceChannel::getName, channel -> true),
+            DEFAULT_REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates an EntityAutoCompleteProvider suggesting the emotes of a guild.
+     *
+     * @return The EntityAutoCompleteProvider
+     */
+    public static EntityAutoCompleteProvider emotes()
+    {
+        return new EntityAutoCompleteProvider(choices(Guild::getEmoteCache, Emote::getName, emote -> true),
+            DEFAULT_REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public List<Choice> complete(CommandAutoCompleteEvent event, String input)
+    {
+        Guild guild = event.getGuild();
+        if(guild == null)
+            return Collections.emptyList();
+        return getIndex(guild).provider.complete(input, OptionData.MAX_CHOICES);
+    }
+
+    /**
+     * Removes the index of a {@link net.dv8tion.jda.api.entities.Guild Guild}, so that its
+     * choices are provided again the next time they are suggested.
+     *
+     * @param  guild
+     *         The guild whose entities changed
+     */
+    public void invalidate(Guild guild)
+    {
+        indices.remove(guild.getIdLong());
+    }
+
+    /**
+     * Removes the indices of all guilds.
+     */
+    public void invalidateAll()
+    {
+        indices.clear();
+    }
+
+    private Index getIndex(Guild guild)
+    {
+        long now = System.nanoTime();
+        Index index = indices.get(guild.getIdLong());
+        if(index != null && now - index.builtAt < refreshAfter)
+            return index;
+
+        // Concurrent requests of the same guild wait for a single rebuild
+        index = indices.compute(guild.getIdLong(), (id, old) ->
+            old != null && now - old.builtAt < refreshAfter ? old : new Index(new PrefixAutoCompleteProvider(source.apply(guild)), now));
+        // Stale indices would be rebuilt anyway, drop them rather than keeping every guild ever seen
+        indices.values().removeIf(other -> now - other.builtAt >= refreshAfter);
+        return index;
+    }
+
+    private static <E extends ISnowflake> Function<Guild, Collection<Choice>> choices(Function<Guild, ? extends CacheView<E>> cache,
+                                                                                        Function<E, String> name, Predicate<E> filter)
+    {
+        return guild ->
+        {
+            CacheView<E> view = cache.apply(guild);
+            List<Choice> choices = new ArrayList<>((int) view.size());
+            view.forEach(entity ->
+            {
+                if(filter.test(entity))
+                    choices.add(new Choice(name.apply(entity), entity.getId()));
+            });
+            return choices;
+        };
+    }
+
+    private static final class Index
+    {
+        private final PrefixAutoCompleteProvider provider;
+        private final long builtAt;
+
+        private Index(PrefixAutoCompleteProvider provider, long builtAt)
+        {
+            this.provider = provider;
+            this.builtAt = builtAt;
+        }
+    }
+}
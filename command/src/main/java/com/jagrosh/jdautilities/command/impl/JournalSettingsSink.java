@@ -0,0 +1,336 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.SettingsSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link com.jagrosh.jdautilities.command.SettingsSink SettingsSink} that appends each batch of changes to
+ * a journal file, and periodically compacts the journal into a snapshot of the latest settings of every guild.
+ *
+ * <p>Both files are stored in a directory, as {@code settings.snapshot} and {@code settings.journal}.
+ * They use the same compact binary format: a sequence of frames, each made of a record count, the records
+ * (guild ID, length and encoded settings, or a length of {@code -1} for removed settings), and a CRC32 of
+ * the records. A frame is only applied on load if it is complete and its checksum matches, so a batch
+ * interrupted by a crash is discarded as a whole and cut off the journal.
+ *
+ * <p>Loading only reads the snapshot and the journal written since the last compaction, so restarts stay
+ * fast regardless of how many changes were made over the lifetime of the bot.
+ *
+ * @param  <T>
+ *         The type of settings
+ */
+public class JournalSettingsSink<T> implements SettingsSink<T>
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JournalSettingsSink.class);
+    private static final String SNAPSHOT = "settings.snapshot";
+    private static final String JOURNAL = "settings.journal";
+    private static final int REMOVED = -1;
+
+    private final Path directory;
+    private final Codec<T> codec;
+    private final long compactThreshold;
+    // The latest encoded settings of every guild, written out on compaction
+    private final Map<Long, byte[]> state = new HashMap<>();
+    private FileChannel journal;
+
+    /**
+     * Constructs a new JournalSettingsSink, compacting the journal once it reaches 4 MiB.
+     *
+     * @param  directory
+     *         The directory to store the snapshot and journal in
+     * @param  codec
+     *         The codec used to encode and decode settings
+     */
+    public JournalSettingsSink(Path directory, Codec<T> codec)
+    {
+        this(directory, codec, 4L * 1024 * 1024);
+    }
+
+    /**
+     * Constructs a new JournalSettingsSink.
+     *
+     * @param  directory
+     *         The directory to store the snapshot and journal in
+     * @param  codec
+     *         The codec used to encode and decode settings
+     * @param  compactThreshold
+     *         The size of the journal, in bytes, after which it is compacted into the snapshot
+     */
+    public JournalSettingsSink(Path directory, Codec<T> codec, long compactThreshold)
+    {
+        this.directory = directory;
+        this.codec = codec;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @Override
+    public synchronized Map<Long, T> load() throws IOException
+    {
+        Files.createDirectories(directory);
+        state.clear();
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if(Files.exists(snapshot))
+            replay(snapshot, false);
+        Path journalFile = directory.resolve(JOURNAL);
+        if(Files.exists(journalFile))
+            replay(journalFile, true);
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal.position(journal.size());
+
+        Map<Long, T> settings = new HashMap<>(state.size() * 4 / 3 + 1);
+        for(Map.Entry<Long, byte[]> entry : state.entrySet())
+            settings.put(entry.getKey(), codec.decode(entry.getValue()));
+        return settings;
+    }
+
+    @Override
+    public synchronized void write(Map<Long, T> changes) throws IOException
+    {
+        if(journal == null)
+            throw new IllegalStateException("Settings must be loaded before being written!");
+        if(changes.isEmpty())
+            return;
+        Map<Long, byte[]> encoded = new HashMap<>(changes.size() * 4 / 3 + 1);
+        for(Map.Entry<Long, T> entry : changes.entrySet())
+            encoded.put(entry.getKey(), entry.getValue() == null ? null : codec.encode(entry.getValue()));
+
+        long position = journal.position();
+        try
+        {
+            writeFully(journal, frame(encoded));
+            journal.force(false);
+        }
+        catch(IOException ex)
+        {
+            // Never leave a partial frame behind the ones we still have to append
+            journal.truncate(position);
+            journal.position(position);
+            throw ex;
+        }
+
+        for(Map.Entry<Long, byte[]> entry : encoded.entrySet())
+        {
+            if(entry.getValue() == null)
+                state.remove(entry.getKey());
+            else
+                state.put(entry.getKey(), entry.getValue());
+        }
+
+        if(journal.size() >= compactThreshold)
+        {
+            try
+            {
+                compact();
+            }
+            catch(IOException ex)
+            {
+                // The batch itself is durable in the journal, compaction will be retried on the next write
+                LOG.warn("Failed to compact settings journal", ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the latest settings of every guild to a new snapshot, and empties the journal.
+     *
+     * @throws IOException
+     *         If the snapshot could not be written
+     */
+    public synchronized void compact() throws IOException
+    {
+        if(journal == null)
+            throw new IllegalStateException("Settings must be loaded before being compacted!");
+        Path snapshot = directory.resolve(SNAPSHOT);
+        Path temp = directory.resolve(SNAPSHOT + ".tmp");
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            writeFully(channel, frame(state));
+            channel.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // If we crash before this, replaying the old journal over the new snapshot yields the same state
+        journal.truncate(0);
+        journal.position(0);
+        journal.force(true);
+        LOG.debug("Compacted settings journal into a snapshot of {} guilds", state.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if(journal != null)
+        {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private void replay(Path file, boolean truncateTail) throws IOException
+    {
+        long valid = 0;
+        long size = Files.size(file);
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            while(valid < size)
+            {
+                Map<Long, byte[]> records = new HashMap<>();
+                long length = readFrame(in, records, size - valid);
+                if(length < 0)
+                    break;
+                state.putAll(records);
+                records.forEach((id, value) -> {
+                    if(value == null)
+                        state.remove(id);
+                });
+                valid += length;
+            }
+        }
+        if(valid < size)
+        {
+            LOG.warn("Discarding {} bytes of incomplete or corrupt settings at the end of {}", size - valid, file);
+            if(truncateTail)
+            {
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+                {
+                    channel.truncate(valid);
+                }
+            }
+        }
+    }
+
+    // Returns the length of the frame read, or -1 if it is incomplete or corrupt.
+    // Sizes are checked against the bytes left in the file, so a corrupt size cannot allocate more than that.
+    private static long readFrame(DataInputStream in, Map<Long, byte[]> records, long remaining)
+    {
+        try
+        {
+            int count = in.readInt();
+            long headerLength = Long.BYTES + Integer.BYTES;
+            if(count < 0 || count > (remaining - Integer.BYTES - Long.BYTES) / headerLength)
+                return -1;
+            CRC32 crc = new CRC32();
+            long length = Integer.BYTES;
+            byte[] header = new byte[Long.BYTES + Integer.BYTES];
+            for(int i = 0; i < count; i++)
+            {
+                in.readFully(header);
+                crc.update(header);
+                ByteBuffer buffer = ByteBuffer.wrap(header);
+                long id = buffer.getLong();
+                int size = buffer.getInt();
+                length += header.length;
+                if(size == REMOVED)
+                {
+                    records.put(id, null);
+                    continue;
+                }
+                if(size < 0 || size > remaining - length - Long.BYTES)
+                    return -1;
+                byte[] value = new byte[size];
+                in.readFully(value);
+                crc.update(value);
+                length += size;
+                records.put(id, value);
+            }
+            if(in.readLong() != crc.getValue())
+                return -1;
+            return length + Long.BYTES;
+        }
+        catch(IOException ex)
+        {
+            // EOFException on a torn write
+            return -1;
+        }
+    }
+
+    private static ByteBuffer frame(Map<Long, byte[]> records)
+    {
+        int length = Integer.BYTES + Long.BYTES;
+        for(byte[] value : records.values())
+            length += Long.BYTES + Integer.BYTES + (value == null ? 0 : value.length);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(records.size());
+        for(Map.Entry<Long, byte[]> entry : records.entrySet())
+        {
+            byte[] value = entry.getValue();
+            buffer.putLong(entry.getKey());
+            buffer.putInt(value == null ? REMOVED : value.length);
+            if(value != null)
+                buffer.put(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), Integer.BYTES, buffer.position() - Integer.BYTES);
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Encodes and decodes settings to and from bytes for a {@link JournalSettingsSink}.
+     *
+     * @param  <T>
+     *         The type of settings
+     */
+    public interface Codec<T>
+    {
+        /**
+         * Encodes settings into bytes.
+         *
+         * @param  settings
+         *         The non-null settings to encode
+         *
+         * @return The encoded settings
+         *
+         * @throws IOException
+         *         If the settings could not be encoded
+         */
+        byte[] encode(T settings) throws IOException;
+
+        /**
+         * Decodes settings previously encoded by {@link #encode(Object)}.
+         *
+         * @param  bytes
+         *         The encoded settings
+         *
+         * @return The decoded settings
+         *
+         * @throws IOException
+         *         If the settings could not be decoded
+         */
+        T decode(byte[] bytes) throws IOException;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.AutoCompleteProvider;
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An {@link com.jagrosh.jdautilities.command.AutoCompleteProvider AutoCompleteProvider} suggesting the
+ * choices whose name is the most similar to the input, ignoring case.
+ *
+ * <p>Names are compared by their trigrams, the sequences of three characters they contain, so
+ * suggestions tolerate typos and words typed in another order. Choices sharing at least half of the
+ * trigrams of the input are suggested, the ones sharing the most first, then the shortest first.
+ *
+ * <p>Every trigram is mapped to the choices containing it once, when the provider is created, so a
+ * lookup only reads the choices sharing a trigram with the input.
+ */
+public class NGramAutoCompleteProvider implements AutoCompleteProvider
+{
+    private static final int[] NONE = new int[0];
+
+    private final Choice[] choices;
+    private final int[] lengths;
+    private final Map<Long, int[]> index;
+
+    /**
+     * Creates a NGramAutoCompleteProvider suggesting the provided choices.
+     *
+     * @param  choices
+     *         The choices to suggest
+     */
+    public NGramAutoCompleteProvider(Collection<Choice> choices)
+    {
+        this.choices = choices.toArray(new Choice[0]);
+        this.lengths = new int[this.choices.length];
+        Map<Long, int[]> index = new HashMap<>();
+        for(int i = 0; i < this.choices.length; i++)
+        {
+            String name = this.choices[i].getName().toLowerCase(Locale.ROOT);
+            lengths[i] = name.length();
+            String padded = "  " + name + " ";
+            for(int j = 0; j + 3 <= padded.length(); j++)
+            {
+                // Postings are built in choice order, with their size in the first slot
+                int[] postings = index.get(gram(padded, j));
+                if(postings == null)
+                    index.put(gram(padded, j), postings = new int[]{0, 0, 0, 0});
+                else if(postings[0] > 0 && postings[postings[0]] == i)
+                    continue;
+                else if(postings[0] + 1 == postings.length)
+                    index.put(gram(padded, j), postings = Arrays.copyOf(postings, postings.length * 2));
+                postings[++postings[0]] = i;
+            }
+        }
+        index.replaceAll((gram, postings) -> Arrays.copyOfRange(postings, 1, postings[0] + 1));
+        this.index = index;
+    }
+
+    /**
+     * Creates a NGramAutoCompleteProvider suggesting the provided values, each of them
+     * being both the name and the value of its choice.
+     *
+     * @param  values
+     *         The values to suggest
+     *
+     * @return The NGramAutoCompleteProvider
+     */
+    public static NGramAutoCompleteProvider ofStrings(Collection<String> values)
+    {
+        List<Choice> choices = new ArrayList<>(values.size());
+        for(String value : values)
+            choices.add(new Choice(value, value));
+        return new NGramAutoCompleteProvider(choices);
+    }
+
+    @Override
+    public List<Choice> complete(CommandAutoCompleteEvent event, String input)
+    {
+        return complete(input, OptionData.MAX_CHOICES);
+    }
+
+    /**
+     * Gets the choices whose name is the most similar to the provided input.
+     * <br>If the input is empty, the first choices this provider was created with are returned.
+     *
+     * @param  input
+     *         The input to complete
+     * @param  limit
+     *         The maximum number of choices to return
+     *
+     * @return The matching choices, the most similar first, at most {@code limit} of them
+     */
+    public List<Choice> complete(String input, int limit)
+    {
+        if(limit <= 0)
+            return Collections.emptyList();
+        if(input.isEmpty())
+            return Arrays.asList(Arrays.copyOf(choices, Math.min(limit, choices.length)));
+
+        // Count the trigrams of the input shared by each choice
+        String padded = "  " + input.toLowerCase(Locale.ROOT);
+        int[] scores = new int[choices.length];
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        int grams = 0;
+        for(int j = 0; j + 3 <= padded.length(); j++)
+        {
+            if(padded.indexOf(padded.substring(j, j + 3)) < j)
+                continue; // Repeated trigram
+            grams++;
+            for(int id : index.getOrDefault(gram(padded, j), NONE))
+            {
+                if(scores[id]++ == 0)
+                {
+                    if(candidateCount == candidates.length)
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    candidates[candidateCount++] = id;
+                }
+            }
+        }
+
+        // Keep the best matches, sorted
+        int[] best = new int[limit];
+        int count = 0;
+        for(int c = 0; c < candidateCount; c++)
+        {
+            int id = candidates[c];
+            if(scores[id] * 2 < grams || (count == limit && !isBetter(id, best[count - 1], scores)))
+                continue;
+            int i = count == limit ? limit - 1 : count++;
+            for(; i > 0 && isBetter(id, best[i - 1], scores); i--)
+                best[i] = best[i - 1];
+            best[i] = id;
+        }
+
+        List<Choice> result = new ArrayList<>(count);
+        for(int i = 0; i < count; i++)
+            result.add(choices[best[i]]);
+        return result;
+    }
+
+    /**
+     * Gets the number of choices suggested by this provider.
+     *
+     * @return The number of choices
+     */
+    public int size()
+    {
+        return choices.length;
+    }
+
+    private boolean isBetter(int id, int other, int[] scores)
+    {
+        if(scores[id] != scores[other])
+            return scores[id] > scores[other];
+        if(lengths[id] != lengths[other])
+            return lengths[id] < lengths[other];
+        return id < other;
+    }
+
+    private static Long gram(String text, int start)
+    {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.AutoCompleteProvider;
+import net.dv8tion.jda.api.events.interaction.CommandAutoCompleteEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An {@link com.jagrosh.jdautilities.command.AutoCompleteProvider AutoCompleteProvider} suggesting the
+ * choices whose name, or a word of whose name, starts with the input, ignoring case.
+ *
+ * <p>Choices whose name starts with the input are suggested first, in alphabetical order, followed by
+ * the choices with another word starting with the input. Names and words are indexed once, when the
+ * provider is created, into sorted arrays: a lookup is a binary search followed by reading the
+ * matches in order, so it takes a few microseconds even for hundreds of thousands of choices.
+ */
+public class PrefixAutoCompleteProvider implements AutoCompleteProvider
+{
+    private final Choice[] choices;
+    private final String[] names;
+    private final int[] nameIds;
+    private final String[] words;
+    private final int[] wordIds;
+
+    /**
+     * Creates a PrefixAutoCompleteProvider suggesting the provided choices.
+     *
+     * @param  choices
+     *         The choices to suggest
+     */
+    public PrefixAutoCompleteProvider(Collection<Choice> choices)
+    {
+        this.choices = choices.toArray(new Choice[0]);
+        List<Key> names = new ArrayList<>(this.choices.length);
+        List<Key> words = new ArrayList<>();
+        for(int i = 0; i < this.choices.length; i++)
+        {
+            String name = this.choices[i].getName().toLowerCase(Locale.ROOT);
+            names.add(new Key(name, i));
+            for(int j = name.indexOf(' '); j != -1; j = name.indexOf(' ', j + 1))
+            {
+                if(j + 1 < name.length() && name.charAt(j + 1) != ' ')
+                    words.add(new Key(name.substring(j + 1), i));
+            }
+        }
+        this.names = new String[names.size()];
+        this.nameIds = new int[names.size()];
+        sort(names, this.names, this.nameIds);
+        this.words = new String[words.size()];
+        this.wordIds = new int[words.size()];
+        sort(words, this.words, this.wordIds);
+    }
+
+    /**
+     * Creates a PrefixAutoCompleteProvider suggesting the provided values, each of them
+     * being both the name and the value of its choice.
+     *
+     * @param  values
+     *         The values to suggest
+     *
+     * @return The PrefixAutoCompleteProvider
+     */
+    public static PrefixAutoCompleteProvider ofStrings(Collection<String> values)
+    {
+        List<Choice> choices = new ArrayList<>(values.size());
+        for(String value : values)
+            choices.add(new Choice(value, value));
+        return new PrefixAutoCompleteProvider(choices);
+    }
+
+    @Override
+    public List<Choice> complete(CommandAutoCompleteEvent event, String input)
+    {
+        return complete(input, OptionData.MAX_CHOICES);
+    }
+
+    /**
+     * Gets the choices whose name, or a word of whose name, starts with the provided input.
+     * <br>If the input is empty, the first choices this provider was created with are returned.
+     *
+     * @param  input
+     *         The input to complete
+     * @param  limit
+     *         The maximum number of choices to return
+     *
+     * @return The matching choices, at most {@code limit} of them
+     */
+    public List<Choice> complete(String input, int limit)
+    {
+        if(limit <= 0)
+            return Collections.emptyList();
+        String prefix = input.toLowerCase(Locale.ROOT);
+        if(prefix.isEmpty())
+            return Arrays.asList(Arrays.copyOf(choices, Math.min(limit, choices.length)));
+
+        int[] found = new int[limit];
+        int count = collect(names, nameIds, prefix, found, 0);
+        if(count < limit)
+            count = collect(words, wordIds, prefix, found, count);
+
+        List<Choice> result = new ArrayList<>(count);
+        for(int i = 0; i < count; i++)
+            result.add(choices[found[i]]);
+        return result;
+    }
+
+    @Override
+    public List<Choice> narrow(List<Choice> choices, String input)
+    {
+        // The choices matching a longer input are all among the ones matching a shorter one,
+        // so matching them again, in the same order as a lookup, gives the same suggestions
+        String prefix = input.toLowerCase(Locale.ROOT);
+        if(prefix.isEmpty())
+            return choices;
+        List<Key> names = new ArrayList<>();
+        List<Key> words = new ArrayList<>();
+        for(int i = 0; i < choices.size(); i++)
+        {
+            String name = choices.get(i).getName().toLowerCase(Locale.ROOT);
+            if(name.startsWith(prefix))
+            {
+                names.add(new Key(name, i));
+                continue;
+            }
+            // A choice is found by the first of its words that matches
+            String first = null;
+            for(int j = name.indexOf(' '); j != -1; j = name.indexOf(' ', j + 1))
+            {
+                if(name.startsWith(prefix, j + 1) && name.charAt(j + 1) != ' '
+                    && (first == null || name.substring(j + 1).compareTo(first) < 0))
+                    first = name.substring(j + 1);
+            }
+            if(first != null)
+                words.add(new Key(first, i));
+        }
+        names.sort(null);
+        words.sort(null);
+        List<Choice> result = new ArrayList<>(names.size() + words.size());
+        for(Key key : names)
+            result.add(choices.get(key.id));
+        for(Key key : words)
+            result.add(choices.get(key.id));
+        return result;
+    }
+
+    /**
+     * Gets the number of choices suggested by this provider.
+     *
+     * @return The number of choices
+     */
+    public int size()
+    {
+        return choices.length;
+    }
+
+    private static int collect(String[] keys, int[] ids, String prefix, int[] found, int count)
+    {
+        for(int i = lowerBound(keys, prefix); i < keys.length && count < found.length && keys[i].startsWith(prefix); i++)
+        {
+            // A choice can match by its name and several of its words
+            if(!contains(found, count, ids[i]))
+                found[count++] = ids[i];
+        }
+        return count;
+    }
+
+    private static int lowerBound(String[] keys, String prefix)
+    {
+        int low = 0;
+        int high = keys.length;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(keys[mid].compareTo(prefix) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static boolean contains(int[] found, int count, int id)
+    {
+        for(int i = 0; i < count; i++)
+        {
+            if(found[i] == id)
+                return true;
+        }
+        return false;
+    }
+
+    private static void sort(List<Key> keys, String[] sorted, int[] ids)
+    {
+        keys.sort(null);
+        for(int i = 0; i < sorted.length; i++)
+        {
+            Key key = keys.get(i);
+            sorted[i] = key.key;
+            ids[i] = key.id;
+        }
+    }
+
+    private static final class Key implements Comparable<Key>
+    {
+        private final String key;
+        private final int id;
+
+        private Key(String key, int id)
+        {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other)
+        {
+            int compared = key.compareTo(other.key);
+            return compared != 0 ? compared : Integer.compare(id, other.id);
+        }
+    }
+}
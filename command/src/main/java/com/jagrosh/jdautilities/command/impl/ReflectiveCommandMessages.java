@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.CommandEvent;
+import com.jagrosh.jdautilities.command.CommandMessages;
+import net.dv8tion.jda.api.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The default {@link com.jagrosh.jdautilities.command.CommandMessages CommandMessages}, which delegate to the
+ * {@code MessageHelper} and {@code UnicodeCharacters} classes of the bot if they are present.
+ *
+ * <p>These classes are looked up reflectively once, when the messages are first needed.
+ * If they are not present, messages fall back to their keys and to the defaults of CommandMessages.
+ */
+public final class ReflectiveCommandMessages implements CommandMessages
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CommandMessages.class);
+    private static final String MESSAGE_HELPER = "net.thesimpleteam.simplebot.utils.MessageHelper";
+    private static final String UNICODE_CHARACTERS = "net.thesimpleteam.simplebot.utils.UnicodeCharacters";
+
+    // Created after the constants above, which its constructor uses
+    public static final ReflectiveCommandMessages INSTANCE = new ReflectiveCommandMessages();
+
+    private final MethodHandle translateMessage;
+    private final MethodHandle getTag;
+    private final String errorEmoji;
+
+    private ReflectiveCommandMessages()
+    {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle translateMessage = null, getTag = null;
+        String errorEmoji = null;
+        try
+        {
+            Class<?> messageHelper = Class.forName(MESSAGE_HELPER);
+            translateMessage = lookup.findStatic(messageHelper, "translateMessage",
+                MethodType.methodType(String.class, String.class, CommandEvent.class));
+            getTag = lookup.findStatic(messageHelper, "getTag", MethodType.methodType(String.class, User.class));
+        }
+        catch(ReflectiveOperationException | LinkageError e)
+        {
+            LOG.debug("No MessageHelper found, falling back to message keys", e);
+            translateMessage = getTag = null;
+        }
+        try
+        {
+            errorEmoji = String.valueOf(Class.forName(UNICODE_CHARACTERS).getField("crossMarkEmoji").get(null));
+        }
+        catch(ReflectiveOperationException | LinkageError e)
+        {
+            LOG.debug("No UnicodeCharacters found, using the default error emoji", e);
+        }
+        this.translateMessage = translateMessage;
+        this.getTag = getTag;
+        this.errorEmoji = errorEmoji;
+    }
+
+    @Override
+    public String translate(String key, CommandEvent event)
+    {
+        if(translateMessage == null)
+            return key;
+        try
+        {
+            return (String) translateMessage.invokeExact(key, event);
+        }
+        catch(Throwable t)
+        {
+            LOG.error("Could not translate message {}", key, t);
+            return key;
+        }
+    }
+
+    @Override
+    public String getTag(User user)
+    {
+        if(getTag == null)
+            return CommandMessages.super.getTag(user);
+        try
+        {
+            return (String) getTag.invokeExact(user);
+        }
+        catch(Throwable t)
+        {
+            LOG.error("Could not get the tag of a user", t);
+            return CommandMessages.super.getTag(user);
+        }
+    }
+
+    @Override
+    public String getErrorEmoji()
+    {
+        return errorEmoji != null ? errorEmoji : CommandMessages.super.getErrorEmoji();
+    }
+}
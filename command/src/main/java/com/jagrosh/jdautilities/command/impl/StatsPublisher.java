@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.StatsSink;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes guild statistics to a set of {@link com.jagrosh.jdautilities.command.StatsSink StatsSink}s.
+ *
+ * <p>Updates requested through {@link #requestUpdate(JDA)} are not sent right away: the shard is marked
+ * as dirty and a single publication is scheduled on the client's executor. Any further updates requested
+ * before that publication runs are coalesced into it, so a burst of guild joins or leaves results in at
+ * most one request per shard and per sink every {@code delay}.
+ *
+ * <p>Guild counts are taken from the {@link net.dv8tion.jda.api.utils.cache.SnowflakeCacheView#size() size}
+ * of the guild caches, and the {@linkplain #getTotalGuilds() total} is aggregated across all shards of the
+ * {@link net.dv8tion.jda.api.sharding.ShardManager ShardManager} when there is one.
+ */
+public class StatsPublisher
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StatsPublisher.class);
+
+    private final ScheduledExecutorService executor;
+    private final List<StatsSink> sinks;
+    private final long delay;
+    private final Map<Integer, JDA> dirty = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private volatile int totalGuilds;
+
+    /**
+     * Constructs a new StatsPublisher.
+     *
+     * @param  executor
+     *         The executor to schedule publications on
+     * @param  sinks
+     *         The sinks to publish to
+     * @param  delay
+     *         The minimum delay between two publications
+     * @param  unit
+     *         The unit of the delay
+     */
+    public StatsPublisher(ScheduledExecutorService executor, List<StatsSink> sinks, long delay, TimeUnit unit)
+    {
+        this.executor = executor;
+        this.sinks = sinks;
+        this.delay = unit.toMillis(delay);
+    }
+
+    /**
+     * Marks the provided shard as needing a publication, and schedules one
+     * if none is pending yet.
+     *
+     * @param  jda
+     *         The shard whose guild count changed
+     */
+    public void requestUpdate(JDA jda)
+    {
+        int shardId = jda.getShardInfo() == null ? 0 : jda.getShardInfo().getShardId();
+        dirty.put(shardId, jda);
+        if(!scheduled.compareAndSet(false, true))
+            return;
+        try
+        {
+            executor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+        catch(RejectedExecutionException ex)
+        {
+            // The executor was shut down, so the update is dropped rather than thrown on the event thread
+            scheduled.set(false);
+            LOG.warn("Could not schedule a publication of guild statistics, the executor is shut down");
+        }
+    }
+
+    /**
+     * Immediately publishes every shard that has a pending update.
+     */
+    public void flush()
+    {
+        // Reset before draining so that updates racing with this flush schedule a new one
+        scheduled.set(false);
+
+        Iterator<JDA> iterator = dirty.values().iterator();
+        while(iterator.hasNext())
+        {
+            JDA jda = iterator.next();
+            iterator.remove();
+            publish(jda);
+        }
+    }
+
+    /**
+     * Gets the total number of guilds, as last reported by a sink or,
+     * if none reports it, as counted from the guild caches.
+     *
+     * @return The total number of guilds
+     */
+    public int getTotalGuilds()
+    {
+        return totalGuilds;
+    }
+
+    private void publish(JDA jda)
+    {
+        ShardManager shardManager = jda.getShardManager();
+        totalGuilds = (int) (shardManager != null ? shardManager.getGuildCache().size() : jda.getGuildCache().size());
+
+        long guildCount = jda.getGuildCache().size();
+        for(StatsSink sink : sinks)
+        {
+            try
+            {
+                sink.publish(jda, guildCount).whenComplete((total, t) ->
+                {
+                    if(t != null)
+                        LOG.error("Failed to publish guild statistics with {}", sink.getClass().getSimpleName(), t);
+                    else if(total != null)
+                        totalGuilds = total;
+                });
+            }
+            catch(Exception ex)
+            {
+                LOG.error("Failed to publish guild statistics with {}", sink.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+}
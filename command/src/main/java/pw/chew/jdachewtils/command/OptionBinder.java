@@ -0,0 +1,407 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard) & Olivia (Chew)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pw.chew.jdachewtils.command;
+
+import com.jagrosh.jdautilities.command.SlashCommand;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.IMentionable;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds the options of a slash command invocation to the fields or constructor
+ * parameters of a class annotated with {@link Option @Option}.
+ *
+ * <p>Bindings are checked once, when the binder is created, against the
+ * {@link SlashCommand#getOptions() options} of the command: binding a name that is not
+ * an option of the command, or binding an option to a type it cannot be converted to,
+ * fails with an {@link IllegalArgumentException} instead of failing on the first
+ * invocation. Every binding is compiled to a {@link MethodHandle}, so binding an
+ * invocation does not use reflection and does not box primitive values.
+ *
+ * <pre><code>
+ * public class BanOptions {
+ *     {@literal @}OptionBinder.Option("user") public User user;
+ *     {@literal @}OptionBinder.Option("days") public int days = 1;
+ * }
+ *
+ * private final OptionBinder&lt;BanOptions&gt; binder = OptionBinder.of(BanOptions.class, this);
+ *
+ * protected void execute(SlashCommandEvent event) {
+ *     BanOptions options = binder.bind(event);
+ * }</code></pre>
+ *
+ * <p>A class is created either with a constructor whose parameters are all annotated with
+ * {@link Option @Option}, which makes immutable classes and records bindable, or with its
+ * no-argument constructor. Annotated fields are set afterwards, except final fields, which
+ * must be bound by the constructor as the fields of records are. An option that is absent
+ * from an invocation leaves its field untouched, and passes {@code null}, {@code false}
+ * or {@code 0} to its constructor parameter.
+ *
+ * <p>Options can be bound to the following types:
+ * <ul>
+ *     <li>Any option: {@link OptionMapping} and {@link String}</li>
+ *     <li>{@link OptionType#INTEGER INTEGER}: {@code long}, {@code int} and their wrappers</li>
+ *     <li>{@link OptionType#NUMBER NUMBER}: {@code double} and {@link Double}</li>
+ *     <li>{@link OptionType#BOOLEAN BOOLEAN}: {@code boolean} and {@link Boolean}</li>
+ *     <li>{@link OptionType#USER USER}: {@link User}, {@link Member} and {@link IMentionable}</li>
+ *     <li>{@link OptionType#ROLE ROLE}: {@link Role} and {@link IMentionable}</li>
+ *     <li>{@link OptionType#MENTIONABLE MENTIONABLE}: {@link IMentionable}</li>
+ *     <li>{@link OptionType#CHANNEL CHANNEL}: {@link GuildChannel} and {@link MessageChannel}</li>
+ * </ul>
+ *
+ * <p>A binder is immutable and can be shared between invocations and threads.
+ *
+ * @param <T> The type options are bound to
+ */
+public final class OptionBinder<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, OptionMapping[].class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, OptionMapping.class);
+
+    private final Class<T> type;
+    private final String[] parameters;
+    private final MethodHandle constructor;
+    private final String[] fields;
+    private final MethodHandle[] setters;
+
+    private OptionBinder(Class<T> type, String[] parameters, MethodHandle constructor, String[] fields, MethodHandle[] setters) {
+        this.type = type;
+        this.parameters = parameters;
+        this.constructor = constructor;
+        this.fields = fields;
+        this.setters = setters;
+    }
+
+    /**
+     * Creates a binder for the provided class, checked against the options of the provided command.
+     *
+     * @param type    The class to bind options to
+     * @param command The command whose options are bound
+     * @param <T>     The type options are bound to
+     * @return A binder for the class
+     * @throws IllegalArgumentException If the class cannot be created, or one of its bindings
+     *                                  does not match an option of the command
+     */
+    @NotNull
+    public static <T> OptionBinder<T> of(@NotNull Class<T> type, @NotNull SlashCommand command) {
+        return of(type, command.getOptions());
+    }
+
+    /**
+     * Creates a binder for the provided class, checked against the provided options.
+     *
+     * @param type    The class to bind options to
+     * @param options The options that are bound
+     * @param <T>     The type options are bound to
+     * @return A binder for the class
+     * @throws IllegalArgumentException If the class cannot be created, or one of its bindings
+     *                                  does not match one of the options
+     */
+    @NotNull
+    public static <T> OptionBinder<T> of(@NotNull Class<T> type, @NotNull List<OptionData> options) {
+        Map<String, OptionData> byName = new HashMap<>();
+        for (OptionData option : options)
+            byName.put(option.getName(), option);
+
+        // Constructor
+        Constructor<?> constructor = findConstructor(type);
+        Parameter[] params = constructor.getParameters();
+        String[] parameters = new String[params.length];
+        MethodHandle[] extractors = new MethodHandle[params.length];
+        for (int i = 0; i < params.length; i++) {
+            String name = params[i].getAnnotation(Option.class).value();
+            if (name.isEmpty()) {
+                if (!params[i].isNamePresent())
+                    throw new IllegalArgumentException("Parameter " + i + " of the constructor of " + type.getName() + " must name its option!");
+                name = params[i].getName();
+            }
+            parameters[i] = name;
+            extractors[i] = extractor(byName, name, params[i].getType(), type);
+        }
+        MethodHandle create;
+        try {
+            constructor.setAccessible(true);
+            create = MethodHandles.filterArguments(LOOKUP.unreflectConstructor(constructor), 0, extractors)
+                .asSpreader(OptionMapping[].class, params.length)
+                .asType(CONSTRUCTOR_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("The constructor of " + type.getName() + " could not be accessed!", e);
+        }
+
+        // Fields
+        List<String> bound = Arrays.asList(parameters);
+        List<String> fields = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                Option option = field.getAnnotation(Option.class);
+                if (option == null)
+                    continue;
+                if (Modifier.isStatic(field.getModifiers()))
+                    throw new IllegalArgumentException("Field named " + field.getName() + " in " + type.getName() + " cannot be static!");
+                String name = option.value().isEmpty() ? field.getName() : option.value();
+                // Final fields, like the fields records copy the annotations of their components to, are set by the constructor
+                if (Modifier.isFinal(field.getModifiers())) {
+                    if (!bound.contains(name))
+                        throw new IllegalArgumentException("Final field named " + field.getName() + " in " + type.getName() + " is not bound by the constructor!");
+                    continue;
+                }
+                MethodHandle extractor = extractor(byName, name, field.getType(), type);
+                try {
+                    field.setAccessible(true);
+                    setters.add(MethodHandles.filterArguments(LOOKUP.unreflectSetter(field), 1, extractor).asType(SETTER_TYPE));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalArgumentException("Field named " + field.getName() + " in " + type.getName() + " could not be accessed!", e);
+                }
+                fields.add(name);
+            }
+        }
+
+        return new OptionBinder<>(type, parameters, create, fields.toArray(new String[0]), setters.toArray(new MethodHandle[0]));
+    }
+
+    /**
+     * Binds the options of the provided event to a new instance.
+     *
+     * @param event The slash command event to get options from
+     * @return A new instance with the options of the event
+     */
+    @NotNull
+    public T bind(@NotNull SlashCommandEvent event) {
+        return bind(OptionView.of(event));
+    }
+
+    /**
+     * Binds the provided options to a new instance.
+     *
+     * @param options The options of a slash command invocation
+     * @return A new instance with the provided options
+     */
+    @NotNull
+    public T bind(@NotNull OptionView options) {
+        OptionMapping[] arguments = new OptionMapping[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            arguments[i] = options.get(parameters[i]);
+        try {
+            Object instance = (Object) constructor.invokeExact(arguments);
+            for (int i = 0; i < fields.length; i++) {
+                OptionMapping mapping = options.get(fields[i]);
+                if (mapping != null)
+                    setters[i].invokeExact(instance, mapping);
+            }
+            return type.cast(instance);
+        } catch (Throwable t) {
+            throw OptionBinder.<RuntimeException>rethrow(t);
+        }
+    }
+
+    /**
+     * Gets the class options are bound to.
+     *
+     * @return The class options are bound to
+     */
+    @NotNull
+    public Class<T> getType() {
+        return type;
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            throw new IllegalArgumentException(type.getName() + " cannot be instantiated!");
+        Constructor<?> empty = null;
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            Parameter[] params = constructor.getParameters();
+            if (params.length == 0) {
+                empty = constructor;
+                continue;
+            }
+            boolean annotated = true;
+            for (Parameter param : params)
+                annotated &= param.isAnnotationPresent(Option.class);
+            if (annotated)
+                return constructor;
+        }
+        if (empty == null)
+            throw new IllegalArgumentException(type.getName() + " has no constructor to bind options with!");
+        return empty;
+    }
+
+    private static MethodHandle extractor(Map<String, OptionData> options, String name, Class<?> target, Class<?> type) {
+        OptionData option = options.get(name);
+        if (option == null)
+            throw new IllegalArgumentException("Option named " + name + " bound in " + type.getName() + " is not an option of the command!");
+        String method = extractorName(option.getType(), target);
+        if (method == null)
+            throw new IllegalArgumentException("Option named " + name + " of type " + option.getType() + " cannot be bound to " + target.getName() + "!");
+        try {
+            return LOOKUP.findStatic(OptionBinder.class, method, MethodType.methodType(target, OptionMapping.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String extractorName(OptionType option, Class<?> target) {
+        if (target == OptionMapping.class)
+            return "asMapping";
+        if (target == String.class)
+            return "asString";
+        switch (option) {
+            case INTEGER:
+                if (target == long.class)    return "asLong";
+                if (target == Long.class)    return "asBoxedLong";
+                if (target == int.class)     return "asInt";
+                if (target == Integer.class) return "asBoxedInt";
+                return null;
+            case NUMBER:
+                if (target == double.class)  return "asDouble";
+                if (target == Double.class)  return "asBoxedDouble";
+                return null;
+            case BOOLEAN:
+                if (target == boolean.class) return "asBoolean";
+                if (target == Boolean.class) return "asBoxedBoolean";
+                return null;
+            case USER:
+                if (target == User.class)    return "asUser";
+                if (target == Member.class)  return "asMember";
+                return target == IMentionable.class ? "asMentionable" : null;
+            case ROLE:
+                if (target == Role.class)    return "asRole";
+                return target == IMentionable.class ? "asMentionable" : null;
+            case MENTIONABLE:
+                return target == IMentionable.class ? "asMentionable" : null;
+            case CHANNEL:
+                if (target == GuildChannel.class)   return "asGuildChannel";
+                if (target == MessageChannel.class) return "asMessageChannel";
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    // Extractors, looked up by name. Each of them accepts the absence of an option.
+
+    private static OptionMapping asMapping(OptionMapping mapping) {
+        return mapping;
+    }
+
+    private static String asString(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsString();
+    }
+
+    private static long asLong(OptionMapping mapping) {
+        return mapping == null ? 0L : mapping.getAsLong();
+    }
+
+    private static Long asBoxedLong(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsLong();
+    }
+
+    private static int asInt(OptionMapping mapping) {
+        return mapping == null ? 0 : Math.toIntExact(mapping.getAsLong());
+    }
+
+    private static Integer asBoxedInt(OptionMapping mapping) {
+        return mapping == null ? null : Math.toIntExact(mapping.getAsLong());
+    }
+
+    private static double asDouble(OptionMapping mapping) {
+        return mapping == null ? 0D : mapping.getAsDouble();
+    }
+
+    private static Double asBoxedDouble(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsDouble();
+    }
+
+    private static boolean asBoolean(OptionMapping mapping) {
+        return mapping != null && mapping.getAsBoolean();
+    }
+
+    private static Boolean asBoxedBoolean(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsBoolean();
+    }
+
+    private static User asUser(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsUser();
+    }
+
+    private static Member asMember(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsMember();
+    }
+
+    private static Role asRole(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsRole();
+    }
+
+    private static IMentionable asMentionable(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsMentionable();
+    }
+
+    private static GuildChannel asGuildChannel(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsGuildChannel();
+    }
+
+    private static MessageChannel asMessageChannel(OptionMapping mapping) {
+        return mapping == null ? null : mapping.getAsMessageChannel();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E rethrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    /**
+     * Binds a field or constructor parameter to the option with the provided name.
+     */
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.FIELD, ElementType.PARAMETER})
+    public @interface Option {
+        /**
+         * The name of the option.
+         * <br>If empty, the name of the field or parameter is used. Parameter names are
+         * only available when compiled with {@code -parameters}.
+         *
+         * @return The name of the option
+         */
+        String value() default "";
+    }
+}
@@ -31,6 +31,10 @@ import java.util.List;
 
 /**
  * A collection of useful methods for working with Options.
+ *
+ * <p>Every method looks the option up in the option list of the event. Commands reading several
+ * options should use an {@link OptionView} or an {@link OptionBinder} instead, which look
+ * every option up once.
  */
 public final class OptionHelper {
     private OptionHelper() {}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard) & Olivia (Chew)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pw.chew.jdachewtils.command;
+
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.IMentionable;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only view of the options of a single slash command invocation.
+ *
+ * <p>Unlike {@link OptionHelper}, which scans the option list of the event on every call,
+ * the view indexes the options by name once, so every following lookup is a single
+ * hash lookup. Numeric and boolean accessors return primitives.
+ *
+ * <p>A view is meant to be created once at the start of
+ * {@link com.jagrosh.jdautilities.command.SlashCommand#execute(SlashCommandEvent) execute}
+ * and discarded with the event:
+ * <pre><code>
+ * protected void execute(SlashCommandEvent event) {
+ *     OptionView options = OptionView.of(event);
+ *     long amount = options.getLong("amount", 1);
+ *     User target = options.getUser("target", event.getUser());
+ * }</code></pre>
+ */
+public final class OptionView {
+    private final Map<String, OptionMapping> options;
+
+    private OptionView(Map<String, OptionMapping> options) {
+        this.options = options;
+    }
+
+    /**
+     * Creates a view of the options of the provided event.
+     *
+     * @param event The slash command event to get options from
+     * @return A view of the options of the event
+     */
+    @NotNull
+    public static OptionView of(@NotNull SlashCommandEvent event) {
+        return of(event.getOptions());
+    }
+
+    /**
+     * Creates a view of the provided options.
+     * <br>If more than one option has the same name, the first one is used.
+     *
+     * @param options The options to index
+     * @return A view of the options
+     */
+    @NotNull
+    public static OptionView of(@NotNull List<OptionMapping> options) {
+        // Sized so that the map never needs to resize
+        Map<String, OptionMapping> map = new HashMap<>(options.size() * 4 / 3 + 1);
+        for (OptionMapping option : options)
+            map.putIfAbsent(option.getName(), option);
+        return new OptionView(map);
+    }
+
+    /**
+     * Gets an option by name.
+     *
+     * @param option The option we want
+     * @return The option, or {@code null} if the option is not present
+     */
+    @Nullable
+    public OptionMapping get(@NotNull String option) {
+        return options.get(option);
+    }
+
+    /**
+     * Checks to see if the view has an option.
+     *
+     * @param option the option we want
+     * @return true if the option exists, false otherwise
+     */
+    public boolean has(@NotNull String option) {
+        return options.containsKey(option);
+    }
+
+    /**
+     * Gets the number of options in this view.
+     *
+     * @return The number of options
+     */
+    public int size() {
+        return options.size();
+    }
+
+    /**
+     * Guarantees a String option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public String getString(@NotNull String option, @Nullable String defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsString();
+    }
+
+    /**
+     * Guarantees a boolean option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    public boolean getBoolean(@NotNull String option, boolean defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsBoolean();
+    }
+
+    /**
+     * Guarantees a long option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    public long getLong(@NotNull String option, long defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsLong();
+    }
+
+    /**
+     * Guarantees a double option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    public double getDouble(@NotNull String option, double defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsDouble();
+    }
+
+    /**
+     * Guarantees a Guild Channel option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public GuildChannel getGuildChannel(@NotNull String option, @Nullable GuildChannel defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsGuildChannel();
+    }
+
+    /**
+     * Guarantees a Member option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public Member getMember(@NotNull String option, @Nullable Member defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsMember();
+    }
+
+    /**
+     * Guarantees a IMentionable option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public IMentionable getMentionable(@NotNull String option, @Nullable IMentionable defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsMentionable();
+    }
+
+    /**
+     * Guarantees a Role option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public Role getRole(@NotNull String option, @Nullable Role defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsRole();
+    }
+
+    /**
+     * Guarantees a User option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public User getUser(@NotNull String option, @Nullable User defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsUser();
+    }
+
+    /**
+     * Guarantees a MessageChannel option value by providing a default value.
+     *
+     * @param option       The option we want
+     * @param defaultValue The fallback option in case of the absence of the option value
+     * @return The provided option, or the default value if the option is not present
+     */
+    @Nullable
+    @Contract("_, !null -> !null")
+    public MessageChannel getMessageChannel(@NotNull String option, @Nullable MessageChannel defaultValue) {
+        OptionMapping mapping = options.get(option);
+
+        return mapping == null ? defaultValue : mapping.getAsMessageChannel();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.command.impl;
+
+import com.jagrosh.jdautilities.command.StatsSink;
+import com.jagrosh.jdautilities.harness.Fakes;
+import com.sun.net.httpserver.HttpServer;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.utils.cache.SnowflakeCacheView;
+import okhttp3.OkHttpClient;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Publishes guild statistics to a local HTTP stand-in of discord.bots.gg.
+ */
+public class StatsPublisherTest
+{
+    private final List<JSONObject> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private ScheduledExecutorService executor;
+    private StatsPublisher publisher;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/bots/", exchange ->
+        {
+            requests.add(new JSONObject(read(exchange.getRequestBody())));
+            byte[] response = "{\"guildCount\":1234}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try(OutputStream out = exchange.getResponseBody())
+            {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/bots/";
+        List<StatsSink> sinks = Collections.singletonList(new DiscordBotsStatsSink("key", baseUrl));
+        publisher = new StatsPublisher(executor, sinks, 200, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void burstIsCoalescedIntoOneRequest() throws InterruptedException
+    {
+        JDA jda = jda(0, 2, 42);
+        for(int i = 0; i < 100; i++)
+            publisher.requestUpdate(jda);
+
+        awaitRequests(1);
+        // Give a second, erroneous publication the time to happen
+        Thread.sleep(400);
+
+        assertEquals(1, requests.size());
+        JSONObject body = requests.get(0);
+        assertEquals(42, body.getLong("guildCount"));
+        assertEquals(0, body.getInt("shardId"));
+        assertEquals(2, body.getInt("shardCount"));
+        awaitTotalGuilds(1234);
+    }
+
+    @Test
+    public void shardsArePublishedSeparately() throws InterruptedException
+    {
+        publisher.requestUpdate(jda(0, 2, 10));
+        publisher.requestUpdate(jda(1, 2, 20));
+        publisher.requestUpdate(jda(1, 2, 20));
+
+        awaitRequests(2);
+        Thread.sleep(400);
+
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void updateAfterShutdownIsDropped() throws InterruptedException
+    {
+        executor.shutdown();
+        JDA jda = jda(0, 1, 5);
+
+        // Must neither throw on the calling thread nor leave a publication pending forever
+        publisher.requestUpdate(jda);
+        publisher.requestUpdate(jda);
+
+        publisher.flush();
+        awaitRequests(1);
+        assertEquals(5, requests.get(0).getLong("guildCount"));
+    }
+
+    private void awaitRequests(int count) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(requests.size() < count && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertTrue("Expected " + count + " requests, got " + requests.size(), requests.size() >= count);
+    }
+
+    private void awaitTotalGuilds(int total) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(publisher.getTotalGuilds() != total && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertEquals(total, publisher.getTotalGuilds());
+    }
+
+    private static String read(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static final OkHttpClient HTTP_CLIENT = new OkHttpClient();
+
+    private static JDA jda(int shardId, int shardTotal, long guilds)
+    {
+        SelfUser self = Fakes.stub(SelfUser.class, "getId", "1");
+        SnowflakeCacheView<?> guildCache = Fakes.stub(SnowflakeCacheView.class, "size", guilds);
+        return Fakes.stub(JDA.class,
+            "getSelfUser", self,
+            "getShardInfo", new JDA.ShardInfo(shardId, shardTotal),
+            "getGuildCache", guildCache,
+            "getHttpClient", HTTP_CLIENT);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard) & Olivia (Chew)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pw.chew.jdachewtils.command;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Binds options to classes whose final fields carry {@link OptionBinder.Option @Option},
+ * as records do.
+ */
+public class OptionBinderTest {
+    private static final List<OptionData> OPTIONS = Arrays.asList(
+        new OptionData(OptionType.STRING, "reason", "Why"),
+        new OptionData(OptionType.INTEGER, "days", "How long"));
+
+    @Test
+    public void bindsFinalFieldsThroughTheConstructor() {
+        OptionBinder<ImmutableOptions> binder = OptionBinder.of(ImmutableOptions.class, OPTIONS);
+
+        ImmutableOptions options = binder.bind(OptionView.of(Arrays.asList(
+            option("{\"name\":\"reason\",\"type\":3,\"value\":\"spam\"}"),
+            option("{\"name\":\"days\",\"type\":4,\"value\":7}"))));
+
+        assertEquals("spam", options.reason);
+        assertEquals(7, options.days);
+    }
+
+    @Test
+    public void passesAbsentOptionsToTheConstructor() {
+        ImmutableOptions options = OptionBinder.of(ImmutableOptions.class, OPTIONS)
+            .bind(OptionView.of(Collections.emptyList()));
+
+        assertNull(options.reason);
+        assertEquals(0, options.days);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsFinalFieldsNotBoundByTheConstructor() {
+        OptionBinder.of(UnboundFinalField.class, OPTIONS);
+    }
+
+    private static OptionMapping option(String json) {
+        return new OptionMapping(DataObject.fromJson(json), new TLongObjectHashMap<>());
+    }
+
+    // Shaped like the record "record ImmutableOptions(@Option("reason") String reason, @Option("days") int days)"
+    private static final class ImmutableOptions {
+        @OptionBinder.Option("reason")
+        private final String reason;
+        @OptionBinder.Option("days")
+        private final int days;
+
+        private ImmutableOptions(@OptionBinder.Option("reason") String reason, @OptionBinder.Option("days") int days) {
+            this.reason = reason;
+            this.days = days;
+        }
+    }
+
+    private static final class UnboundFinalField {
+        @OptionBinder.Option("reason")
+        private final String reason = null;
+        @OptionBinder.Option("days")
+        private final int days;
+
+        private UnboundFinalField(@OptionBinder.Option("days") int days) {
+            this.days = days;
+        }
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.commons.utils;
+
+import net.dv8tion.jda.api.entities.Message;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Splits long text into chunks that fit in a single Discord {@link net.dv8tion.jda.api.entities.Message Message}.
+ *
+ * <p>Chunks are cut on a newline if possible, then on a space, and are only hard split as a last resort.
+ * Each chunk is trimmed, and occurrences of {@code @everyone} and {@code @here} are nullified in the same
+ * pass so that they do not mention anyone.
+ *
+ * <p>Text that is already in memory is scanned once with {@link #split(CharSequence, Consumer)}, which
+ * emits {@link java.lang.CharSequence CharSequence} views over the original text rather than copies of
+ * its tail. Text that is generated on the fly can be chunked from a {@link java.io.Reader Reader} or a
+ * {@link java.util.stream.Stream Stream} of lines, in which case no more than one message worth of
+ * characters is buffered at a time.
+ *
+ * <p>This is what {@code CommandEvent#splitMessage} of the command package uses to split replies.
+ */
+public class MessageChunker
+{
+    private static final String EVERYONE = "@everyone";
+    private static final String HERE = "@here";
+    private static final char ESCAPED_E = '\u0435';
+    // Characters needed after an '@' to decide whether it must be escaped
+    private static final int LOOKAHEAD = EVERYONE.length() - 1;
+
+    private final int maxLength;
+
+    /**
+     * Constructs a new MessageChunker producing chunks of at most
+     * {@link net.dv8tion.jda.api.entities.Message#MAX_CONTENT_LENGTH Message.MAX_CONTENT_LENGTH} characters.
+     */
+    public MessageChunker()
+    {
+        this(Message.MAX_CONTENT_LENGTH);
+    }
+
+    /**
+     * Constructs a new MessageChunker producing chunks of at most the provided length.
+     *
+     * @param  maxLength
+     *         The maximum length of a chunk
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the maximum length is less than 1
+     */
+    public MessageChunker(int maxLength)
+    {
+        if(maxLength < 1)
+            throw new IllegalArgumentException("Maximum length must be at least 1!");
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Gets the maximum length of the chunks produced by this MessageChunker.
+     *
+     * @return The maximum length of a chunk
+     */
+    public int getMaxLength()
+    {
+        return maxLength;
+    }
+
+    /**
+     * Splits the provided text into chunks.
+     *
+     * @param  content
+     *         The text to split, may be {@code null}
+     *
+     * @return A List of chunks, empty if the text is {@code null} or blank
+     */
+    public List<String> split(CharSequence content)
+    {
+        List<String> chunks = new ArrayList<>(content == null ? 0 : content.length() / maxLength + 1);
+        split(content, chunk -> chunks.add(chunk.toString()));
+        return chunks;
+    }
+
+    /**
+     * Splits the provided text into chunks, passing each one to the provided consumer.
+     *
+     * <p>The chunks are views over the provided text, which therefore must not be modified until
+     * they have been consumed. Splits are placed so that the text is sent in as few messages as
+     * possible.
+     *
+     * @param  content
+     *         The text to split, may be {@code null}
+     * @param  consumer
+     *         The consumer to pass each chunk to, in order
+     */
+    public void split(CharSequence content, Consumer<? super CharSequence> consumer)
+    {
+        if(content == null)
+            return;
+
+        int start = skipWhitespace(content, 0, content.length());
+        int end = content.length();
+        while(end > start && content.charAt(end - 1) <= ' ')
+            end--;
+
+        while(end - start > maxLength)
+        {
+            // Only split early if it doesn't cost an extra message
+            int leeway = maxLength - ((end - start) % maxLength);
+            int index = lastIndexOf(content, '\n', start + leeway, start + maxLength);
+            if(index < 0)
+                index = lastIndexOf(content, ' ', start + leeway, start + maxLength);
+            if(index < 0)
+                index = start + maxLength;
+
+            int chunkEnd = index;
+            while(chunkEnd > start && content.charAt(chunkEnd - 1) <= ' ')
+                chunkEnd--;
+            if(chunkEnd > start)
+                consumer.accept(new Chunk(content, start, chunkEnd));
+            start = skipWhitespace(content, index, end);
+        }
+
+        if(end > start)
+            consumer.accept(new Chunk(content, start, end));
+    }
+
+    /**
+     * Lazily splits the text read from the provided {@link java.io.Reader Reader} into chunks.
+     *
+     * <p>As the full length of the text is not known in advance, chunks are cut on a newline or a space
+     * in the second half of the chunk if there is one, and hard split otherwise.
+     * <br>The Reader is not closed by the returned Iterator.
+     *
+     * @param  reader
+     *         The Reader to read text from
+     *
+     * @throws java.io.UncheckedIOException
+     *         From the returned Iterator, if the Reader throws an {@link java.io.IOException IOException}
+     *
+     * @return An Iterator over the chunks
+     */
+    public Iterator<String> split(Reader reader)
+    {
+        return new ReaderChunkIterator(reader, maxLength);
+    }
+
+    /**
+     * Lazily splits the provided lines, joined by newlines, into chunks.
+     *
+     * @param  lines
+     *         The lines to split
+     *
+     * @return An Iterator over the chunks
+     *
+     * @see    #split(Reader)
+     */
+    public Iterator<String> split(Stream<String> lines)
+    {
+        return split(new LineReader(lines.iterator()));
+    }
+
+    private static int skipWhitespace(CharSequence content, int from, int end)
+    {
+        while(from < end && content.charAt(from) <= ' ')
+            from++;
+        return from;
+    }
+
+    private static int lastIndexOf(CharSequence content, char c, int min, int from)
+    {
+        for(int i = from; i >= min; i--)
+        {
+            if(content.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean matches(CharSequence content, int offset, String pattern)
+    {
+        if(offset < 0 || offset + pattern.length() > content.length())
+            return false;
+        for(int i = 0; i < pattern.length(); i++)
+        {
+            if(content.charAt(offset + i) != pattern.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // Returns the character at the index, with the 'e' of any @everyone or @here swapped for a lookalike
+    private static char escapedCharAt(CharSequence content, int index)
+    {
+        char c = content.charAt(index);
+        if(c == 'e' && (matches(content, index - 1, EVERYONE) || matches(content, index - 2, HERE)))
+            return ESCAPED_E;
+        return c;
+    }
+
+    private static final class Chunk implements CharSequence
+    {
+        private final CharSequence content;
+        private final int start, end;
+
+        private Chunk(CharSequence content, int start, int end)
+        {
+            this.content = content;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length()
+        {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if(index < 0 || index >= length())
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length());
+            return escapedCharAt(content, start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            if(start < 0 || end > length() || start > end)
+                throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Length: " + length());
+            return new Chunk(content, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString()
+        {
+            char[] chars = new char[length()];
+            for(int i = 0; i < chars.length; i++)
+                chars[i] = escapedCharAt(content, start + i);
+            return new String(chars);
+        }
+    }
+
+    private static final class ReaderChunkIterator implements Iterator<String>
+    {
+        private final Reader reader;
+        private final int maxLength;
+        // One chunk, the character right after it, and enough to escape mentions at its end
+        private final char[] buffer;
+        private int length = 0;
+        private int escaped = 0;
+        private boolean eof = false;
+        private String next;
+
+        private ReaderChunkIterator(Reader reader, int maxLength)
+        {
+            this.reader = reader;
+            this.maxLength = maxLength;
+            this.buffer = new char[maxLength + 1 + LOOKAHEAD];
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if(next == null)
+                next = computeNext();
+            return next != null;
+        }
+
+        @Override
+        public String next()
+        {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            String chunk = next;
+            next = null;
+            return chunk;
+        }
+
+        private String computeNext()
+        {
+            while(true)
+            {
+                fill();
+                int start = 0;
+                while(start < length && buffer[start] <= ' ')
+                    start++;
+                discard(start);
+                if(!eof && length < buffer.length)
+                    continue; // top up what the leading whitespace took
+                if(length == 0)
+                    return null;
+                escape();
+
+                if(length <= maxLength) // only possible once the reader is exhausted
+                {
+                    String chunk = new String(buffer, 0, trimmedEnd(length));
+                    length = 0;
+                    escaped = 0;
+                    return chunk;
+                }
+
+                int index = lastIndexOf('\n');
+                if(index < 0)
+                    index = lastIndexOf(' ');
+                if(index < 0)
+                    index = maxLength;
+                String chunk = new String(buffer, 0, trimmedEnd(index));
+                discard(index);
+                return chunk;
+            }
+        }
+
+        private void fill()
+        {
+            try
+            {
+                while(!eof && length < buffer.length)
+                {
+                    int read = reader.read(buffer, length, buffer.length - length);
+                    if(read < 0)
+                        eof = true;
+                    else
+                        length += read;
+                }
+            }
+            catch(IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void escape()
+        {
+            int i = escaped;
+            for(; i < length; i++)
+            {
+                if(buffer[i] != '@')
+                    continue;
+                if(!eof && i + LOOKAHEAD >= length)
+                    break; // not enough characters yet to decide, resume here after the next fill
+                if(matches(i, EVERYONE))
+                    buffer[i + 1] = ESCAPED_E;
+                else if(matches(i, HERE))
+                    buffer[i + 2] = ESCAPED_E;
+            }
+            escaped = i;
+        }
+
+        private boolean matches(int offset, String pattern)
+        {
+            if(offset + pattern.length() > length)
+                return false;
+            for(int i = 0; i < pattern.length(); i++)
+            {
+                if(buffer[offset + i] != pattern.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        private int lastIndexOf(char c)
+        {
+            for(int i = maxLength; i >= maxLength / 2; i--)
+            {
+                if(buffer[i] == c)
+                    return i;
+            }
+            return -1;
+        }
+
+        private int trimmedEnd(int end)
+        {
+            while(end > 0 && buffer[end - 1] <= ' ')
+                end--;
+            return end;
+        }
+
+        private void discard(int count)
+        {
+            if(count == 0)
+                return;
+            System.arraycopy(buffer, count, buffer, 0, length - count);
+            length -= count;
+            escaped = Math.max(0, escaped - count);
+        }
+    }
+
+    private static final class LineReader extends Reader
+    {
+        private final Iterator<String> lines;
+        private String line;
+        private int position;
+
+        private LineReader(Iterator<String> lines)
+        {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len)
+        {
+            if(len == 0)
+                return 0;
+            int read = 0;
+            while(read < len)
+            {
+                if(line == null)
+                {
+                    if(!lines.hasNext())
+                        break;
+                    line = lines.next();
+                    position = 0;
+                }
+                if(position < line.length())
+                {
+                    int count = Math.min(len - read, line.length() - position);
+                    line.getChars(position, position + count, cbuf, off + read);
+                    position += count;
+                    read += count;
+                }
+                else
+                {
+                    // Line separator, only between lines
+                    line = null;
+                    if(lines.hasNext())
+                        cbuf[off + read++] = '\n';
+                }
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -2,8 +2,16 @@ package com.jagrosh.jdautilities.commons.utils;
 
 import net.dv8tion.jda.internal.utils.Checks;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A utility class that can be used to easily create String tables in Java without any extra frameworks.
@@ -61,6 +69,9 @@ public class TableBuilder
     /**
      * Builds a String table according to the settings made.
      *
+     * <p>Building does not modify this TableBuilder, so it may be built any number of times,
+     * for example after changing only its values.
+     *
      * @throws  IllegalArgumentException
      *          if:
      *          <ul>
@@ -80,273 +91,579 @@ public class TableBuilder
      *          If codeblock is activated, there will be a {@code ```\n} at the beginning and a {@code ```} at the end.
      */
     public String build()
+    {
+        Layout layout = layout();
+        StringBuilder builder = new StringBuilder(layout.estimateLength());
+        try
+        {
+            render(layout, builder);
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e); // StringBuilder never throws
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Builds the table according to the settings made, writing it directly to the provided
+     * {@link java.lang.Appendable Appendable} instead of creating a String.
+     *
+     * @param  out
+     *         The Appendable to write the table to.
+     *
+     * @throws  IOException
+     *          If the Appendable throws one.
+     * @throws  IllegalArgumentException
+     *          In the same cases as {@link #build()}.
+     *
+     * @see    #build()
+     */
+    public void build(Appendable out) throws IOException
+    {
+        Checks.notNull(out, "Appendable");
+        render(layout(), out);
+    }
+
+    /**
+     * Builds the table page by page from rows that are supplied by an {@link java.util.Iterator Iterator},
+     * so that a large table never has to exist in memory as a whole.
+     *
+     * <p>Every page is a complete table on its own, built according to the settings made (including the
+     * {@link #setBorders(Borders) borders}, {@link #codeblock(boolean) codeblock} and {@link #frame(boolean) frame}),
+     * with the {@link #addHeaders(String...) headers} repeated at the top of each page. Rows are never split between
+     * two pages and each page is at most {@code maxLength} characters long, so pages can directly be sent as
+     * messages (whose limit is {@link net.dv8tion.jda.api.entities.Message#MAX_CONTENT_LENGTH 2000} characters)
+     * or passed to a {@code Paginator} showing one item per page, without being split any further.
+     *
+     * <p>The {@link #setValues(String[][]) values} and {@link #addRowNames(String...) row names} of this TableBuilder
+     * are ignored; a row name can be given as the first value of each row instead. If autoAdjust is enabled, the
+     * columns of each page are adjusted to the values on that page only.
+     *
+     * <p>Rows are pulled from the Iterator lazily, one page at a time, and this TableBuilder should not be modified
+     * while the returned pages are iterated.
+     *
+     * @param  rows
+     *         The rows of the table. If headers were set, every row must have at least as many values as there are
+     *         headers, otherwise all rows must have the same amount of values.
+     * @param  maxLength
+     *         The maximum length of a page.
+     *
+     * @throws  IllegalArgumentException
+     *          if:
+     *          <ul>
+     *              <li>The rows are null</li>
+     *              <li>maxLength is &lt;= 0</li>
+     *              <li>No {@code Borders} were set</li>
+     *              <li>The padding is &lt; 0</li>
+     *              <li>autoAdjust is false and no headers were set</li>
+     *          </ul>
+     *          The returned Iterator additionally throws an IllegalArgumentException when it reaches a row that is null,
+     *          contains null, has an inconsistent amount of values or that does not fit into a page on its own.
+     *
+     * @return  An Iterator of the pages, which has no pages if there are no rows.
+     */
+    public Iterator<String> buildPages(Iterator<String[]> rows, int maxLength)
+    {
+        Checks.notNull(rows, "Rows");
+        Checks.check(maxLength > 0, "Max length must be > 0");
+        Checks.notNull(borders, "Borders");
+        Checks.check(padding >= 0, "Padding must not be < 0");
+        if (!autoAdjust)
+            Checks.notNull(headers, "Headers");
+        return new PageIterator(rows, maxLength);
+    }
+
+    /**
+     * Builds the table page by page from rows that are supplied by a {@link java.util.stream.Stream Stream}.
+     * <br>Closing the returned Stream closes the provided one.
+     *
+     * @param  rows
+     *         The rows of the table.
+     * @param  maxLength
+     *         The maximum length of a page.
+     *
+     * @throws  IllegalArgumentException
+     *          In the same cases as {@link #buildPages(Iterator, int)}.
+     *
+     * @return  A sequential Stream of the pages.
+     *
+     * @see    #buildPages(Iterator, int)
+     */
+    public Stream<String> buildPages(Stream<String[]> rows, int maxLength)
+    {
+        Checks.notNull(rows, "Rows");
+        Iterator<String> pages = buildPages(rows.iterator(), maxLength);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(rows::close);
+    }
+
+    // Validates the settings and measures every column in a single pass over the cells
+    private Layout layout()
     {
         Checks.notNull(borders, "Borders");
         Checks.notNull(values, "Values");
         Checks.notEmpty(values, "Values");
-        Checks.check(Arrays.stream(values).allMatch((row) -> Arrays.stream(row).allMatch(Objects::nonNull)), "A value may not be null");
         Checks.check(padding >= 0, "Padding must not be < 0");
 
         boolean headersPresent = headers != null;
         boolean rowNamesPresent = rowNames != null;
 
-        int rows = (rowNamesPresent ? rowNames.length : values.length);
-        int columns = (headersPresent ? headers.length : Arrays.stream(values).mapToInt((s) -> s.length).max().orElse(0));
-
-        Checks.check(values.length >= rows, "The amount of rows must not be smaller than specified in the row names");
-        int oldColumns = columns;
-        Checks.check(Arrays.stream(values).noneMatch((row) -> row.length < oldColumns), "The amount of columns must be consistent");
-
-        if (headersPresent)
-            rows++;
-        if (rowNamesPresent)
-            columns++;
-
-        // insert headers and row names (if present)
-        String[][] newValues = new String[rows][columns];
-        if (headersPresent && rowNamesPresent)
-        {
-            newValues[0][0] = tableName;
-            System.arraycopy(headers, 0, newValues[0], 1, headers.length);
-            for (int i = 1; i < rows; i++)
-            {
-                newValues[i][0] = rowNames[i - 1];
-                System.arraycopy(values[i - 1], 0, newValues[i], 1, columns - 1);
-            }
-        }
-        else if (rowNamesPresent)
-        {
-            for (int i = 0; i < rows; i++)
-            {
-                newValues[i][0] = rowNames[i];
-                System.arraycopy(values[i], 0, newValues[i], 1, columns - 1);
-            }
-        }
-        else if (headersPresent)
-        {
-            System.arraycopy(headers, 0, newValues[0], 0, columns);
-            System.arraycopy(values, 0, newValues, 1, rows - 1);
-        }
-        else
+        int dataRows = (rowNamesPresent ? rowNames.length : values.length);
+        int dataColumns = headersPresent ? headers.length : 0;
+        for (String[] row : values)
         {
-            newValues = this.values;
+            Checks.notNull(row, "Row");
+            for (String value : row)
+                Checks.check(value != null, "A value may not be null");
+            if (!headersPresent && row.length > dataColumns)
+                dataColumns = row.length;
         }
+        Checks.check(values.length >= dataRows, "The amount of rows must not be smaller than specified in the row names");
+        for (String[] row : values)
+            Checks.check(row.length >= dataColumns, "The amount of columns must be consistent");
 
-        this.values = newValues;
+        Layout layout = new Layout(Arrays.asList(values), rowNames, dataRows + (headersPresent ? 1 : 0), dataColumns + (rowNamesPresent ? 1 : 0));
 
         if (autoAdjust)
         {
-            // find the max. value for each column
-            int[] maxLengths = new int[columns];
-            Arrays.fill(maxLengths, 0);
-
-            for (String[] row : values)
+            for (int r = 0; r < layout.rows; r++)
             {
-                for (int i = 0; i < row.length; i++)
+                for (int c = 0; c < layout.columns; c++)
                 {
-                    int length = row[i].length();
-                    if (length > maxLengths[i])
-                        maxLengths[i] = length;
-                }
-            }
-
-            // align values
-            for (String[] row : values)
-            {
-                for (int j = 0; j < row.length; j++)
-                {
-                    String value = row[j];
-                    int adjustment = maxLengths[j] - value.length();
-                    StringBuilder newValue = new StringBuilder();
-                    this.setAlignment(adjustment, value, newValue);
-                    row[j] = newValue.toString();
+                    int width = displayWidth(cell(layout, r, c));
+                    if (width > layout.widths[c])
+                        layout.widths[c] = width;
                 }
             }
+            for (int c = 0; c < layout.columns; c++)
+                layout.widths[c] += 2 * padding;
         }
         else
         {
             Checks.notNull(headers, "Headers");
-
-            boolean check = true;
-            out:
-            for (String[] row : values)
+            for (int r = 0; r < layout.rows; r++)
             {
                 for (int i = 0; i < headers.length; i++)
-                {
-                    if (row[i].length() > headers[i].length())
-                    {
-                        check = false;
-                        break out;
-                    }
-                }
+                    Checks.check(cell(layout, r, i).length() <= headers[i].length(), "Length of values must not be longer than length of headers");
             }
-            Checks.check(check, "Length of values must not be longer than length of headers");
+            for (int c = 0; c < layout.columns; c++)
+                layout.widths[c] = displayWidth(cell(layout, 0, c));
         }
 
-        StringBuilder builder = new StringBuilder();
+        return layout;
+    }
 
-        if (codeblock)
-            builder.append("```\n");
+    // Gets a cell of the table including the header row and row name column, without copying the values
+    private String cell(Layout layout, int row, int column)
+    {
+        if (headers != null)
+        {
+            if (row == 0)
+                return layout.rowNames == null ? headers[column] : (column == 0 ? tableName : headers[column - 1]);
+            row--;
+        }
+        if (layout.rowNames != null)
+            return column == 0 ? layout.rowNames[row] : layout.values.get(row)[column - 1];
+        return layout.values.get(row)[column];
+    }
 
-        String[] firstRow = values[0];
+    private void render(Layout layout, Appendable out) throws IOException
+    {
+        if (codeblock)
+            out.append("```\n");
 
         // outline
         if (frame)
         {
-            builder.append(borders.upLeftCorner);
-            for (int j = 0; j < firstRow.length; j++)
-            {
-                for (int k = 0; k < firstRow[j].length(); k++)
-                    builder.append(borders.horizontalOutline);
-
-                if (j == 0)
-                    builder.append(borders.firstColumnUpperIntersection);
-                else if (j < firstRow.length - 1)
-                    builder.append(borders.upperIntersection);
-            }
-            builder.append(borders.upRightCorner);
-            builder.append("\n");
+            out.append(borders.upLeftCorner);
+            appendLine(out, layout.widths, borders.horizontalOutline, borders.firstColumnUpperIntersection, borders.upperIntersection);
+            out.append(borders.upRightCorner).append('\n');
         }
 
-        this.appendRow(builder, firstRow); // header
-
-        builder.append("\n");
+        appendRow(out, layout, 0); // header
+        out.append('\n');
 
         // header delimiter
         if (frame)
-            builder.append(borders.headerLeftIntersection);
-
-        for (int i = 0; i < firstRow.length; i++)
-        {
-            for (int j = 0; j < firstRow[i].length(); j++)
-                builder.append(borders.headerDelimiter);
-
-            if (i == 0)
-                builder.append(borders.headerColumnCrossDelimiter);
-            else if (i < firstRow.length - 1)
-                builder.append(borders.headerCrossDelimiter);
-
-        }
-
+            out.append(borders.headerLeftIntersection);
+        appendLine(out, layout.widths, borders.headerDelimiter, borders.headerColumnCrossDelimiter, borders.headerCrossDelimiter);
         if (frame)
-            builder.append(borders.headerRightIntersection);
-
-        builder.append("\n");
+            out.append(borders.headerRightIntersection);
+        out.append('\n');
 
+        // The row delimiter is the same for every row, unless values are not adjusted
+        String delimiter = autoAdjust ? rowDelimiterLine(layout.widths) : null;
 
         // append row after row
-        for (int i = 1; i < rows; i++)
+        for (int r = 1; r < layout.rows; r++)
         {
-            String[] row = values[i];
-
-            this.appendRow(builder, row);
+            appendRow(out, layout, r);
 
             // delimiter
-            if (i < values.length - 1)
+            if (r < layout.rows - 1)
             {
-                builder.append("\n");
-
-                if (frame)
-                    builder.append(borders.leftIntersection);
-
-                for (int j = 0; j < row.length; j++)
-                {
-                    for (int k = 0; k < row[j].length(); k++)
-                        builder.append(borders.rowDelimiter);
-
-                    if (j == 0)
-                        builder.append(borders.firstColumnCrossDelimiter);
-                    else if (j < row.length - 1)
-                        builder.append(borders.crossDelimiter);
-                }
-
-                if (frame)
-                    builder.append(borders.rightIntersection);
-
-                builder.append("\n");
+                out.append('\n');
+                out.append(delimiter != null ? delimiter : rowDelimiterLine(rawWidths(layout, r)));
+                out.append('\n');
             }
         }
 
         // outline
         if (frame)
         {
-            builder.append("\n");
-            builder.append(borders.lowLeftCorner);
-            for (int j = 0; j < firstRow.length; j++)
-            {
-                for (int k = 0; k < firstRow[j].length(); k++)
-                    builder.append(borders.horizontalOutline);
-
-                if (j == 0)
-                    builder.append(borders.firstColumnLowerIntersection);
-                else if (j < firstRow.length - 1)
-                    builder.append(borders.lowerIntersection);
-            }
-            builder.append(borders.lowRightCorner);
+            out.append('\n');
+            out.append(borders.lowLeftCorner);
+            appendLine(out, layout.widths, borders.horizontalOutline, borders.firstColumnLowerIntersection, borders.lowerIntersection);
+            out.append(borders.lowRightCorner);
         }
 
         if (codeblock)
-            builder.append("```");
+            out.append("```");
+    }
 
-        return builder.toString();
+    private String rowDelimiterLine(int[] widths) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        if (frame)
+            line.append(borders.leftIntersection);
+        appendLine(line, widths, borders.rowDelimiter, borders.firstColumnCrossDelimiter, borders.crossDelimiter);
+        if (frame)
+            line.append(borders.rightIntersection);
+        return line.toString();
+    }
+
+    private int[] rawWidths(Layout layout, int row)
+    {
+        int[] widths = new int[layout.columns];
+        for (int c = 0; c < layout.columns; c++)
+            widths[c] = displayWidth(cell(layout, row, c));
+        return widths;
+    }
+
+    // Appends a horizontal line, with the first delimiter after the first column and the other one after the others
+    private static void appendLine(Appendable out, int[] widths, String line, String firstDelimiter, String delimiter) throws IOException
+    {
+        for (int j = 0; j < widths.length; j++)
+        {
+            repeat(out, line, widths[j]);
 
+            if (j == 0)
+                out.append(firstDelimiter);
+            else if (j < widths.length - 1)
+                out.append(delimiter);
+        }
     }
 
-    private void appendRow(StringBuilder builder, String[] row)
+    private void appendRow(Appendable out, Layout layout, int row) throws IOException
     {
         if (frame)
-            builder.append(borders.verticalOutline);
+            out.append(borders.verticalOutline);
 
-        for (int i = 0; i < row.length; i++)
+        for (int i = 0; i < layout.columns; i++)
         {
-            builder.append(row[i]);
+            String value = cell(layout, row, i);
+            if (autoAdjust)
+                appendAligned(out, value, layout.widths[i] - 2 * padding - displayWidth(value));
+            else
+                out.append(value);
+
             if (i == 0)
-                builder.append(borders.firstColumnDelimiter);
-            else if (i < row.length - 1)
-                builder.append(borders.columnDelimiter);
+                out.append(borders.firstColumnDelimiter);
+            else if (i < layout.columns - 1)
+                out.append(borders.columnDelimiter);
         }
 
         if (frame)
-            builder.append(borders.verticalOutline);
-
+            out.append(borders.verticalOutline);
     }
 
-    private void setAlignment(int adjustment, String oldValue, StringBuilder newValueBuilder) {
-        for (int i = 0; i < padding; i++) // padding left
-            newValueBuilder.append(" ");
+    private void appendAligned(Appendable out, String value, int adjustment) throws IOException
+    {
+        repeat(out, " ", padding); // padding left
 
         switch(alignment)
         {
             case RIGHT:
-                // first black spaces
-                for (int k = 0; k < adjustment; k++)
-                    newValueBuilder.append(" ");
-                newValueBuilder.append(oldValue); // then value
+                repeat(out, " ", adjustment); // first blank spaces
+                out.append(value); // then value
                 break;
             case LEFT:
-                newValueBuilder.append(oldValue); // first value
-                // then blank spaces
-                for (int k = 0; k < adjustment; k++)
-                    newValueBuilder.append(" ");
+                out.append(value); // first value
+                repeat(out, " ", adjustment); // then blank spaces
                 break;
             case CENTER:
-                boolean even = adjustment % 2 == 0;
                 int half = adjustment / 2;
-                for (int k = 0; k < half; k++) // append one half of black spaces
-                    newValueBuilder.append(" ");
+                repeat(out, " ", half); // one half of blank spaces
+                out.append(value);
+                // the other half, plus the missing blank space if the adjustment is odd
+                repeat(out, " ", adjustment - half);
+                break;
+        }
 
-                newValueBuilder.append(oldValue); // append value
+        repeat(out, " ", padding); // padding right
+    }
 
-                for (int k = 0; k < half; k++) // append other half of blank spaces
-                    newValueBuilder.append(" ");
+    private static final String SPACES = "                                ";
 
-                if (!even) // if the number wasn't event, one blank space is still missing
-                    newValueBuilder.append(" ");
-                break;
+    private static void repeat(Appendable out, String s, int times) throws IOException
+    {
+        if (" ".equals(s))
+        {
+            for (; times > SPACES.length(); times -= SPACES.length())
+                out.append(SPACES);
+            if (times > 0)
+                out.append(SPACES, 0, times);
+            return;
+        }
+        for (int i = 0; i < times; i++)
+            out.append(s);
+    }
+
+    /**
+     * Gets the number of monospace columns a String takes up when displayed, which is what tables are aligned on.
+     *
+     * <p>This differs from {@link String#length()} for characters outside of the Basic Multilingual Plane, which are
+     * made of two {@code char}s, for wide characters (such as CJK ideographs and most emoji) that take up two columns,
+     * and for combining and formatting characters (such as accents, variation selectors and zero width joiners)
+     * that take up none.
+     *
+     * @param  s
+     *         The String to measure.
+     *
+     * @return The display width of the String.
+     */
+    public static int displayWidth(CharSequence s)
+    {
+        int width = 0;
+        for (int i = 0; i < s.length(); )
+        {
+            char c = s.charAt(i);
+            if (c < 0x300) // nothing narrower or wider before the combining diacritical marks
+            {
+                width++;
+                i++;
+                continue;
+            }
+            int codePoint = Character.codePointAt(s, i);
+            i += Character.charCount(codePoint);
+            width += codePointWidth(codePoint);
+        }
+        return width;
+    }
+
+    private static int codePointWidth(int codePoint)
+    {
+        switch (Character.getType(codePoint))
+        {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.FORMAT:
+                return 0;
         }
+        if ((codePoint >= 0x1100 && codePoint <= 0x115F)      // Hangul Jamo
+            || (codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F) // CJK, Kana, Yi
+            || (codePoint >= 0xAC00 && codePoint <= 0xD7A3)   // Hangul Syllables
+            || (codePoint >= 0xF900 && codePoint <= 0xFAFF)   // CJK Compatibility Ideographs
+            || (codePoint >= 0xFE30 && codePoint <= 0xFE4F)   // CJK Compatibility Forms
+            || (codePoint >= 0xFF00 && codePoint <= 0xFF60)   // Fullwidth Forms
+            || (codePoint >= 0xFFE0 && codePoint <= 0xFFE6)
+            || (codePoint >= 0x1F300 && codePoint <= 0x1F64F) // Pictographs and Emoticons
+            || (codePoint >= 0x1F680 && codePoint <= 0x1F6FF) // Transport and Map Symbols
+            || (codePoint >= 0x1F900 && codePoint <= 0x1F9FF) // Supplemental Symbols and Pictographs
+            || (codePoint >= 0x20000 && codePoint <= 0x3FFFD)) // CJK Extensions
+            return 2;
+        return 1;
+    }
+
+    // Collects rows into pages, keeping track of the exact length of the page rendered so far
+    private final class PageIterator implements Iterator<String>
+    {
+        private final Iterator<String[]> rows;
+        private final int maxLength;
 
-        for (int i = 0; i < padding; i++) // padding right
-            newValueBuilder.append(" ");
+        private int columns;
+        private String[] pending;
+
+        private List<String[]> page;
+        private int[] widths, measured;
+        private int width, rendered;
+        private long cellChars, middleChars, lastChars;
+
+        private PageIterator(Iterator<String[]> rows, int maxLength)
+        {
+            this.rows = rows;
+            this.maxLength = maxLength;
+            this.columns = headers != null ? headers.length : -1;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return pending != null || rows.hasNext();
+        }
+
+        @Override
+        public String next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            String[] row = pending != null ? pending : nextRow();
+            pending = null;
+
+            startPage();
+            Checks.check(add(row, false), "A row does not fit into a page of " + maxLength + " characters");
+            while (rows.hasNext())
+            {
+                row = nextRow();
+                if (!add(row, false))
+                {
+                    pending = row;
+                    break;
+                }
+            }
+
+            Layout layout = new Layout(page, null, rendered, columns);
+            System.arraycopy(widths, 0, layout.widths, 0, columns);
+            StringBuilder builder = new StringBuilder((int) length(width, rendered, cellChars, middleChars));
+            try
+            {
+                render(layout, builder);
+            }
+            catch (IOException e)
+            {
+                throw new AssertionError(e); // StringBuilder never throws
+            }
+            return builder.toString();
+        }
+
+        private String[] nextRow()
+        {
+            String[] row = rows.next();
+            Checks.notNull(row, "Row");
+            if (columns < 0)
+                columns = row.length;
+            Checks.check(headers != null ? row.length >= columns : row.length == columns, "The amount of columns must be consistent");
+            for (int c = 0; c < columns; c++)
+            {
+                Checks.check(row[c] != null, "A value may not be null");
+                if (!autoAdjust)
+                    Checks.check(row[c].length() <= headers[c].length(), "Length of values must not be longer than length of headers");
+            }
+            return row;
+        }
+
+        private void startPage()
+        {
+            page = new ArrayList<>();
+            widths = new int[columns];
+            measured = new int[columns];
+            width = rendered = 0;
+            cellChars = middleChars = lastChars = 0;
+            if (headers != null)
+                add(headers, true);
+        }
+
+        // Adds a row to the page if the page does not get too long with it
+        private boolean add(String[] row, boolean header)
+        {
+            int newWidth = 0;
+            long chars = 0, rawWidth = 0;
+            for (int c = 0; c < columns; c++)
+            {
+                measured[c] = displayWidth(row[c]);
+                rawWidth += measured[c];
+                chars += autoAdjust ? row[c].length() - measured[c] : row[c].length();
+                // without autoAdjust, the columns are as wide as the headers
+                newWidth += autoAdjust ? Math.max(widths[c], measured[c] + 2 * padding) : (header ? measured[c] : widths[c]);
+            }
+
+            // the row that was last so far gets a row delimiter, unless it is the first one
+            long newMiddleChars = middleChars + (rendered >= 2 ? lastChars : 0);
+            if (!header && length(newWidth, rendered + 1, cellChars + chars, newMiddleChars) > maxLength)
+                return false;
+
+            for (int c = 0; c < columns; c++)
+            {
+                if (autoAdjust)
+                    widths[c] = Math.max(widths[c], measured[c] + 2 * padding);
+                else if (header)
+                    widths[c] = measured[c];
+            }
+            width = newWidth;
+            rendered++;
+            cellChars += chars;
+            middleChars = newMiddleChars;
+            lastChars = rawWidth;
+            if (!header)
+                page.add(row);
+            return true;
+        }
+
+        // The exact length of a page with the given total column width, amount of rows (including the header row),
+        // total cell length beyond the column widths and total width of the rows that are followed by a row delimiter
+        private long length(int width, int rows, long cellChars, long middleWidth)
+        {
+            long length = codeblock ? 7 : 0;
+            if (frame)
+            {
+                length += borders.upLeftCorner.length() + borders.upRightCorner.length() + 1
+                          + line(width, borders.horizontalOutline, borders.firstColumnUpperIntersection, borders.upperIntersection)
+                          + 1 + borders.lowLeftCorner.length() + borders.lowRightCorner.length()
+                          + line(width, borders.horizontalOutline, borders.firstColumnLowerIntersection, borders.lowerIntersection)
+                          + borders.headerLeftIntersection.length() + borders.headerRightIntersection.length();
+            }
+            length += 1 + line(width, borders.headerDelimiter, borders.headerColumnCrossDelimiter, borders.headerCrossDelimiter) + 1;
+
+            long row = joints(borders.firstColumnDelimiter, borders.columnDelimiter)
+                       + (frame ? 2 * borders.verticalOutline.length() : 0) + (autoAdjust ? width : 0);
+            length += rows * row + cellChars;
+
+            int delimited = rows - 2;
+            if (delimited > 0)
+            {
+                long delimiter = 2 + joints(borders.firstColumnCrossDelimiter, borders.crossDelimiter)
+                                 + (frame ? borders.leftIntersection.length() + borders.rightIntersection.length() : 0);
+                length += delimited * delimiter + borders.rowDelimiter.length() * (autoAdjust ? (long) delimited * width : middleWidth);
+            }
+            return length;
+        }
+
+        private long line(int width, String line, String firstDelimiter, String delimiter)
+        {
+            return (long) line.length() * width + joints(firstDelimiter, delimiter);
+        }
+
+        private long joints(String firstDelimiter, String delimiter)
+        {
+            return columns == 0 ? 0 : firstDelimiter.length() + (long) Math.max(0, columns - 2) * delimiter.length();
+        }
+    }
+
+    // The measured columns of a table, including the header row and row name column
+    private static final class Layout
+    {
+        private final List<String[]> values;
+        private final String[] rowNames;
+        private final int rows, columns;
+        private final int[] widths;
+
+        private Layout(List<String[]> values, String[] rowNames, int rows, int columns)
+        {
+            this.values = values;
+            this.rowNames = rowNames;
+            this.rows = rows;
+            this.columns = columns;
+            this.widths = new int[columns];
+        }
+
+        private int estimateLength()
+        {
+            int lineLength = columns + 3; // delimiters, frame and line break
+            for (int width : widths)
+                lineLength += width;
+            return lineLength * (2 * rows + 2) + 8;
+        }
     }
 
     /**
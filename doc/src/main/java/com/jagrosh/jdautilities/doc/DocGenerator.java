@@ -15,7 +15,6 @@
  */
 package com.jagrosh.jdautilities.doc;
 
-import com.jagrosh.jdautilities.commons.utils.FixedSizeCache;
 import com.jagrosh.jdautilities.doc.standard.CommandInfo;
 import com.jagrosh.jdautilities.doc.standard.Error;
 import com.jagrosh.jdautilities.doc.standard.RequiredPermissions;
@@ -26,8 +25,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +60,10 @@ import java.util.stream.Collectors;
  * command system that uses Class and/or Method based commands, and works in any JVM
  * language that supports annotations.
  *
+ * <p>DocGenerators are thread-safe. Documentation is read from a Class or Method only once, the first time it
+ * is requested, and is then kept for as long as the Class is loaded or until another annotation is
+ * {@link #register(Class, DocConverter) registered}.
+ *
  * @see    com.jagrosh.jdautilities.doc.ConvertedBy
  * @see    com.jagrosh.jdautilities.doc.DocConverter
  *
@@ -67,9 +72,9 @@ import java.util.stream.Collectors;
  */
 public class DocGenerator
 {
-    private final HashMap<Class<? extends Annotation>, DocConverter<? extends Annotation>> map;
-    private final FixedSizeCache<AnnotatedElement, String> cache;
+    private final LinkedHashMap<Class<? extends Annotation>, Converter> map;
     private final String separator;
+    private volatile Docs docs;
 
     /**
      * Gets a default DocGenerator with standard conversions loaded.
@@ -84,9 +89,9 @@ public class DocGenerator
     public static DocGenerator getDefaultGenerator()
     {
         return new DocGenerator()
-                .register(CommandInfo.class)
-                .register(Error.class)
-                .register(RequiredPermissions.class);
+                .register(CommandInfo.class, new CommandInfo.Converter())
+                .register(Error.class, new Error.Converter())
+                .register(RequiredPermissions.class, new RequiredPermissions.Converter());
     }
 
     /**
@@ -94,56 +99,59 @@ public class DocGenerator
      */
     public DocGenerator()
     {
-        this(20);
+        this("\n\n");
     }
 
     /**
-     * Gets a blank DocGenerator with no conversions loaded,
-     * and a cache with the specified max-size.
+     * Gets a blank DocGenerator with no conversions loaded
+     * and with the specified separator.
      *
-     * <p>Calls to {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocFor(java.lang.Class)},
-     * {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocFor(java.lang.reflect.Method)},
-     * and {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocForMethods(java.lang.Class)} also cache the values retrieved
-     * from the invocation as a way to reduce reflection overhead for
-     * repeated calls.
+     * <p>A separator will be appended to the documentation
+     * returned by {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocFor(java.lang.Class)} inbetween
+     * annotation conversions.
+     * <br>By default this is a double newline ({@literal \n\n}).
+     *
+     * @param  separator
+     *         The separator that occurs inbetween
+     *         annotation conversions.
+     */
+    public DocGenerator(String separator)
+    {
+        this.separator = separator;
+        map = new LinkedHashMap<>();
+        docs = new Docs(new Converter[0], separator);
+    }
+
+    /**
+     * Gets a blank DocGenerator with no conversions loaded.
      *
      * @param  cacheSize
-     *         The of the cache size that contains previously generated CommandDoc
-     *         to reduce reflection overhead for repeated calls.
+     *         Unused, as documentation is cached per Class for as long as it is loaded.
+     *
+     * @deprecated Use {@link #DocGenerator()} instead
      */
+    @Deprecated
     public DocGenerator(int cacheSize)
     {
-        this("\n\n", cacheSize);
+        this();
     }
 
     /**
      * Gets a blank DocGenerator with no conversions loaded
-     * and with the specified separator, and a cache with the
-     * specified max-size.
-     *
-     * <p>A separator will be appended to the documentation
-     * returned by {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocFor(java.lang.Class)} inbetween
-     * annotation conversions.
-     * <br>By default this is a double newline ({@literal \n\n}).
-     *
-     * <p>Calls to {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocFor(java.lang.Class)},
-     * {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocFor(java.lang.reflect.Method)},
-     * and {@link com.jagrosh.jdautilities.doc.DocGenerator#getDocForMethods(java.lang.Class)} also cache the values retrieved
-     * from the invocation as a way to reduce reflection overhead for
-     * repeated calls.
+     * and with the specified separator.
      *
      * @param  separator
      *         The separator that occurs inbetween
      *         annotation conversions.
      * @param  cacheSize
-     *         The of the cache size that contains previously generated CommandDoc
-     *         to reduce reflection overhead for repeated calls.
+     *         Unused, as documentation is cached per Class for as long as it is loaded.
+     *
+     * @deprecated Use {@link #DocGenerator(String)} instead
      */
+    @Deprecated
     public DocGenerator(String separator, int cacheSize)
     {
-        this.separator = separator;
-        map = new HashMap<>();
-        cache = new FixedSizeCache<>(cacheSize);
+        this(separator);
     }
 
     /**
@@ -157,7 +165,7 @@ public class DocGenerator
      */
     public String getDocFor(Class<?> cla)
     {
-        return read(cla);
+        return docs.get(cla).getDoc();
     }
 
     /**
@@ -171,7 +179,7 @@ public class DocGenerator
      */
     public String getDocFor(Method method)
     {
-        return read(method);
+        return docs.get(method.getDeclaringClass()).getDoc(method);
     }
 
     /**
@@ -184,18 +192,12 @@ public class DocGenerator
      * @param  cla
      *         The Class to get CommandDoc from each method
      *
-     * @return A List of individual Method CommandDocs
+     * @return An unmodifiable List of individual Method CommandDocs
      */
     public List<String> getDocForMethods(Class<?> cla)
     {
-        List<String> list = new ArrayList<>();
-        for(Method method : cla.getMethods())
-        {
-            String doc = read(method);
-            if(!doc.isEmpty())
-                list.add(doc);
-        }
-        return list;
+        Docs docs = this.docs;
+        return docs.get(cla).getMethodDocs(docs);
     }
 
     /**
@@ -205,6 +207,9 @@ public class DocGenerator
      * <p>An example of a custom CommandDoc conversion annotation can be found in the
      * {@link com.jagrosh.jdautilities.doc.DocConverter DocConverter} documentation.
      *
+     * <p>The DocConverter is instantiated reflectively. For native images, either register the
+     * constructor of the DocConverter for reflection, or use {@link #register(Class, DocConverter)} instead.
+     *
      * @param  <T>
      *         The type of annotation
      * @param  type
@@ -276,69 +281,143 @@ public class DocGenerator
      *
      * @return This DocGenerator
      */
+    @SuppressWarnings("unchecked")
     public <T extends Annotation> DocGenerator register(Class<T> type, DocConverter<T> converter)
     {
         synchronized(map)
         {
-            map.put(type, converter);
+            map.put(type, new Converter(type, (DocConverter<Annotation>) converter));
+            // Everything read so far could be missing this conversion
+            docs = new Docs(map.values().toArray(new Converter[0]), separator);
         }
         return this;
     }
 
-    @SuppressWarnings("unchecked")
-    private String read(AnnotatedElement ae)
+    private static String read(Converter[] converters, String separator, AnnotatedElement ae)
     {
-        // Have we already read this?
-        if(cache.contains(ae))
-            return cache.get(ae);
-
         StringBuilder b = new StringBuilder();
-        synchronized(map)
+        for(Converter converter : converters)
         {
-            int lastIndex = map.keySet().size() - 1;
-            int index = 0;
-            for(Class<? extends Annotation> key : map.keySet())
+            DocMultiple docMultiple = converter.docMultiple;
+            if(docMultiple == null)
             {
-                DocMultiple docMultiple = key.getAnnotation(DocMultiple.class);
-                if(docMultiple == null)
-                {
-                    Annotation a = ae.getAnnotation(key);
+                Annotation a = ae.getAnnotation(converter.type);
 
-                    // Is not annotated with that particular annotation
-                    if(a == null)
-                        continue;
+                // Is not annotated with that particular annotation
+                if(a == null)
+                    continue;
 
-                    b.append(((DocConverter<Annotation>)map.get(key)).read(a));
-                    if(index < lastIndex)
-                        b.append(separator);
-                }
-                else
+                if(b.length() > 0)
+                    b.append(separator);
+                b.append(converter.converter.read(a));
+            }
+            else
+            {
+                Annotation[] ans = ae.getAnnotationsByType(converter.type);
+                int len = ans.length;
+                for(int i = 0; i < len; i++)
                 {
-                    Annotation[] ans = ae.getAnnotationsByType(key);
-                    int len = ans.length;
-                    for(int i = 0; i < len; i++)
+                    if(i == 0)
                     {
-                        if(i == 0)
-                            b.append(docMultiple.preface());
-
-                        b.append(docMultiple.prefixEach())
-                            .append(((DocConverter<Annotation>)map.get(key)).read(ans[i]));
-
-                        if(i < len - 1)
-                            b.append(docMultiple.separateBy());
-                        else if(index < lastIndex)
+                        if(b.length() > 0)
                             b.append(separator);
+                        b.append(docMultiple.preface());
                     }
+
+                    b.append(docMultiple.prefixEach())
+                        .append(converter.converter.read(ans[i]));
+
+                    if(i < len - 1)
+                        b.append(docMultiple.separateBy());
                 }
             }
         }
 
         // Trim this down
-        String doc = b.toString().trim();
+        return b.toString().trim();
+    }
 
-        // Cache the read value, even if it's empty.
-        cache.add(ae, doc);
+    // A registered conversion, with the annotations on its annotation type looked up in advance
+    private static final class Converter
+    {
+        private final Class<? extends Annotation> type;
+        private final DocConverter<Annotation> converter;
+        private final DocMultiple docMultiple;
 
-        return doc;
+        private Converter(Class<? extends Annotation> type, DocConverter<Annotation> converter)
+        {
+            this.type = type;
+            this.converter = converter;
+            this.docMultiple = type.getAnnotation(DocMultiple.class);
+        }
+    }
+
+    // The documentation read with a fixed set of conversions, per Class.
+    // Values must not reference the ClassValue or this DocGenerator, or neither could ever be collected.
+    private static final class Docs extends ClassValue<ClassDocs>
+    {
+        private final Converter[] converters;
+        private final String separator;
+
+        private Docs(Converter[] converters, String separator)
+        {
+            this.converters = converters;
+            this.separator = separator;
+        }
+
+        @Override
+        protected ClassDocs computeValue(Class<?> type)
+        {
+            return new ClassDocs(converters, separator, type);
+        }
+    }
+
+    // Documentation is read lazily; racing threads may read the same element twice, but always get the same result
+    private static final class ClassDocs
+    {
+        private final Converter[] converters;
+        private final String separator;
+        private final Class<?> type;
+        private final ConcurrentHashMap<Method, String> methods = new ConcurrentHashMap<>();
+        private volatile String doc;
+        private volatile List<String> methodDocs;
+
+        private ClassDocs(Converter[] converters, String separator, Class<?> type)
+        {
+            this.converters = converters;
+            this.separator = separator;
+            this.type = type;
+        }
+
+        private String getDoc()
+        {
+            String doc = this.doc;
+            if(doc == null)
+                this.doc = doc = read(converters, separator, type);
+            return doc;
+        }
+
+        private String getDoc(Method method)
+        {
+            return methods.computeIfAbsent(method, m -> read(converters, separator, m));
+        }
+
+        private List<String> getMethodDocs(Docs docs)
+        {
+            List<String> methodDocs = this.methodDocs;
+            if(methodDocs == null)
+            {
+                List<String> list = new ArrayList<>();
+                for(Method method : type.getMethods())
+                {
+                    // Inherited methods are read and cached along with the class declaring them
+                    String doc = docs.get(method.getDeclaringClass()).getDoc(method);
+                    if(!doc.isEmpty())
+                        list.add(doc);
+                }
+                this.methodDocs = methodDocs = Collections.unmodifiableList(list);
+            }
+            return methodDocs;
+        }
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyAction;
+
+import java.util.List;
+
+/**
+ * A {@link net.dv8tion.jda.api.events.interaction.SlashCommandEvent SlashCommandEvent} created by a
+ * {@link FakeWorld FakeWorld}, without an underlying interaction.
+ *
+ * <p>Replies are recorded as responses by the fake world, and succeed right away.
+ */
+class FakeSlashCommandEvent extends SlashCommandEvent
+{
+    private final FakeWorld world;
+    private final long id;
+    private final TextChannel channel;
+    private final Member member;
+    private final String name;
+    private final String subcommandName;
+    private final List<OptionMapping> options;
+
+    FakeSlashCommandEvent(FakeWorld world, long responseNumber, long id, TextChannel channel, Member member,
+                          String name, String subcommandName, List<OptionMapping> options)
+    {
+        // Every method reading the interaction is overridden below
+        super(world.getJDA(), responseNumber, null);
+        this.world = world;
+        this.id = id;
+        this.channel = channel;
+        this.member = member;
+        this.name = name;
+        this.subcommandName = subcommandName;
+        this.options = options;
+    }
+
+    @Override
+    public long getIdLong()
+    {
+        return id;
+    }
+
+    @Override
+    public long getCommandIdLong()
+    {
+        return id;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public String getSubcommandName()
+    {
+        return subcommandName;
+    }
+
+    @Override
+    public String getSubcommandGroup()
+    {
+        return null;
+    }
+
+    @Override
+    public List<OptionMapping> getOptions()
+    {
+        return options;
+    }
+
+    @Override
+    public Guild getGuild()
+    {
+        return channel.getGuild();
+    }
+
+    @Override
+    public MessageChannel getChannel()
+    {
+        return channel;
+    }
+
+    @Override
+    public Member getMember()
+    {
+        return member;
+    }
+
+    @Override
+    public User getUser()
+    {
+        return member.getUser();
+    }
+
+    @Override
+    public ReplyAction deferReply()
+    {
+        return world.respondingAction(ReplyAction.class, null);
+    }
+
+    @Override
+    public ReplyAction reply(String content)
+    {
+        return world.respondingAction(ReplyAction.class, null);
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageReaction;
+import net.dv8tion.jda.api.entities.MessageType;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import net.dv8tion.jda.api.utils.cache.MemberCacheView;
+import net.dv8tion.jda.api.utils.cache.SnowflakeCacheView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-memory Discord: a fake {@link net.dv8tion.jda.api.JDA JDA} with guilds, text channels and members,
+ * which creates the gateway events a bot receives and records the messages it sends, without any network access.
+ *
+ * <p>The entities are fakes of the JDA interfaces, implementing what
+ * {@link com.jagrosh.jdautilities.command.CommandEvent CommandEvent},
+ * {@link com.jagrosh.jdautilities.command.SlashCommand SlashCommand},
+ * {@link com.jagrosh.jdautilities.menu.Menu Menu} and
+ * {@link com.jagrosh.jdautilities.commons.waiter.EventWaiter EventWaiter} rely on:
+ * <ul>
+ *     <li>Every member has every permission, and every channel can be talked in.</li>
+ *
+ *     <li>{@link net.dv8tion.jda.api.requests.RestAction RestActions} succeed as soon as they are queued.
+ *     Messages sent by the bot are kept, the most recent ones can be retrieved using {@link #getRecentMessages()}.</li>
+ *
+ *     <li>Sending, editing or replying to a message is a <i>response</i>. Responses are attributed to the event
+ *     being dispatched on the same thread, see {@link LoadGenerator LoadGenerator}.</li>
+ * </ul>
+ *
+ * <p>Methods the fakes do not implement return {@code null}, {@code false}, {@code 0}, empty collections,
+ * or fakes of the JDA interface they return.
+ *
+ * @see    FakeWorld.Builder
+ */
+public class FakeWorld
+{
+    private static final long FIRST_ID = 100000000000000000L;
+    private static final int RECENT_MESSAGES = 1024;
+
+    private final AtomicLong ids = new AtomicLong(FIRST_ID);
+    private final AtomicLong responseNumber = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicReferenceArray<Message> recentMessages = new AtomicReferenceArray<>(RECENT_MESSAGES);
+    private final LongAdder unattributedResponses = new LongAdder();
+    private final ThreadLocal<Request> currentRequest = new ThreadLocal<>();
+
+    private final JDA jda;
+    private final SelfUser selfUser;
+    private final List<Guild> guilds;
+    private final Map<Long, Guild> guildsById = new HashMap<>();
+    private final Map<Long, TextChannel> channelsById = new HashMap<>();
+
+    protected FakeWorld(int guildCount, int membersPerGuild, int channelsPerGuild)
+    {
+        this.selfUser = createSelfUser(ids.getAndIncrement());
+        this.jda = createJDA();
+        List<Guild> guilds = new ArrayList<>(guildCount);
+        for(int g = 0; g < guildCount; g++)
+            guilds.add(createGuild(g, membersPerGuild, channelsPerGuild));
+        this.guilds = Collections.unmodifiableList(guilds);
+    }
+
+    /**
+     * Gets the fake {@link net.dv8tion.jda.api.JDA JDA} of this world.
+     *
+     * @return The JDA
+     */
+    public JDA getJDA()
+    {
+        return jda;
+    }
+
+    /**
+     * Gets the {@link net.dv8tion.jda.api.entities.SelfUser SelfUser} of the bot.
+     *
+     * @return The SelfUser
+     */
+    public SelfUser getSelfUser()
+    {
+        return selfUser;
+    }
+
+    /**
+     * Gets the guilds of this world. Their text channels and members are returned by
+     * {@link Guild#getTextChannels()} and {@link Guild#getMembers()}.
+     *
+     * @return An immutable list of the guilds
+     */
+    public List<Guild> getGuilds()
+    {
+        return guilds;
+    }
+
+    /**
+     * Gets the messages most recently sent by the bot, up to 1024 of them, in no particular order.
+     *
+     * @return The messages most recently sent by the bot
+     */
+    public List<Message> getRecentMessages()
+    {
+        List<Message> messages = new ArrayList<>();
+        for(int i = 0; i < RECENT_MESSAGES; i++)
+        {
+            Message message = recentMessages.get(i);
+            if(message != null)
+                messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Gets the number of messages sent by the bot.
+     *
+     * @return The number of messages sent
+     */
+    public long getSentMessageCount()
+    {
+        return sentMessages.get();
+    }
+
+    /**
+     * Gets the number of responses that were not sent while an event was dispatched on the same thread,
+     * and therefore could not be attributed to one.
+     *
+     * @return The number of unattributed responses
+     */
+    public long getUnattributedResponseCount()
+    {
+        return unattributedResponses.sum();
+    }
+
+    /**
+     * Creates a {@link net.dv8tion.jda.api.events.message.MessageReceivedEvent MessageReceivedEvent}
+     * for a message sent by a member in a text channel.
+     *
+     * @param  channel
+     *         The text channel of the message, one of this world
+     * @param  author
+     *         The member sending the message, of the guild of the channel
+     * @param  content
+     *         The content of the message
+     *
+     * @return The event
+     */
+    public MessageReceivedEvent createMessage(TextChannel channel, Member author, String content)
+    {
+        Message message = createMessage(ids.getAndIncrement(), channel, author.getUser(), author, content);
+        return new MessageReceivedEvent(jda, responseNumber.getAndIncrement(), message);
+    }
+
+    /**
+     * Creates a {@link net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent MessageReactionAddEvent}
+     * for a unicode reaction added by a member to a message.
+     *
+     * @param  message
+     *         The message reacted to, usually one of the {@link #getRecentMessages() recent messages} of the bot
+     * @param  member
+     *         The member reacting, of the guild of the message
+     * @param  emoji
+     *         The unicode emoji of the reaction
+     *
+     * @return The event
+     */
+    public MessageReactionAddEvent createReaction(Message message, Member member, String emoji)
+    {
+        MessageReaction reaction = new FakeMessageReaction(message.getTextChannel(),
+            MessageReaction.ReactionEmote.fromUnicode(emoji, jda), message.getIdLong());
+        return new MessageReactionAddEvent(jda, responseNumber.getAndIncrement(), member.getUser(), member, reaction,
+            member.getIdLong());
+    }
+
+    /**
+     * Creates a {@link net.dv8tion.jda.api.events.interaction.SlashCommandEvent SlashCommandEvent}
+     * for a slash command used by a member in a text channel.
+     *
+     * @param  channel
+     *         The text channel the command is used in, one of this world
+     * @param  member
+     *         The member using the command, of the guild of the channel
+     * @param  name
+     *         The name of the command
+     * @param  subcommandName
+     *         The name of the subcommand, or {@code null}
+     * @param  options
+     *         The options of the command
+     *
+     * @return The event
+     */
+    public SlashCommandEvent createSlashCommand(TextChannel channel, Member member, String name, String subcommandName,
+                                                List<OptionMapping> options)
+    {
+        return new FakeSlashCommandEvent(this, responseNumber.getAndIncrement(), ids.getAndIncrement(), channel, member,
+            name, subcommandName, options);
+    }
+
+    // Response attribution, used by the load generator
+
+    void begin(Request request)
+    {
+        currentRequest.set(request);
+    }
+
+    void end()
+    {
+        currentRequest.remove();
+    }
+
+    void respond()
+    {
+        Request request = currentRequest.get();
+        if(request != null)
+            request.respond(System.nanoTime());
+        else
+            unattributedResponses.increment();
+    }
+
+    <T> T respondingAction(Class<T> type, Object result)
+    {
+        return Fakes.action(type, result, this::respond);
+    }
+
+    Message createSentMessage(TextChannel channel, Object content)
+    {
+        String text = content instanceof CharSequence ? content.toString()
+                    : content instanceof Message ? ((Message) content).getContentRaw() : "";
+        Message message = createMessage(ids.getAndIncrement(), channel, selfUser, channel.getGuild().getSelfMember(), text);
+        recentMessages.set((int) (sentMessages.getAndIncrement() % RECENT_MESSAGES), message);
+        return message;
+    }
+
+    // Entities
+
+    private SelfUser createSelfUser(long id)
+    {
+        return Fakes.fake(SelfUser.class, snowflake(id, (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "getName":          return "Harness";
+                case "getDiscriminator": return "0000";
+                case "getAsTag":         return "Harness#0000";
+                case "getAsMention":     return "<@" + id + ">";
+                case "isBot":            return true;
+                default:                 return Fakes.UNHANDLED;
+            }
+        }));
+    }
+
+    private JDA createJDA()
+    {
+        return Fakes.fake(JDA.class, (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "getSelfUser":         return selfUser;
+                case "getStatus":           return JDA.Status.CONNECTED;
+                case "getShardInfo":        return new JDA.ShardInfo(0, 1);
+                case "getGuilds":           return guilds;
+                case "getGuildCache":       return Fakes.cacheView(SnowflakeCacheView.class, guilds);
+                case "getGuildById":        return guildsById.get(toId(args[0]));
+                case "getTextChannelById":  return channelsById.get(toId(args[0]));
+                default:                    return Fakes.UNHANDLED;
+            }
+        });
+    }
+
+    private Guild createGuild(int index, int memberCount, int channelCount)
+    {
+        long id = ids.getAndIncrement();
+        List<Member> members = new ArrayList<>(memberCount);
+        Map<Long, Member> membersById = new HashMap<>();
+        List<TextChannel> channels = new ArrayList<>(channelCount);
+        Member[] selfMember = new Member[1];
+
+        Guild guild = Fakes.fake(Guild.class, snowflake(id, (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "getName":              return "Guild " + index;
+                case "getSelfMember":        return selfMember[0];
+                case "getMembers":           return members;
+                case "getMemberCount":       return members.size();
+                case "getMemberCache":       return Fakes.cacheView(MemberCacheView.class, members);
+                case "getMemberById":        return membersById.get(toId(args[0]));
+                case "getMember":            return membersById.get(((User) args[0]).getIdLong());
+                case "isMember":             return membersById.containsKey(((User) args[0]).getIdLong());
+                case "getTextChannels":      return channels;
+                case "getTextChannelCache":  return Fakes.cacheView(SnowflakeCacheView.class, channels);
+                case "getTextChannelById":   return channelsById.get(toId(args[0]));
+                default:                     return Fakes.UNHANDLED;
+            }
+        }));
+
+        selfMember[0] = createMember(guild, selfUser, "Harness");
+        for(int m = 0; m < memberCount; m++)
+        {
+            long userId = ids.getAndIncrement();
+            String name = "user" + index + "-" + m;
+            User user = createUser(userId, name);
+            Member member = createMember(guild, user, name);
+            members.add(member);
+            membersById.put(userId, member);
+        }
+        membersById.put(selfUser.getIdLong(), selfMember[0]);
+        for(int c = 0; c < channelCount; c++)
+        {
+            TextChannel channel = createTextChannel(guild, "channel-" + c, members);
+            channels.add(channel);
+            channelsById.put(channel.getIdLong(), channel);
+        }
+        guildsById.put(id, guild);
+        return guild;
+    }
+
+    private User createUser(long id, String name)
+    {
+        return Fakes.fake(User.class, snowflake(id, (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "getName":          return name;
+                case "getDiscriminator": return "0001";
+                case "getAsTag":         return name + "#0001";
+                case "getAsMention":     return "<@" + id + ">";
+                default:                 return Fakes.UNHANDLED;
+            }
+        }));
+    }
+
+    private Member createMember(Guild guild, User user, String name)
+    {
+        return Fakes.fake(Member.class, snowflake(user.getIdLong(), (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "getUser":          return user;
+                case "getGuild":         return guild;
+                case "getEffectiveName": return name;
+                case "getAsMention":     return user.getAsMention();
+                case "hasPermission":    return true;
+                case "hasAccess":        return true;
+                case "canInteract":      return true;
+                case "getPermissions":   return EnumSet.allOf(Permission.class);
+                default:                 return Fakes.UNHANDLED;
+            }
+        }));
+    }
+
+    private TextChannel createTextChannel(Guild guild, String name, List<Member> members)
+    {
+        long id = ids.getAndIncrement();
+        return Fakes.fake(TextChannel.class, snowflake(id, (proxy, method, args) ->
+        {
+            String methodName = method.getName();
+            if(methodName.startsWith("sendMessage") || methodName.startsWith("sendFile"))
+                return respondingAction(method.getReturnType(), createSentMessage((TextChannel) proxy, args.length > 0 ? args[0] : null));
+            switch(methodName)
+            {
+                case "getName":      return name;
+                case "getType":      return ChannelType.TEXT;
+                case "getGuild":     return guild;
+                case "getMembers":   return members;
+                case "getAsMention": return "<#" + id + ">";
+                case "canTalk":      return true;
+                default:             return Fakes.UNHANDLED;
+            }
+        }));
+    }
+
+    private Message createMessage(long id, TextChannel channel, User author, Member member, String content)
+    {
+        return Fakes.fake(Message.class, snowflake(id, (proxy, method, args) ->
+        {
+            String methodName = method.getName();
+            if(methodName.startsWith("edit"))
+                return respondingAction(method.getReturnType(), proxy);
+            if(methodName.startsWith("reply"))
+                return respondingAction(method.getReturnType(), createSentMessage(channel, args.length > 0 ? args[0] : null));
+            switch(methodName)
+            {
+                case "getContentRaw":
+                case "getContentDisplay":
+                case "getContentStripped":  return content;
+                case "getAuthor":           return author;
+                case "getMember":           return member;
+                case "getChannel":
+                case "getTextChannel":      return channel;
+                case "getGuild":            return channel.getGuild();
+                case "getChannelType":      return ChannelType.TEXT;
+                case "isFromType":          return args[0] == ChannelType.TEXT;
+                case "isFromGuild":         return true;
+                case "getType":             return MessageType.DEFAULT;
+                default:                    return Fakes.UNHANDLED;
+            }
+        }));
+    }
+
+    // Answers the methods shared by all snowflakes, then the ones of the entity
+    private Fakes.Handler snowflake(long id, Fakes.Handler handler)
+    {
+        return (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "getIdLong":      return id;
+                case "getId":          return Long.toUnsignedString(id);
+                case "getTimeCreated": return TimeUtil.getTimeCreated(id);
+                case "getJDA":         return jda;
+                default:               return handler.answer(proxy, method, args);
+            }
+        };
+    }
+
+    private static long toId(Object id)
+    {
+        return id instanceof Long ? (Long) id : Long.parseUnsignedLong(id.toString());
+    }
+
+    /**
+     * A {@link net.dv8tion.jda.api.entities.MessageReaction MessageReaction} whose removal is done
+     * by the fake world rather than requested from Discord.
+     */
+    private static class FakeMessageReaction extends MessageReaction
+    {
+        private FakeMessageReaction(TextChannel channel, ReactionEmote emote, long messageId)
+        {
+            super(channel, emote, messageId, false, 1);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public RestAction<Void> removeReaction(User user)
+        {
+            return Fakes.action(RestAction.class, null, () -> {});
+        }
+    }
+
+    /**
+     * A builder for a {@link FakeWorld}.
+     */
+    public static class Builder
+    {
+        private int guilds = 10;
+        private int membersPerGuild = 100;
+        private int channelsPerGuild = 5;
+
+        /**
+         * Sets the number of guilds.
+         * <br>Default is 10.
+         *
+         * @param  guilds
+         *         The number of guilds
+         *
+         * @return This builder
+         */
+        public Builder setGuilds(int guilds)
+        {
+            this.guilds = guilds;
+            return this;
+        }
+
+        /**
+         * Sets the number of members of each guild, not counting the bot.
+         * <br>Default is 100.
+         *
+         * @param  membersPerGuild
+         *         The number of members of each guild
+         *
+         * @return This builder
+         */
+        public Builder setMembersPerGuild(int membersPerGuild)
+        {
+            this.membersPerGuild = membersPerGuild;
+            return this;
+        }
+
+        /**
+         * Sets the number of text channels of each guild.
+         * <br>Default is 5.
+         *
+         * @param  channelsPerGuild
+         *         The number of text channels of each guild
+         *
+         * @return This builder
+         */
+        public Builder setChannelsPerGuild(int channelsPerGuild)
+        {
+            this.channelsPerGuild = channelsPerGuild;
+            return this;
+        }
+
+        /**
+         * Builds the FakeWorld.
+         *
+         * @return The FakeWorld
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If there are no guilds, members or channels
+         */
+        public FakeWorld build()
+        {
+            if(guilds <= 0 || membersPerGuild <= 0 || channelsPerGuild <= 0)
+                throw new IllegalArgumentException("A world needs at least one guild, member and channel!");
+            return new FakeWorld(guilds, membersPerGuild, channelsPerGuild);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Creates fakes of JDA interfaces, backed by dynamic proxies. They make up the entities of a
+ * {@link FakeWorld FakeWorld}, and can be used on their own by benchmarks and tests.
+ *
+ * <p>There are two kinds of fakes:
+ * <ul>
+ *     <li>{@link #stub(Class, Object...) Stubs} answer the methods they are given a value for, and return
+ *     {@code null}, {@code false} or {@code 0} for every other method. Answers are returned as they are,
+ *     so calling a stub does not allocate, which benchmarks rely on.</li>
+ *
+ *     <li>{@link #fake(Class, Handler) Fakes} answer the methods their {@link Handler Handler} implements,
+ *     and answer every other method so that unexpected calls do not fail:
+ *     <ul>
+ *         <li>{@link net.dv8tion.jda.api.requests.RestAction RestActions} succeed with {@code null}
+ *         when queued, without being recorded as a response.</li>
+ *         <li>Collections and streams are empty.</li>
+ *         <li>Other JDA interfaces are answered with a fake of their own.</li>
+ *         <li>Primitives are {@code false} or {@code 0}, and every other type is {@code null}.</li>
+ *     </ul></li>
+ * </ul>
+ */
+public final class Fakes
+{
+    /**
+     * Implements some of the methods of a fake.
+     */
+    @FunctionalInterface
+    public interface Handler
+    {
+        /**
+         * Answers a method call.
+         *
+         * @param  proxy
+         *         The fake
+         * @param  method
+         *         The method called
+         * @param  args
+         *         The arguments of the call, empty if there are none
+         *
+         * @throws Throwable
+         *         Thrown to the caller of the method
+         *
+         * @return The answer, or {@link #UNHANDLED} to use the default answer
+         */
+        Object answer(Object proxy, Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Returned by a {@link Handler} for the methods it does not implement.
+     */
+    public static final Object UNHANDLED = new Object();
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * Creates a stub of the provided interface.
+     *
+     * @param  type
+     *         The interface to stub
+     * @param  answers
+     *         Pairs of method names and the values they return
+     * @param  <T>
+     *         The type of the interface
+     *
+     * @throws IllegalArgumentException
+     *         If the answers are not pairs of method names and values
+     *
+     * @return The stub
+     */
+    public static <T> T stub(Class<T> type, Object... answers)
+    {
+        if(answers.length % 2 != 0)
+            throw new IllegalArgumentException("Answers must be pairs of method names and values!");
+        Map<String, Object> values = new HashMap<>();
+        for(int i = 0; i < answers.length; i += 2)
+            values.put((String) answers[i], answers[i + 1]);
+
+        return proxy(type, (proxy, method, args) ->
+        {
+            Object answer = values.get(method.getName());
+            if(answer != null || values.containsKey(method.getName()))
+                return answer;
+            switch(method.getName())
+            {
+                case "equals":   return proxy == args[0];
+                case "hashCode": return System.identityHashCode(proxy);
+                case "toString": return type.getSimpleName() + "Stub";
+            }
+            return method.getReturnType().isPrimitive() ? defaultValue(method.getReturnType()) : null;
+        });
+    }
+
+    /**
+     * Creates a fake of the provided JDA interface.
+     *
+     * @param  type
+     *         The interface to fake
+     * @param  handler
+     *         Implements the methods of the fake
+     * @param  <T>
+     *         The type of the interface
+     *
+     * @return The fake
+     */
+    public static <T> T fake(Class<T> type, Handler handler)
+    {
+        InvocationHandler invocationHandler = (proxy, method, args) ->
+        {
+            Object[] arguments = args == null ? NO_ARGS : args;
+            Object answer = handler.answer(proxy, method, arguments);
+            if(answer != UNHANDLED)
+                return answer;
+            switch(method.getName())
+            {
+                case "equals":   return proxy == arguments[0];
+                case "hashCode": return System.identityHashCode(proxy);
+                case "toString": return type.getSimpleName() + "Fake";
+            }
+            return defaultAnswer(method.getReturnType());
+        };
+        return proxy(type, invocationHandler);
+    }
+
+    /**
+     * Creates a fake {@link RestAction} of the provided type, which succeeds with the provided result.
+     * <br>Methods returning the action itself, such as the setters of a
+     * {@link net.dv8tion.jda.api.requests.restaction.MessageAction MessageAction}, return it unchanged.
+     *
+     * @param  type
+     *         The RestAction interface to fake
+     * @param  result
+     *         The result the action succeeds with
+     * @param  onQueue
+     *         Run when the action is queued, completed or submitted, before its success callback
+     * @param  <T>
+     *         The type of the RestAction interface
+     *
+     * @return The fake action
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T action(Class<T> type, Object result, Runnable onQueue)
+    {
+        return fake(type, (proxy, method, args) ->
+        {
+            String name = method.getName();
+            if(name.startsWith("queue"))
+            {
+                onQueue.run();
+                for(Object arg : args)
+                {
+                    // The first consumer is the success callback
+                    if(arg instanceof Consumer)
+                    {
+                        ((Consumer<Object>) arg).accept(result);
+                        break;
+                    }
+                }
+                return null;
+            }
+            if(name.startsWith("complete"))
+            {
+                onQueue.run();
+                return result;
+            }
+            if(name.startsWith("submit"))
+            {
+                onQueue.run();
+                return CompletableFuture.completedFuture(result);
+            }
+            if(method.getReturnType().isInstance(proxy))
+                return proxy;
+            return UNHANDLED;
+        });
+    }
+
+    /**
+     * Creates a fake of a JDA cache view interface, such as
+     * {@link net.dv8tion.jda.api.utils.cache.MemberCacheView MemberCacheView}, over the provided elements.
+     *
+     * <p>Iteration, streaming and size methods are answered from the list, every other method is answered
+     * like it is by a {@link #fake(Class, Handler) fake}.
+     *
+     * @param  type
+     *         The cache view interface to fake
+     * @param  elements
+     *         The elements of the cache
+     * @param  <T>
+     *         The type of the cache view
+     *
+     * @return The fake cache view
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T cacheView(Class<T> type, List<?> elements)
+    {
+        return fake(type, (proxy, method, args) ->
+        {
+            switch(method.getName())
+            {
+                case "iterator":       return elements.iterator();
+                case "spliterator":    return elements.spliterator();
+                case "stream":         return elements.stream();
+                case "parallelStream": return elements.parallelStream();
+                case "asList":         return elements;
+                case "size":           return (long) elements.size();
+                case "isEmpty":        return elements.isEmpty();
+                case "forEach":
+                    elements.forEach((Consumer<Object>) args[0]);
+                    return null;
+                default:               return UNHANDLED;
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultAnswer(Class<?> type)
+    {
+        if(type.isPrimitive())
+            return defaultValue(type);
+        if(RestAction.class.isAssignableFrom(type))
+            return action(type, null, () -> {});
+        if(type == List.class || type == Collection.class)
+            return Collections.emptyList();
+        if(type == Set.class)
+            return Collections.emptySet();
+        if(type == Map.class)
+            return Collections.emptyMap();
+        if(type == Stream.class)
+            return Stream.empty();
+        if(type.isInterface() && type.getName().startsWith("net.dv8tion.jda.api."))
+            return fake(type, (proxy, method, args) -> UNHANDLED);
+        return null;
+    }
+
+    private static Object defaultValue(Class<?> type)
+    {
+        if(type == void.class)
+            return null;
+        if(type == boolean.class)
+            return false;
+        if(type == char.class)
+            return '\0';
+        if(type == long.class)
+            return 0L;
+        if(type == float.class)
+            return 0F;
+        if(type == double.class)
+            return 0D;
+        if(type == byte.class)
+            return (byte) 0;
+        if(type == short.class)
+            return (short) 0;
+        return 0;
+    }
+
+    // Prevent instantiation
+    private Fakes() {}
+}
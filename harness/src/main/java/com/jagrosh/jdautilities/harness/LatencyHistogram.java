@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies, in nanoseconds, which can be recorded to from several threads.
+ *
+ * <p>Latencies are counted in buckets that are 1/32 of a power of two wide, so percentiles are
+ * accurate to about 3%, whatever the number of recorded latencies.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param  nanos
+     *         The latency, in nanoseconds. Negative latencies are recorded as 0.
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return The number of recorded latencies
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * Gets the highest recorded latency.
+     *
+     * @param  unit
+     *         The unit to return the latency in
+     *
+     * @return The highest latency, or 0 if none was recorded
+     */
+    public double getMax(TimeUnit unit)
+    {
+        return convert(max.get(), unit);
+    }
+
+    /**
+     * Gets the mean of the recorded latencies.
+     *
+     * @param  unit
+     *         The unit to return the latency in
+     *
+     * @return The mean latency, or 0 if none was recorded
+     */
+    public double getMean(TimeUnit unit)
+    {
+        long count = getCount();
+        return count == 0 ? 0 : convert(sum.sum(), unit) / count;
+    }
+
+    /**
+     * Gets the latency under which the provided percentage of the recorded latencies are.
+     *
+     * @param  percentile
+     *         The percentile, between 0 and 100
+     * @param  unit
+     *         The unit to return the latency in
+     *
+     * @return The latency at the percentile, or 0 if none was recorded
+     */
+    public double getPercentile(double percentile, TimeUnit unit)
+    {
+        long count = getCount();
+        if(count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for(int i = 0; i < buckets.length(); i++)
+        {
+            seen += buckets.get(i);
+            if(seen >= rank)
+                return convert(Math.min(middle(i), max.get()), unit);
+        }
+        return getMax(unit);
+    }
+
+    private static int index(long value)
+    {
+        if(value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long middle(int index)
+    {
+        if(index < SUB_BUCKETS)
+            return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) / 2;
+    }
+
+    private static double convert(long nanos, TimeUnit unit)
+    {
+        return (double) nanos / unit.toNanos(1);
+    }
+}
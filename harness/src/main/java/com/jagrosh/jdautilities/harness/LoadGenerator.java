@@ -0,0 +1,463 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispatches synthetic gateway events of a {@link FakeWorld FakeWorld} to event listeners, such as a
+ * {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl CommandClientImpl} and an
+ * {@link com.jagrosh.jdautilities.commons.waiter.EventWaiter EventWaiter}, and measures how fast they are handled.
+ *
+ * <p>Messages, reactions and slash commands arrive at random times, at the average rates set using the
+ * {@link LoadGenerator.Builder Builder}, in random channels of random guilds, from random members.
+ * Reactions are added to one of the {@link FakeWorld#getRecentMessages() recent messages} of the bot,
+ * so that menus receive them.
+ *
+ * <p>Arrival times do not depend on how fast events are handled: events are scheduled ahead of time and handed
+ * to a pool of dispatching threads, like the event threads of JDA. When the listeners cannot keep up, events queue
+ * and the time they wait is counted in their latency, instead of the generator slowing down.
+ *
+ * <p>While a dispatching thread runs the listeners of an event, the messages the bot sends, edits or replies with
+ * are attributed to that event, which measures the response latency. Responses sent from other threads, for
+ * example by a {@link com.jagrosh.jdautilities.commons.waiter.EventWaiter EventWaiter} timing out, are only counted
+ * by {@link FakeWorld#getUnattributedResponseCount()}.
+ *
+ * <p>Listeners must not need a connection to Discord. A
+ * {@link com.jagrosh.jdautilities.command.CommandClient CommandClient} for instance must be built with
+ * {@link com.jagrosh.jdautilities.command.CommandClientBuilder#setManualUpsert(boolean) manual upserts}, as the
+ * fake JDA cannot upsert slash commands.
+ *
+ * @see    LoadReport
+ */
+public class LoadGenerator
+{
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final FakeWorld world;
+    private final List<EventListener> listeners;
+    private final double messageRate, reactionRate, slashCommandRate;
+    private final double commandRatio;
+    private final String[] commandMessages, reactionEmojis, slashCommands;
+    private final long durationNanos;
+    private final int threads;
+    private final long seed;
+
+    private LoadGenerator(Builder builder)
+    {
+        this.world = builder.world;
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(builder.listeners));
+        this.messageRate = builder.messageRate;
+        this.reactionRate = builder.reactionRate;
+        this.slashCommandRate = builder.slashCommandRate;
+        this.commandRatio = builder.commandMessages.length == 0 ? 0 : builder.commandRatio;
+        this.commandMessages = builder.commandMessages;
+        this.reactionEmojis = builder.reactionEmojis;
+        this.slashCommands = builder.slashCommands;
+        this.durationNanos = builder.durationNanos;
+        this.threads = builder.threads;
+        this.seed = builder.seed;
+    }
+
+    /**
+     * Gets the world the events are created in.
+     *
+     * @return The world
+     */
+    public FakeWorld getWorld()
+    {
+        return world;
+    }
+
+    /**
+     * Dispatches a {@link net.dv8tion.jda.api.events.ReadyEvent ReadyEvent} to the listeners, then dispatches
+     * events for the configured duration, and waits for all of them to be handled.
+     *
+     * <p>This blocks the calling thread, which schedules the events, for the whole run.
+     *
+     * @throws InterruptedException
+     *         If the calling thread is interrupted while waiting for the events to be handled
+     *
+     * @return The report of the run
+     */
+    public LoadReport run() throws InterruptedException
+    {
+        for(EventListener listener : listeners)
+            listener.onEvent(new ReadyEvent(world.getJDA(), 0));
+
+        LoadReport report = new LoadReport();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable ->
+        {
+            Thread thread = new Thread(runnable, "LoadGenerator-Dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Random random = new Random(seed);
+        double totalRate = messageRate + reactionRate + slashCommandRate;
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        double next = start;
+        while(totalRate > 0)
+        {
+            // Poisson arrivals: the time to the next event is exponentially distributed
+            next += -Math.log(1 - random.nextDouble()) / totalRate * TimeUnit.SECONDS.toNanos(1);
+            if(next >= end)
+                break;
+            long scheduledAt = (long) next;
+            long wait;
+            while((wait = scheduledAt - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+
+            double pick = random.nextDouble() * totalRate;
+            LoadReport.Kind kind;
+            GenericEvent event;
+            if(pick < messageRate)
+            {
+                boolean command = random.nextDouble() < commandRatio;
+                kind = command ? LoadReport.Kind.COMMAND_MESSAGE : LoadReport.Kind.MESSAGE;
+                event = createMessage(random, command);
+            }
+            else if(pick < messageRate + reactionRate)
+            {
+                kind = LoadReport.Kind.REACTION;
+                event = createReaction(random);
+                // Nothing to react to until the bot sent a message
+                if(event == null)
+                    continue;
+            }
+            else
+            {
+                kind = LoadReport.Kind.SLASH_COMMAND;
+                event = createSlashCommand(random);
+            }
+            Request request = new Request(kind, scheduledAt);
+            executor.execute(() -> dispatch(request, event, report));
+        }
+
+        executor.shutdown();
+        while(!executor.awaitTermination(1, TimeUnit.SECONDS))
+            LOG.debug("Waiting for the dispatching threads to handle the remaining events");
+        report.setElapsed(System.nanoTime() - start);
+        return report;
+    }
+
+    private void dispatch(Request request, GenericEvent event, LoadReport report)
+    {
+        world.begin(request);
+        try
+        {
+            for(EventListener listener : listeners)
+            {
+                try
+                {
+                    listener.onEvent(event);
+                }
+                catch(Throwable t)
+                {
+                    if(report.recordError(request.kind, t))
+                        LOG.error("A listener threw while handling a {} event, further errors are only counted", request.kind, t);
+                }
+            }
+        }
+        finally
+        {
+            world.end();
+        }
+        report.record(request, System.nanoTime());
+    }
+
+    private GenericEvent createMessage(Random random, boolean command)
+    {
+        TextChannel channel = pick(random, pick(random, world.getGuilds()).getTextChannels());
+        Member author = pick(random, channel.getGuild().getMembers());
+        String content = command ? pick(random, commandMessages) : "message " + random.nextInt(1000);
+        return world.createMessage(channel, author, content);
+    }
+
+    private GenericEvent createReaction(Random random)
+    {
+        List<Message> messages = world.getRecentMessages();
+        if(messages.isEmpty())
+            return null;
+        Message message = pick(random, messages);
+        Member member = pick(random, message.getGuild().getMembers());
+        return world.createReaction(message, member, pick(random, reactionEmojis));
+    }
+
+    private GenericEvent createSlashCommand(Random random)
+    {
+        Guild guild = pick(random, world.getGuilds());
+        TextChannel channel = pick(random, guild.getTextChannels());
+        Member member = pick(random, guild.getMembers());
+        String[] path = pick(random, slashCommands).split("/", 2);
+        return world.createSlashCommand(channel, member, path[0], path.length > 1 ? path[1] : null, Collections.emptyList());
+    }
+
+    private static <T> T pick(Random random, List<T> list)
+    {
+        return list.get(random.nextInt(list.size()));
+    }
+
+    private static <T> T pick(Random random, T[] array)
+    {
+        return array[random.nextInt(array.length)];
+    }
+
+    /**
+     * Builds a {@link LoadGenerator LoadGenerator}.
+     *
+     * <p>By default, the generator runs for 10 seconds on a single dispatching thread, and only creates 100
+     * messages per second, none of which are commands.
+     */
+    public static class Builder
+    {
+        private final FakeWorld world;
+        private final List<EventListener> listeners = new ArrayList<>();
+        private double messageRate = 100;
+        private double commandRatio = 0.5;
+        private String[] commandMessages = new String[0];
+        private double reactionRate = 0;
+        private String[] reactionEmojis = {"\u25C0", "\u25B6"};
+        private double slashCommandRate = 0;
+        private String[] slashCommands = new String[0];
+        private long durationNanos = TimeUnit.SECONDS.toNanos(10);
+        private int threads = 1;
+        private long seed = System.nanoTime();
+
+        /**
+         * Constructs a Builder of a generator creating events in the provided world.
+         *
+         * @param  world
+         *         The world to create events in
+         */
+        public Builder(FakeWorld world)
+        {
+            if(world == null)
+                throw new IllegalArgumentException("World must not be null!");
+            this.world = world;
+        }
+
+        /**
+         * Adds listeners the events are dispatched to, in order.
+         *
+         * @param  listeners
+         *         The listeners to add
+         *
+         * @return This builder
+         */
+        public Builder addListeners(EventListener... listeners)
+        {
+            this.listeners.addAll(Arrays.asList(listeners));
+            return this;
+        }
+
+        /**
+         * Sets the average number of messages received per second, including the ones invoking commands.
+         *
+         * @param  perSecond
+         *         The number of messages per second
+         *
+         * @return This builder
+         */
+        public Builder setMessageRate(double perSecond)
+        {
+            this.messageRate = checkRate(perSecond);
+            return this;
+        }
+
+        /**
+         * Sets the contents of the messages invoking commands, such as {@code "!ping"}, one of which is picked
+         * at random for every such message.
+         *
+         * @param  commandMessages
+         *         The contents of the messages invoking commands
+         *
+         * @return This builder
+         */
+        public Builder setCommandMessages(String... commandMessages)
+        {
+            this.commandMessages = commandMessages.clone();
+            return this;
+        }
+
+        /**
+         * Sets the share of the messages which invoke commands, defaults to {@code 0.5}.
+         *
+         * @param  commandRatio
+         *         The share of the messages invoking commands, between 0 and 1
+         *
+         * @return This builder
+         */
+        public Builder setCommandRatio(double commandRatio)
+        {
+            if(commandRatio < 0 || commandRatio > 1)
+                throw new IllegalArgumentException("Command ratio must be between 0 and 1!");
+            this.commandRatio = commandRatio;
+            return this;
+        }
+
+        /**
+         * Sets the average number of reactions added per second to messages of the bot.
+         *
+         * @param  perSecond
+         *         The number of reactions per second
+         *
+         * @return This builder
+         */
+        public Builder setReactionRate(double perSecond)
+        {
+            this.reactionRate = checkRate(perSecond);
+            return this;
+        }
+
+        /**
+         * Sets the unicode emojis of the reactions, one of which is picked at random for every reaction.
+         * Defaults to the arrows of a {@link com.jagrosh.jdautilities.menu.Paginator Paginator}.
+         *
+         * @param  emojis
+         *         The unicode emojis of the reactions
+         *
+         * @return This builder
+         */
+        public Builder setReactionEmojis(String... emojis)
+        {
+            if(emojis.length == 0)
+                throw new IllegalArgumentException("At least one emoji is required!");
+            this.reactionEmojis = emojis.clone();
+            return this;
+        }
+
+        /**
+         * Sets the average number of slash commands used per second.
+         *
+         * @param  perSecond
+         *         The number of slash commands per second
+         *
+         * @return This builder
+         */
+        public Builder setSlashCommandRate(double perSecond)
+        {
+            this.slashCommandRate = checkRate(perSecond);
+            return this;
+        }
+
+        /**
+         * Sets the slash commands used, one of which is picked at random for every slash command.
+         * A subcommand is written after its command and a slash, such as {@code "config/set"}.
+         *
+         * @param  slashCommands
+         *         The slash commands used
+         *
+         * @return This builder
+         */
+        public Builder setSlashCommands(String... slashCommands)
+        {
+            this.slashCommands = slashCommands.clone();
+            return this;
+        }
+
+        /**
+         * Sets how long events are created for, defaults to 10 seconds.
+         *
+         * @param  duration
+         *         The duration
+         * @param  unit
+         *         The unit of the duration
+         *
+         * @return This builder
+         */
+        public Builder setDuration(long duration, TimeUnit unit)
+        {
+            if(duration <= 0)
+                throw new IllegalArgumentException("Duration must be positive!");
+            this.durationNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the number of threads dispatching events, defaults to 1 like JDA.
+         *
+         * @param  threads
+         *         The number of dispatching threads
+         *
+         * @return This builder
+         */
+        public Builder setThreads(int threads)
+        {
+            if(threads <= 0)
+                throw new IllegalArgumentException("Threads must be positive!");
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the random arrivals and picks, so that runs create the same events.
+         *
+         * @param  seed
+         *         The seed
+         *
+         * @return This builder
+         */
+        public Builder setSeed(long seed)
+        {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Builds the generator.
+         *
+         * @throws IllegalArgumentException
+         *         If slash commands are created but none were set
+         *
+         * @return The generator
+         */
+        public LoadGenerator build()
+        {
+            if(slashCommandRate > 0 && slashCommands.length == 0)
+                throw new IllegalArgumentException("Slash commands must be set to create slash commands!");
+            return new LoadGenerator(this);
+        }
+
+        private static double checkRate(double perSecond)
+        {
+            if(perSecond < 0 || Double.isNaN(perSecond) || Double.isInfinite(perSecond))
+                throw new IllegalArgumentException("Rate must be a finite number of events per second!");
+            return perSecond;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import com.jagrosh.jdautilities.commons.utils.TableBuilder;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The throughput and latencies measured by a run of a {@link LoadGenerator LoadGenerator}, for every
+ * {@link LoadReport.Kind Kind} of event it dispatched.
+ *
+ * <p>Two latencies are measured, both from the time the event was scheduled to arrive at:
+ * <ul>
+ *     <li>The <b>dispatch</b> latency, until every listener returned from the event.</li>
+ *
+ *     <li>The <b>response</b> latency, until the bot sent, edited or replied to a message while handling
+ *     the event. Events without a response, such as messages that are not commands, are not counted.</li>
+ * </ul>
+ *
+ * <p>As events are scheduled independently of how fast the bot handles them, the time events spend waiting
+ * for a busy bot is part of both latencies.
+ */
+public class LoadReport
+{
+    private final Map<Kind, Stats> stats = new EnumMap<>(Kind.class);
+    private volatile long elapsedNanos;
+
+    LoadReport()
+    {
+        for(Kind kind : Kind.values())
+            stats.put(kind, new Stats());
+    }
+
+    /**
+     * Gets the number of events of the provided kind which were dispatched.
+     *
+     * @param  kind
+     *         The kind of event
+     *
+     * @return The number of events
+     */
+    public long getEvents(Kind kind)
+    {
+        return stats.get(kind).dispatch.getCount();
+    }
+
+    /**
+     * Gets the number of events of the provided kind which were dispatched per second.
+     *
+     * @param  kind
+     *         The kind of event
+     *
+     * @return The number of events per second
+     */
+    public double getThroughput(Kind kind)
+    {
+        double seconds = getElapsed(TimeUnit.SECONDS);
+        return seconds == 0 ? 0 : getEvents(kind) / seconds;
+    }
+
+    /**
+     * Gets the number of events of the provided kind for which a listener threw.
+     *
+     * @param  kind
+     *         The kind of event
+     *
+     * @return The number of errors
+     */
+    public long getErrors(Kind kind)
+    {
+        return stats.get(kind).errors.sum();
+    }
+
+    /**
+     * Gets the first error thrown by a listener for an event of the provided kind.
+     *
+     * @param  kind
+     *         The kind of event
+     *
+     * @return Possibly-null first error
+     */
+    public Throwable getFirstError(Kind kind)
+    {
+        return stats.get(kind).firstError.get();
+    }
+
+    /**
+     * Gets the dispatch latencies of the events of the provided kind.
+     *
+     * @param  kind
+     *         The kind of event
+     *
+     * @return The dispatch latencies
+     */
+    public LatencyHistogram getDispatchLatency(Kind kind)
+    {
+        return stats.get(kind).dispatch;
+    }
+
+    /**
+     * Gets the response latencies of the events of the provided kind the bot responded to.
+     *
+     * @param  kind
+     *         The kind of event
+     *
+     * @return The response latencies
+     */
+    public LatencyHistogram getResponseLatency(Kind kind)
+    {
+        return stats.get(kind).response;
+    }
+
+    /**
+     * Gets the time the run took, from the first event being scheduled until the last one was handled.
+     *
+     * @param  unit
+     *         The unit to return the time in
+     *
+     * @return The time the run took
+     */
+    public double getElapsed(TimeUnit unit)
+    {
+        return (double) elapsedNanos / unit.toNanos(1);
+    }
+
+    void record(Request request, long dispatchedAt)
+    {
+        Stats stats = this.stats.get(request.kind);
+        stats.dispatch.record(dispatchedAt - request.scheduledAt);
+        if(request.hasResponse())
+            stats.response.record(request.getResponseLatency());
+    }
+
+    // Returns true if this is the first error of its kind
+    boolean recordError(Kind kind, Throwable error)
+    {
+        Stats stats = this.stats.get(kind);
+        stats.errors.increment();
+        return stats.firstError.compareAndSet(null, error);
+    }
+
+    void setElapsed(long elapsedNanos)
+    {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Formats this report as a table, with a row for every kind of event that was dispatched.
+     *
+     * @return The report as a table
+     */
+    @Override
+    public String toString()
+    {
+        Kind[] kinds = Kind.values();
+        String[] rowNames = new String[kinds.length];
+        String[][] values = new String[kinds.length][];
+        int rows = 0;
+        for(Kind kind : kinds)
+        {
+            if(getEvents(kind) == 0)
+                continue;
+            LatencyHistogram dispatch = getDispatchLatency(kind);
+            LatencyHistogram response = getResponseLatency(kind);
+            rowNames[rows] = kind.name();
+            values[rows++] = new String[] {
+                String.valueOf(getEvents(kind)),
+                format(getThroughput(kind)),
+                String.valueOf(getErrors(kind)),
+                format(dispatch.getPercentile(50, TimeUnit.MILLISECONDS)),
+                format(dispatch.getPercentile(99, TimeUnit.MILLISECONDS)),
+                format(dispatch.getMax(TimeUnit.MILLISECONDS)),
+                String.valueOf(response.getCount()),
+                format(response.getPercentile(50, TimeUnit.MILLISECONDS)),
+                format(response.getPercentile(90, TimeUnit.MILLISECONDS)),
+                format(response.getPercentile(99, TimeUnit.MILLISECONDS)),
+                format(response.getMax(TimeUnit.MILLISECONDS))
+            };
+        }
+        String summary = String.format(Locale.ROOT, "Elapsed: %.1fs", getElapsed(TimeUnit.SECONDS));
+        if(rows == 0)
+            return summary + ", no events were dispatched";
+
+        String[] usedRowNames = new String[rows];
+        String[][] usedValues = new String[rows][];
+        System.arraycopy(rowNames, 0, usedRowNames, 0, rows);
+        System.arraycopy(values, 0, usedValues, 0, rows);
+        return summary + ", latencies in ms\n" + new TableBuilder()
+            .addHeaders("Events", "Per second", "Errors",
+                "Dispatch p50", "Dispatch p99", "Dispatch max",
+                "Responses", "Response p50", "Response p90", "Response p99", "Response max")
+            .addRowNames(usedRowNames)
+            .setValues(usedValues)
+            .setBorders(TableBuilder.Borders.HEADER_ROW_FRAME)
+            .setAlignment(TableBuilder.Alignment.RIGHT)
+            .setName("Kind")
+            .frame(true)
+            .build();
+    }
+
+    private static String format(double value)
+    {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * The kinds of gateway events a {@link LoadGenerator LoadGenerator} dispatches.
+     */
+    public enum Kind
+    {
+        /** A {@link net.dv8tion.jda.api.events.message.MessageReceivedEvent MessageReceivedEvent} invoking a command. */
+        COMMAND_MESSAGE,
+        /** A {@link net.dv8tion.jda.api.events.message.MessageReceivedEvent MessageReceivedEvent} of any other message. */
+        MESSAGE,
+        /** A {@link net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent MessageReactionAddEvent} on a message of the bot. */
+        REACTION,
+        /** A {@link net.dv8tion.jda.api.events.interaction.SlashCommandEvent SlashCommandEvent}. */
+        SLASH_COMMAND
+    }
+
+    private static class Stats
+    {
+        private final LatencyHistogram dispatch = new LatencyHistogram();
+        private final LatencyHistogram response = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+    }
+}
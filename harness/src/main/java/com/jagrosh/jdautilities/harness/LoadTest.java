@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+import com.jagrosh.jdautilities.command.Command;
+import com.jagrosh.jdautilities.command.CommandClient;
+import com.jagrosh.jdautilities.command.CommandClientBuilder;
+import com.jagrosh.jdautilities.command.CommandEvent;
+import com.jagrosh.jdautilities.command.SlashCommand;
+import com.jagrosh.jdautilities.commons.waiter.EventWaiter;
+import com.jagrosh.jdautilities.menu.Paginator;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl CommandClientImpl} with a text command,
+ * a slash command and a {@link com.jagrosh.jdautilities.menu.Paginator Paginator} under load in a
+ * {@link FakeWorld FakeWorld}, and prints the {@link LoadReport LoadReport}.
+ *
+ * <p>Run it with {@code ./gradlew :harness:run}, optionally followed by {@code --args=<seconds>} to change
+ * how long the load lasts, which defaults to 10 seconds.
+ */
+public class LoadTest
+{
+    public static void main(String[] args) throws InterruptedException
+    {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        // Shut down explicitly, as an automatically shut down waiter would keep the JVM alive
+        EventWaiter waiter = new EventWaiter(newExecutor(), false);
+        String[] items = new String[100];
+        for(int i = 0; i < items.length; i++)
+            items[i] = "Item " + (i + 1);
+        Paginator.Builder paginator = new Paginator.Builder()
+            .setEventWaiter(waiter)
+            .setItemsPerPage(10)
+            .setTimeout(1, TimeUnit.MINUTES)
+            .setItems(items);
+
+        CommandClient client = new CommandClientBuilder()
+            .setOwnerId("1")
+            .setPrefix("!")
+            .setActivity(null)
+            .setScheduleExecutor(newExecutor())
+            // The fake JDA cannot upsert slash commands
+            .setManualUpsert(true)
+            .addCommand(new Command()
+            {
+                {
+                    this.name = "ping";
+                    this.help = "replies with pong";
+                }
+
+                @Override
+                protected void execute(CommandEvent event)
+                {
+                    event.reply("pong");
+                }
+            })
+            .addCommand(new Command()
+            {
+                {
+                    this.name = "list";
+                    this.help = "shows a paginated list";
+                }
+
+                @Override
+                protected void execute(CommandEvent event)
+                {
+                    paginator.build().display(event.getChannel());
+                }
+            })
+            .addSlashCommand(new SlashCommand()
+            {
+                {
+                    this.name = "ping";
+                    this.help = "replies with pong";
+                }
+
+                @Override
+                protected void execute(SlashCommandEvent event)
+                {
+                    event.reply("pong").queue();
+                }
+            })
+            .build();
+
+        FakeWorld world = new FakeWorld.Builder()
+            .setGuilds(50)
+            .setMembersPerGuild(200)
+            .setChannelsPerGuild(5)
+            .build();
+
+        LoadReport report = new LoadGenerator.Builder(world)
+            .addListeners((EventListener) client, waiter)
+            .setMessageRate(2000)
+            .setCommandMessages("!ping", "!list")
+            .setCommandRatio(0.5)
+            .setReactionRate(500)
+            .setSlashCommandRate(500)
+            .setSlashCommands("ping")
+            .setDuration(seconds, TimeUnit.SECONDS)
+            .setSeed(0)
+            .build()
+            .run();
+
+        System.out.println(report);
+        System.out.println("Messages sent by the bot: " + world.getSentMessageCount()
+            + ", responses not attributed to an event: " + world.getUnattributedResponseCount());
+
+        client.shutdown();
+        waiter.shutdown();
+    }
+
+    // Pending Paginator timeouts and stats publications are dropped on shutdown, so that the JVM exits
+    private static ScheduledExecutorService newExecutor()
+    {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+}
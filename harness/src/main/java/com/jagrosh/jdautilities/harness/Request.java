@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.harness;
+
+/**
+ * An event dispatched by the {@link LoadGenerator LoadGenerator}, to which responses are attributed.
+ */
+final class Request
+{
+    final LoadReport.Kind kind;
+    final long scheduledAt;
+    private long respondedAt = -1;
+
+    Request(LoadReport.Kind kind, long scheduledAt)
+    {
+        this.kind = kind;
+        this.scheduledAt = scheduledAt;
+    }
+
+    // Only the first response counts, the ones following it are usually reactions or edits of the same message
+    void respond(long time)
+    {
+        if(respondedAt < 0)
+            respondedAt = time;
+    }
+
+    boolean hasResponse()
+    {
+        return respondedAt >= 0;
+    }
+
+    long getResponseLatency()
+    {
+        return respondedAt - scheduledAt;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.smoke;
+
+import com.jagrosh.jdautilities.command.Command;
+import com.jagrosh.jdautilities.command.CommandClient;
+import com.jagrosh.jdautilities.command.CommandClientBuilder;
+import com.jagrosh.jdautilities.command.CommandEvent;
+import com.jagrosh.jdautilities.command.CommandMessages;
+import com.jagrosh.jdautilities.command.impl.AnnotatedModuleCompilerImpl;
+import com.jagrosh.jdautilities.doc.DocGenerator;
+import com.jagrosh.jdautilities.harness.Fakes;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.managers.Presence;
+import net.dv8tion.jda.api.utils.cache.SnowflakeCacheView;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Boots a {@link com.jagrosh.jdautilities.command.impl.CommandClientImpl CommandClientImpl} against a stub
+ * {@link net.dv8tion.jda.api.JDA JDA}, to check that the command and doc modules work in a native image.
+ *
+ * <p>Build and run it with {@code ./gradlew :native-smoke:nativeRun}, which requires GraalVM.
+ * <br>The process exits with a non-zero status if any check fails.
+ */
+public class NativeSmokeTest
+{
+    public static void main(String[] args)
+    {
+        // Compiled by the annotation processor, so no reflection is involved
+        List<Command> compiled = new AnnotatedModuleCompilerImpl().compile(new SmokeModule());
+        check(compiled.size() == 2, "Expected 2 compiled commands, got " + compiled.size());
+        check(compiled.stream().anyMatch(c -> c.getName().equals("ping") && c.getChildren().length == 1),
+            "The ping command was not compiled with its child");
+
+        CommandClient client = new CommandClientBuilder()
+            .setOwnerId("1")
+            .setPrefix("!")
+            .setActivity(null)
+            .setManualUpsert(true)
+            .setCommandMessages((key, event) -> key)
+            .addCommands(compiled.toArray(new Command[0]))
+            .addCommand(new Command()
+            {
+                {
+                    this.name = "about";
+                    this.help = "about the smoke test";
+                }
+
+                @Override
+                protected void execute(CommandEvent event)
+                {
+                    event.reply("Native smoke test");
+                }
+            })
+            .build();
+
+        SelfUser self = Fakes.stub(SelfUser.class, "isBot", true, "getName", "Smoke");
+        // ReadyEvent counts the available and unavailable guilds when it is constructed
+        JDA jda = Fakes.stub(JDA.class, "getSelfUser", self, "getPresence", Fakes.stub(Presence.class),
+            "getStatus", JDA.Status.CONNECTED,
+            "getGuildCache", Fakes.cacheView(SnowflakeCacheView.class, Collections.emptyList()),
+            "getUnavailableGuilds", Collections.emptySet());
+        ((EventListener) client).onEvent(new ReadyEvent(jda, 0));
+
+        check(client.getCommands().size() == 3, "Expected 3 commands, got " + client.getCommands().size());
+        check(client.getTextualPrefix().equals("!"), "Unexpected prefix " + client.getTextualPrefix());
+        CommandMessages messages = client.getCommandMessages();
+        check(messages.translate("error.commands.notOwner", null).equals("error.commands.notOwner"), "CommandMessages were not used");
+
+        String doc = DocGenerator.getDefaultGenerator().getDocFor(SmokeModule.class);
+        check(doc.contains("Smoke"), "Unexpected documentation: " + doc);
+
+        client.shutdown();
+        System.out.println("Native smoke test passed");
+    }
+
+    private static void check(boolean condition, String message)
+    {
+        if(!condition)
+        {
+            System.err.println("Native smoke test failed: " + message);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.smoke;
+
+import com.jagrosh.jdautilities.command.CommandEvent;
+import com.jagrosh.jdautilities.command.annotation.JDACommand;
+import com.jagrosh.jdautilities.doc.standard.CommandInfo;
+
+/**
+ * An annotated module, compiled ahead of time by the annotation processor of the command-processor module.
+ */
+@CommandInfo(name = "Smoke", description = "Commands of the native smoke test")
+@JDACommand.Module({"ping", "echo"})
+public class SmokeModule
+{
+    @JDACommand(name = {"ping", "p"}, help = "pong", children = {"echo"})
+    public void ping(CommandEvent event)
+    {
+        event.reply("Pong!");
+    }
+
+    @JDACommand(name = "echo", help = "repeats the arguments", arguments = "<text>")
+    public void echo(CommandEvent event)
+    {
+        event.reply(event.getArgs());
+    }
+}
@@ -19,6 +19,7 @@ import com.jagrosh.jdautilities.oauth2.entities.OAuth2Guild;
 import com.jagrosh.jdautilities.oauth2.entities.OAuth2User;
 import com.jagrosh.jdautilities.oauth2.entities.impl.OAuth2ClientImpl;
 import com.jagrosh.jdautilities.oauth2.requests.OAuth2Action;
+import com.jagrosh.jdautilities.oauth2.requests.OAuth2URL;
 import com.jagrosh.jdautilities.oauth2.session.Session;
 import com.jagrosh.jdautilities.oauth2.session.SessionController;
 import com.jagrosh.jdautilities.oauth2.exceptions.InvalidStateException;
@@ -86,6 +87,31 @@ public interface OAuth2Client
     @CheckReturnValue
     OAuth2Action<Session> startSession(String code, String state, String identifier, Scope... scopes) throws InvalidStateException;
 
+    /**
+     * Refreshes a {@link com.jagrosh.jdautilities.oauth2.session.Session Session} using its
+     * {@link Session#getRefreshToken() refresh token}, so that it can be used past its expiration.
+     *
+     * <p>If the Session provides an {@link Session#getIdentifier() identifier}, the refreshed Session
+     * replaces it in this client's {@link com.jagrosh.jdautilities.oauth2.session.SessionController SessionController}.
+     *
+     * <p>This does not usually need to be called manually, as {@link #getUser(Session)} and
+     * {@link #getGuilds(Session)} automatically refresh Sessions that are about to expire.
+     * Concurrent refreshes of the same Session are merged into a single request.
+     *
+     * <p>The default implementation throws an {@link java.lang.UnsupportedOperationException UnsupportedOperationException},
+     * for OAuth2Clients that do not support refreshing Sessions.
+     *
+     * @param  session
+     *         The Session to refresh.
+     *
+     * @return A {@link com.jagrosh.jdautilities.oauth2.requests.OAuth2Action OAuth2Action} for the refreshed Session.
+     */
+    @CheckReturnValue
+    default OAuth2Action<Session> refreshSession(Session session)
+    {
+        throw new UnsupportedOperationException("This OAuth2Client does not support refreshing sessions");
+    }
+
     /**
      * Requests a {@link com.jagrosh.jdautilities.oauth2.entities.OAuth2User OAuth2User}
      * from the {@link com.jagrosh.jdautilities.oauth2.session.Session Session}.
@@ -127,6 +153,19 @@ public interface OAuth2Client
     @CheckReturnValue
     OAuth2Action<List<OAuth2Guild>> getGuilds(Session session);
 
+    /**
+     * Removes the cached responses to {@link #getUser(Session)} and {@link #getGuilds(Session)}
+     * for the provided {@link com.jagrosh.jdautilities.oauth2.session.Session Session}, for example
+     * after the user joined a guild.
+     *
+     * <p>This does nothing if the client was not built with a
+     * {@link Builder#setResponseCacheTtl(long) response cache}, which is also what the default implementation does.
+     *
+     * @param  session
+     *         The Session to invalidate the cached responses of.
+     */
+    default void invalidateCache(Session session) {}
+
     /**
      * Gets the client ID for this OAuth2Client.
      *
@@ -168,6 +207,9 @@ public interface OAuth2Client
         private SessionController sessionController;
         private StateController stateController;
         private OkHttpClient client;
+        private String baseUrl = OAuth2URL.BASE_API_URL;
+        private long refreshMargin = 300;
+        private long cacheTtl = 0;
 
         /**
          * Finalizes and builds an {@link com.jagrosh.jdautilities.oauth2.OAuth2Client OAuth2Client}
@@ -186,7 +228,8 @@ public interface OAuth2Client
         {
             Checks.check(clientId >= 0, "Client ID is invalid!");
             Checks.notEmpty(clientSecret, "Client Secret");
-            return new OAuth2ClientImpl(clientId, clientSecret, sessionController, stateController, client);
+            return new OAuth2ClientImpl(clientId, clientSecret, sessionController, stateController, client,
+                baseUrl, refreshMargin, cacheTtl);
         }
 
         /**
@@ -245,6 +288,59 @@ public interface OAuth2Client
             return this;
         }
 
+        /**
+         * Sets how long before their expiration Sessions are automatically refreshed.
+         * <br>Default is 300 seconds.
+         *
+         * @param  seconds
+         *         The number of seconds before expiration to refresh Sessions at.
+         *
+         * @return This builder.
+         */
+        public Builder setRefreshMargin(long seconds)
+        {
+            Checks.check(seconds >= 0, "Refresh margin must not be negative!");
+            this.refreshMargin = seconds;
+            return this;
+        }
+
+        /**
+         * Sets how long the responses to {@link OAuth2Client#getUser(Session)} and
+         * {@link OAuth2Client#getGuilds(Session)} are cached for each Session.
+         * <br>Concurrent identical requests are merged, and expired responses are revalidated
+         * with their {@code ETag} when Discord provides one.
+         *
+         * <p>Default is {@code 0}, which disables the cache.
+         *
+         * @param  seconds
+         *         The number of seconds to cache responses for, or {@code 0} to not cache them.
+         *
+         * @return This builder.
+         */
+        public Builder setResponseCacheTtl(long seconds)
+        {
+            Checks.check(seconds >= 0, "Response cache TTL must not be negative!");
+            this.cacheTtl = seconds;
+            return this;
+        }
+
+        /**
+         * Sets the base URL of the Discord API, to which all routes are appended.
+         * <br>This defaults to {@link com.jagrosh.jdautilities.oauth2.requests.OAuth2URL#BASE_API_URL},
+         * and is mostly useful to test against a local server.
+         *
+         * @param  baseUrl
+         *         The base URL, without a trailing slash.
+         *
+         * @return This builder.
+         */
+        public Builder setBaseUrl(String baseUrl)
+        {
+            Checks.notEmpty(baseUrl, "Base URL");
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
         /**
          * Sets the client's internal {@link okhttp3.OkHttpClient OkHttpClient} used for
          * all requests and interactions with Discord.
@@ -22,8 +22,10 @@ import com.jagrosh.jdautilities.oauth2.entities.OAuth2User;
 import com.jagrosh.jdautilities.oauth2.exceptions.InvalidStateException;
 import com.jagrosh.jdautilities.oauth2.exceptions.MissingScopeException;
 import com.jagrosh.jdautilities.oauth2.requests.OAuth2Action;
+import com.jagrosh.jdautilities.oauth2.requests.OAuth2Request;
 import com.jagrosh.jdautilities.oauth2.requests.OAuth2Requester;
 import com.jagrosh.jdautilities.oauth2.requests.OAuth2URL;
+import com.jagrosh.jdautilities.oauth2.requests.ResponseCache;
 import com.jagrosh.jdautilities.oauth2.session.DefaultSessionController;
 import com.jagrosh.jdautilities.oauth2.session.Session;
 import com.jagrosh.jdautilities.oauth2.session.SessionController;
@@ -37,16 +39,19 @@ import net.dv8tion.jda.internal.utils.EncodingUtil;
 import net.dv8tion.jda.internal.utils.IOUtil;
 import net.dv8tion.jda.internal.utils.JDALogger;
 import okhttp3.*;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -62,12 +67,25 @@ public class OAuth2ClientImpl implements OAuth2Client
     private final StateController stateController;
     private final OkHttpClient httpClient;
     private final OAuth2Requester requester;
+    private final String baseUrl;
+    private final long refreshMargin;
+    private final ResponseCache cache;
+    // In-flight refreshes, keyed by refresh token
+    private final ConcurrentHashMap<String, CompletableFuture<Session>> refreshes = new ConcurrentHashMap<>();
 
     public OAuth2ClientImpl(long clientId, String clientSecret, SessionController sessionController,
                             StateController stateController, OkHttpClient httpClient)
+    {
+        this(clientId, clientSecret, sessionController, stateController, httpClient, OAuth2URL.BASE_API_URL, 300, 0);
+    }
+
+    public OAuth2ClientImpl(long clientId, String clientSecret, SessionController sessionController,
+                            StateController stateController, OkHttpClient httpClient, String baseUrl,
+                            long refreshMargin, long cacheTtl)
     {
         Checks.check(clientId >= 0, "Invalid Client ID");
         Checks.notNull(clientSecret, "Client Secret");
+        Checks.notEmpty(baseUrl, "Base URL");
 
         this.clientId = clientId;
         this.clientSecret = clientSecret;
@@ -75,6 +93,9 @@ public class OAuth2ClientImpl implements OAuth2Client
         this.stateController = stateController == null? new DefaultStateController() : stateController;
         this.httpClient = httpClient == null? new OkHttpClient.Builder().build() : httpClient;
         this.requester = new OAuth2Requester(this.httpClient);
+        this.baseUrl = baseUrl;
+        this.refreshMargin = refreshMargin;
+        this.cache = cacheTtl > 0 ? new ResponseCache(cacheTtl, TimeUnit.SECONDS, 10000) : null;
     }
     
     @Override
@@ -82,7 +103,7 @@ public class OAuth2ClientImpl implements OAuth2Client
     {
         Checks.notNull(redirectUri, "Redirect URI");
 
-        return OAuth2URL.AUTHORIZE.compile(clientId, EncodingUtil.encodeUTF8(redirectUri),
+        return OAuth2URL.AUTHORIZE.compileWithBaseUrl(baseUrl, clientId, EncodingUtil.encodeUTF8(redirectUri),
             Scope.join(scopes), stateController.generateNewState(redirectUri));
     }
 
@@ -98,7 +119,7 @@ public class OAuth2ClientImpl implements OAuth2Client
 
         OAuth2URL oAuth2URL = OAuth2URL.TOKEN;
 
-        return new OAuth2Action<Session>(this, Method.POST, oAuth2URL.getRouteWithBaseUrl())
+        return new OAuth2Request<Session>(this, Method.POST, oAuth2URL.getRouteWithBaseUrl(baseUrl))
         {
             @Override
             protected Headers getHeaders()
@@ -120,81 +141,86 @@ public class OAuth2ClientImpl implements OAuth2Client
                     throw failure(response);
 
                 JSONObject body = new JSONObject(new JSONTokener(IOUtil.getBody(response)));
-
-                String[] scopeStrings = body.getString("scope").split(" ");
-                Scope[] scopes = new Scope[scopeStrings.length];
-                for(int i = 0; i < scopeStrings.length; i++)
-                {
-                    scopes[i] = Scope.from(scopeStrings[i]);
-                }
-
-                return sessionController.createSession(new SessionData(identifier,
-                    body.getString("access_token"), body.getString("refresh_token"),
-                    body.getString("token_type"), OffsetDateTime.now().plusSeconds(body.getInt("expires_in")), scopes));
+                return sessionController.createSession(createSessionData(identifier, body, null));
             }
         };
     }
 
     @Override
-    public OAuth2Action<OAuth2User> getUser(Session session)
+    public OAuth2Action<Session> refreshSession(Session session)
     {
         Checks.notNull(session, "Session");
-        return new OAuth2Action<OAuth2User>(this, Method.GET, OAuth2URL.CURRENT_USER.compile()) {
+        Checks.notEmpty(session.getRefreshToken(), "Refresh token");
+
+        OAuth2URL oAuth2URL = OAuth2URL.REFRESH_TOKEN;
 
+        return new OAuth2Request<Session>(this, Method.POST, oAuth2URL.getRouteWithBaseUrl(baseUrl))
+        {
             @Override
             protected Headers getHeaders()
             {
-                return Headers.of("Authorization", generateAuthorizationHeader(session));
+                return Headers.of("Content-Type", "x-www-form-urlencoded");
+            }
+
+            @Override
+            protected RequestBody getBody() {
+                return RequestBody.create(MediaType.parse("application/x-www-form-urlencoded"),
+                    oAuth2URL.compileQueryParams(clientId, clientSecret, EncodingUtil.encodeUTF8(session.getRefreshToken())));
             }
 
             @Override
-            protected OAuth2User handle(Response response) throws IOException
+            protected Session handle(Response response) throws IOException
             {
                 if(!response.isSuccessful())
                     throw failure(response);
+
                 JSONObject body = new JSONObject(new JSONTokener(IOUtil.getBody(response)));
-                return new OAuth2UserImpl(OAuth2ClientImpl.this, session, body.getLong("id"),
-                    body.getString("username"), body.getString("discriminator"),
-                    body.optString("avatar", null), body.optString("email", null),
-                    body.optBoolean("verified", false), body.getBoolean("mfa_enabled"));
+                SessionData data = createSessionData(session.getIdentifier(), body, session);
+                if(data.getIdentifier() == null)
+                    return new RefreshedSession(data);
+                return sessionController.createSession(data);
             }
         };
     }
 
     @Override
-    public OAuth2Action<List<OAuth2Guild>> getGuilds(Session session)
+    public OAuth2Action<OAuth2User> getUser(Session session)
     {
-        Checks.notNull(session, "session");
-        if(!Scope.contains(session.getScopes(), Scope.GUILDS))
-            throw new MissingScopeException("get guilds for a Session", Scope.GUILDS);
-        return new OAuth2Action<List<OAuth2Guild>>(this, Method.GET, OAuth2URL.CURRENT_USER_GUILDS.compile()) {
+        Checks.notNull(session, "Session");
+        return new SessionAction<OAuth2User>(session, OAuth2URL.CURRENT_USER.compileWithBaseUrl(baseUrl)) {
             @Override
-            protected Headers getHeaders()
+            protected OAuth2User parse(Response response, Session session) throws IOException
             {
-                return Headers.of("Authorization", generateAuthorizationHeader(session));
+                return OAuth2JsonReader.readUser(OAuth2ClientImpl.this, session, IOUtil.getBody(response));
             }
+        };
+    }
 
+    @Override
+    public OAuth2Action<List<OAuth2Guild>> getGuilds(Session session)
+    {
+        Checks.notNull(session, "session");
+        if(!Scope.contains(session.getScopes(), Scope.GUILDS))
+            throw new MissingScopeException("get guilds for a Session", Scope.GUILDS);
+        return new SessionAction<List<OAuth2Guild>>(session, OAuth2URL.CURRENT_USER_GUILDS.compileWithBaseUrl(baseUrl)) {
             @Override
-            protected List<OAuth2Guild> handle(Response response) throws IOException
+            protected List<OAuth2Guild> parse(Response response, Session session) throws IOException
             {
-                if(!response.isSuccessful())
-                    throw failure(response);
-
-                JSONArray body = new JSONArray(new JSONTokener(IOUtil.getBody(response)));
-                List<OAuth2Guild> list = new LinkedList<>();
-                JSONObject obj;
-                for(int i = 0; i < body.length(); i++)
-                {
-                    obj = body.getJSONObject(i);
-                    list.add(new OAuth2GuildImpl(OAuth2ClientImpl.this, obj.getLong("id"),
-                        obj.getString("name"), obj.optString("icon", null), obj.getBoolean("owner"),
-                        obj.getInt("permissions")));
-                }
-                return list;
+                List<OAuth2Guild> list = OAuth2JsonReader.readGuilds(OAuth2ClientImpl.this, IOUtil.getBody(response));
+                // Cached lists are shared between callers
+                return cache == null ? list : Collections.unmodifiableList(list);
             }
         };
     }
 
+    @Override
+    public void invalidateCache(Session session)
+    {
+        Checks.notNull(session, "Session");
+        if(cache != null)
+            cache.invalidate(session.getAccessToken() + " ");
+    }
+
     @Override
     public long getId()
     {
@@ -221,6 +247,7 @@ public class OAuth2ClientImpl implements OAuth2Client
 
     public void shutdown()
     {
+        requester.shutdown();
         httpClient.dispatcher().executorService().shutdown();
     }
 
@@ -234,17 +261,222 @@ public class OAuth2ClientImpl implements OAuth2Client
         return requester;
     }
 
+    /**
+     * Gets the response cache of this OAuth2Client.
+     *
+     * @return The response cache, or {@code null} if responses are not cached.
+     */
+    public ResponseCache getResponseCache()
+    {
+        return cache;
+    }
+
+    /**
+     * Gets the provided session, refreshed first if it expires within the refresh margin.
+     *
+     * <p>Sessions with an identifier are first resolved through the session controller, so that a caller
+     * holding a session that was already refreshed gets the refreshed one, instead of refreshing it again
+     * with a refresh token Discord has since rotated. Concurrent calls for the same session share a single
+     * refresh request. If Discord rejects the refresh token, the session is removed from the session controller.
+     *
+     * @param  session
+     *         The session to use for a request.
+     *
+     * @return A future completed with a session that is valid for at least the refresh margin.
+     */
+    public CompletableFuture<Session> refreshIfNeeded(Session session)
+    {
+        // The caller may hold a session that was refreshed since, whose refresh token was rotated
+        if(session.getIdentifier() != null)
+        {
+            Session latest = sessionController.getSession(session.getIdentifier());
+            if(latest != null)
+                session = latest;
+        }
+        if(session.getRefreshToken() == null || session.getExpiration() == null
+                || session.getExpiration().isAfter(OffsetDateTime.now().plusSeconds(refreshMargin)))
+            return CompletableFuture.completedFuture(session);
+
+        String refreshToken = session.getRefreshToken();
+        CompletableFuture<Session> future = refreshes.get(refreshToken);
+        if(future != null)
+            return future;
+        CompletableFuture<Session> created = new CompletableFuture<>();
+        future = refreshes.putIfAbsent(refreshToken, created);
+        if(future != null)
+            return future;
+
+        String identifier = session.getIdentifier();
+        LOG.debug("Refreshing session {} expiring at {}", identifier, session.getExpiration());
+        refreshSession(session).queue(refreshed -> {
+            refreshes.remove(refreshToken, created);
+            created.complete(refreshed);
+        }, error -> {
+            refreshes.remove(refreshToken, created);
+            // Discord rejected the refresh token, so the session can never be refreshed again
+            if(error instanceof HttpException && identifier != null)
+            {
+                Session latest = sessionController.getSession(identifier);
+                if(latest != null && refreshToken.equals(latest.getRefreshToken()))
+                    sessionController.removeSession(identifier);
+            }
+            created.completeExceptionally(error);
+        });
+        return created;
+    }
+
     protected static HttpException failure(Response response) throws IOException
     {
         final InputStream stream = IOUtil.getBody(response);
-        final String responseBody = new String(IOUtil.readFully(stream));
+        final String responseBody = new String(IOUtil.readFully(stream), StandardCharsets.UTF_8);
         return new HttpException("Request returned failure " + response.code() + ": " + responseBody);
     }
 
+    // Creates session data from a token response. Discord may rotate the refresh
+    // token on refresh, so the previous one is only kept if none is returned.
+    private static SessionData createSessionData(String identifier, JSONObject body, Session previous)
+    {
+        Scope[] scopes;
+        if(body.has("scope"))
+        {
+            String[] scopeStrings = body.getString("scope").split(" ");
+            scopes = new Scope[scopeStrings.length];
+            for(int i = 0; i < scopeStrings.length; i++)
+            {
+                scopes[i] = Scope.from(scopeStrings[i]);
+            }
+        }
+        else
+        {
+            // Only refreshes may leave the scopes out, as they keep those of the session
+            scopes = previous == null ? new Scope[0] : previous.getScopes();
+        }
+
+        String refreshToken = previous == null ? body.getString("refresh_token")
+            : body.optString("refresh_token", previous.getRefreshToken());
+        return new SessionData(identifier, body.getString("access_token"), refreshToken,
+            body.getString("token_type"), OffsetDateTime.now().plusSeconds(body.getInt("expires_in")), scopes);
+    }
+
     // Generates an authorization header 'X Y', where 'X' is the session's
     // token-type and 'Y' is the session's access token.
     private String generateAuthorizationHeader(Session session)
     {
         return String.format("%s %s", session.getTokenType(), session.getAccessToken());
     }
+
+    // An action making GET requests authorized by a session, which is refreshed first if needed,
+    // and whose response is cached if this client has a response cache. The requests themselves
+    // are made by its executions.
+    private abstract class SessionAction<T> extends OAuth2Action<T>
+    {
+        private final Session session;
+        private final String url;
+
+        private SessionAction(Session session, String url)
+        {
+            super(OAuth2ClientImpl.this);
+            this.session = session;
+            this.url = url;
+        }
+
+        protected abstract T parse(Response response, Session session) throws IOException;
+
+        @Override
+        protected CompletableFuture<T> submitRequest()
+        {
+            // Every execution makes its own request, so that executing this action concurrently shares no state
+            if(cache == null)
+                return new Execution(null).execute();
+            return cache.get(session.getAccessToken() + " " + url, stale -> {
+                Execution execution = new Execution(stale);
+                return execution.execute().thenApply(value -> new ResponseCache.Entry<>(value, execution.etag));
+            });
+        }
+
+        // A single request of this action, revalidating the stale cached response if there is one
+        private final class Execution extends OAuth2Request<T>
+        {
+            private final ResponseCache.Entry<T> stale;
+            private Session current = session;
+            private String etag;
+
+            private Execution(ResponseCache.Entry<T> stale)
+            {
+                super(OAuth2ClientImpl.this, Method.GET, SessionAction.this.url);
+                this.stale = stale;
+            }
+
+            private CompletableFuture<T> execute()
+            {
+                return super.submitRequest();
+            }
+
+            @Override
+            protected CompletableFuture<?> prepare()
+            {
+                return refreshIfNeeded(session).thenAccept(refreshed -> current = refreshed);
+            }
+
+            @Override
+            protected Headers getHeaders()
+            {
+                if(stale != null && stale.getETag() != null)
+                    return Headers.of("Authorization", generateAuthorizationHeader(current), "If-None-Match", stale.getETag());
+                return Headers.of("Authorization", generateAuthorizationHeader(current));
+            }
+
+            @Override
+            protected T handle(Response response) throws IOException
+            {
+                etag = response.header("ETag");
+                if(response.code() == 304 && stale != null)
+                    return stale.getValue();
+                if(!response.isSuccessful())
+                    throw failure(response);
+                return parse(response, current);
+            }
+        }
+    }
+
+    // A refreshed session that could not be written back to the session controller
+    private static class RefreshedSession implements Session
+    {
+        private final SessionData data;
+
+        private RefreshedSession(SessionData data)
+        {
+            this.data = data;
+        }
+
+        @Override
+        public String getAccessToken()
+        {
+            return data.getAccessToken();
+        }
+
+        @Override
+        public String getRefreshToken()
+        {
+            return data.getRefreshToken();
+        }
+
+        @Override
+        public Scope[] getScopes()
+        {
+            return data.getScopes();
+        }
+
+        @Override
+        public String getTokenType()
+        {
+            return data.getTokenType();
+        }
+
+        @Override
+        public OffsetDateTime getExpiration()
+        {
+            return data.getExpiration();
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-2018 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.entities.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jagrosh.jdautilities.oauth2.OAuth2Client;
+import com.jagrosh.jdautilities.oauth2.entities.OAuth2Guild;
+import com.jagrosh.jdautilities.oauth2.entities.OAuth2User;
+import com.jagrosh.jdautilities.oauth2.session.Session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads OAuth2 entities straight from the body of a response, using a streaming JSON parser.
+ *
+ * <p>Unlike parsing the body into a {@link org.json.JSONObject JSONObject} or {@link org.json.JSONArray JSONArray}
+ * first, this builds no intermediate tree: each field is read once, directly into the entity, and unknown
+ * fields are skipped without being materialized.
+ */
+public final class OAuth2JsonReader
+{
+    // Response bodies are closed along with their response
+    private static final JsonFactory FACTORY = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private OAuth2JsonReader() {}
+
+    /**
+     * Reads an {@link OAuth2User} from a {@code /users/@me} response body.
+     *
+     * @param  client
+     *         The client the user is retrieved with.
+     * @param  session
+     *         The session the user is retrieved with.
+     * @param  body
+     *         The response body, which is not closed.
+     *
+     * @return The user.
+     *
+     * @throws IOException
+     *         If the body could not be read, or is not a user object.
+     */
+    public static OAuth2User readUser(OAuth2Client client, Session session, InputStream body) throws IOException
+    {
+        try(JsonParser parser = FACTORY.createParser(body))
+        {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            long id = 0;
+            String name = null, discriminator = null, avatar = null, email = null;
+            boolean verified = false, mfaEnabled = false;
+            while(parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch(field)
+                {
+                    case "id":            id = readSnowflake(parser); break;
+                    case "username":      name = parser.getValueAsString(); break;
+                    case "discriminator": discriminator = parser.getValueAsString(); break;
+                    case "avatar":        avatar = readNullableString(parser, value); break;
+                    case "email":         email = readNullableString(parser, value); break;
+                    case "verified":      verified = parser.getValueAsBoolean(); break;
+                    case "mfa_enabled":   mfaEnabled = parser.getValueAsBoolean(); break;
+                    default:              parser.skipChildren();
+                }
+            }
+            if(id == 0 || name == null)
+                throw new IOException("User object is missing its id or username");
+            return new OAuth2UserImpl(client, session, id, name, discriminator, avatar, email, verified, mfaEnabled);
+        }
+    }
+
+    /**
+     * Reads a list of {@link OAuth2Guild OAuth2Guilds} from a {@code /users/@me/guilds} response body.
+     *
+     * @param  client
+     *         The client the guilds are retrieved with.
+     * @param  body
+     *         The response body, which is not closed.
+     *
+     * @return A fixed-size list of the guilds, backed by an array.
+     *
+     * @throws IOException
+     *         If the body could not be read, or is not an array of guild objects.
+     */
+    public static List<OAuth2Guild> readGuilds(OAuth2Client client, InputStream body) throws IOException
+    {
+        try(JsonParser parser = FACTORY.createParser(body))
+        {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            OAuth2Guild[] guilds = new OAuth2Guild[16];
+            int size = 0;
+            JsonToken token;
+            while((token = parser.nextToken()) != JsonToken.END_ARRAY)
+            {
+                expect(parser, token, JsonToken.START_OBJECT);
+                if(size == guilds.length)
+                    guilds = Arrays.copyOf(guilds, size * 2);
+                guilds[size++] = readGuild(client, parser);
+            }
+            if(size == 0)
+                return Collections.emptyList();
+            return Arrays.asList(size == guilds.length ? guilds : Arrays.copyOf(guilds, size));
+        }
+    }
+
+    private static OAuth2Guild readGuild(OAuth2Client client, JsonParser parser) throws IOException
+    {
+        long id = 0;
+        String name = null, icon = null;
+        boolean owner = false;
+        int permissions = 0;
+        while(parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch(field)
+            {
+                case "id":          id = readSnowflake(parser); break;
+                case "name":        name = parser.getValueAsString(); break;
+                case "icon":        icon = readNullableString(parser, value); break;
+                case "owner":       owner = parser.getValueAsBoolean(); break;
+                // Sent as a string since API v8, and may not fit an int: keep the raw low bits as before
+                case "permissions": permissions = (int) parser.getValueAsLong(); break;
+                default:            parser.skipChildren();
+            }
+        }
+        if(id == 0 || name == null)
+            throw new IOException("Guild object is missing its id or name");
+        return new OAuth2GuildImpl(client, id, name, icon, owner, permissions);
+    }
+
+    private static long readSnowflake(JsonParser parser) throws IOException
+    {
+        return parser.getCurrentToken() == JsonToken.VALUE_STRING
+            ? Long.parseUnsignedLong(parser.getText())
+            : parser.getLongValue();
+    }
+
+    private static String readNullableString(JsonParser parser, JsonToken value) throws IOException
+    {
+        return value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException
+    {
+        if(actual != expected)
+            throw new IOException("Expected " + expected + " but got " + actual + " at " + parser.getCurrentLocation());
+    }
+}
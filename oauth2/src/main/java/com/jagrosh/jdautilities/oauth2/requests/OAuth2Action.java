@@ -16,22 +16,29 @@
 package com.jagrosh.jdautilities.oauth2.requests;
 
 import com.jagrosh.jdautilities.oauth2.entities.impl.OAuth2ClientImpl;
-import net.dv8tion.jda.internal.requests.Method;
 import net.dv8tion.jda.internal.utils.Checks;
-import okhttp3.Headers;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
-import javax.annotation.WillClose;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * An adaptable lookalike of JDA's {@link net.dv8tion.jda.api.requests.RestAction RestAction}.
  *
- * <p>OAuth2Actions can either be completed <i>asynchronously</i> using {@link OAuth2Action#queue() queue},
- * or synchronously using {@link OAuth2Action#complete() complete}.
+ * <p>OAuth2Actions can either be completed <i>asynchronously</i> using {@link OAuth2Action#queue() queue}
+ * or {@link OAuth2Action#submit() submit}, or synchronously using {@link OAuth2Action#complete() complete}.
+ *
+ * <p>OAuth2Actions can also be composed without blocking, using {@link #map(Function)}, {@link #flatMap(Function)},
+ * {@link #zip(OAuth2Action, BiFunction)} and {@link #allOf(Collection)}. The composed action only makes its
+ * requests once it is itself executed.
+ *
+ * <p>An OAuth2Action that makes a single HTTP request is an {@link OAuth2Request}.
  *
  * <p>Note that OAuth2Action does not extend JDA's RestAction.
  *
@@ -45,62 +52,20 @@ public abstract class OAuth2Action<T>
     };
 
     protected final OAuth2ClientImpl client;
-    protected final Method method;
-    protected final String url;
 
-    public OAuth2Action(OAuth2ClientImpl client, Method method, String url)
+    public OAuth2Action(OAuth2ClientImpl client)
     {
         Checks.notNull(client, "OAuth2Client");
-        Checks.notNull(method, "Request method");
-        Checks.notEmpty(url, "URL");
 
         this.client = client;
-        this.method = method;
-        this.url = url;
-    }
-
-    protected RequestBody getBody()
-    {
-        return OAuth2Requester.EMPTY_BODY;
     }
 
-    protected Headers getHeaders()
-    {
-        return Headers.of();
-    }
-
-    protected Request buildRequest()
-    {
-        Request.Builder builder = new Request.Builder();
-
-        switch(method)
-        {
-            case GET:
-                builder.get();
-                break;
-            case POST:
-                builder.post(getBody());
-                break;
-            default:
-                throw new IllegalArgumentException(method.name() + " requests are not supported!");
-        }
-
-        builder.url(url);
-        builder.header("User-Agent", OAuth2Requester.USER_AGENT);
-        builder.headers(getHeaders());
-
-        return builder.build();
-    }
-
-    protected Method getMethod()
-    {
-        return method;
-    }
-
-    protected String getUrl()
-    {
-        return url;
-    }
+    /**
+     * Executes this OAuth2Action, making the requests it is made of.
+     *
+     * @return A future completed with the value of this OAuth2Action.
+     */
+    protected abstract CompletableFuture<T> submitRequest();
 
     /**
      * Asynchronously executes this OAuth2Action.
@@ -137,6 +102,102 @@ public abstract class OAuth2Action<T>
         client.getRequester().submitAsync(this, success, failure);
     }
 
+    /**
+     * Asynchronously executes this OAuth2Action, returning a {@link java.util.concurrent.CompletableFuture CompletableFuture}
+     * completed with the value constructed from the response, or completed exceptionally if the request failed.
+     *
+     * @return A future completed with the value constructed from the response.
+     */
+    public CompletableFuture<T> submit()
+    {
+        // Never hand out a future that may be shared with other callers, such as a cached one
+        return submitRequest().thenApply(Function.identity());
+    }
+
+    /**
+     * Creates an OAuth2Action that executes this one, then transforms its value.
+     *
+     * @param  mapper
+     *         The function transforming the value of this OAuth2Action.
+     * @param  <U>
+     *         The type of the transformed value.
+     *
+     * @return The OAuth2Action for the transformed value.
+     */
+    public <U> OAuth2Action<U> map(Function<? super T, ? extends U> mapper)
+    {
+        Checks.notNull(mapper, "Mapper");
+        return new CombinedAction<>(client, () -> submitRequest().thenApply(mapper));
+    }
+
+    /**
+     * Creates an OAuth2Action that executes this one, then the OAuth2Action provided by the function
+     * from its value, such as getting the guilds of a user once the user has been retrieved.
+     *
+     * @param  mapper
+     *         The function providing the next OAuth2Action from the value of this one.
+     * @param  <U>
+     *         The type of the value of the next OAuth2Action.
+     *
+     * @return The OAuth2Action for the value of the next OAuth2Action.
+     */
+    public <U> OAuth2Action<U> flatMap(Function<? super T, ? extends OAuth2Action<U>> mapper)
+    {
+        Checks.notNull(mapper, "Mapper");
+        return new CombinedAction<>(client, () -> submitRequest().thenCompose(value -> mapper.apply(value).submitRequest()));
+    }
+
+    /**
+     * Creates an OAuth2Action that executes this one and the provided one concurrently,
+     * then combines their values.
+     *
+     * @param  other
+     *         The OAuth2Action to execute alongside this one.
+     * @param  combiner
+     *         The function combining the values of both OAuth2Actions.
+     * @param  <U>
+     *         The type of the value of the other OAuth2Action.
+     * @param  <R>
+     *         The type of the combined value.
+     *
+     * @return The OAuth2Action for the combined value.
+     */
+    public <U, R> OAuth2Action<R> zip(OAuth2Action<U> other, BiFunction<? super T, ? super U, ? extends R> combiner)
+    {
+        Checks.notNull(other, "Other OAuth2Action");
+        Checks.notNull(combiner, "Combiner");
+        return new CombinedAction<>(client, () -> submitRequest().thenCombine(other.submitRequest(), combiner));
+    }
+
+    /**
+     * Creates an OAuth2Action that executes all the provided OAuth2Actions concurrently,
+     * and completes with their values in the same order.
+     * <br>If any of them fails, the created OAuth2Action fails with the same exception.
+     *
+     * @param  actions
+     *         The OAuth2Actions to execute, at least one.
+     * @param  <T>
+     *         The type of their values.
+     *
+     * @return The OAuth2Action for the list of values.
+     */
+    public static <T> OAuth2Action<List<T>> allOf(Collection<? extends OAuth2Action<? extends T>> actions)
+    {
+        Checks.notEmpty(actions, "OAuth2Actions");
+        List<OAuth2Action<? extends T>> copy = new ArrayList<>(actions);
+        return new CombinedAction<>(copy.get(0).client, () -> {
+            List<CompletableFuture<? extends T>> futures = new ArrayList<>(copy.size());
+            for(OAuth2Action<? extends T> action : copy)
+                futures.add(action.submitRequest());
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                List<T> values = new ArrayList<>(futures.size());
+                for(CompletableFuture<? extends T> future : futures)
+                    values.add(future.join());
+                return values;
+            });
+        });
+    }
+
     /**
      * Synchronously executes this OAuth2Action, returning the value constructed from the response
      * if it was successful, or throwing the {@link java.lang.Exception Exception} if it was not.
@@ -161,5 +222,21 @@ public abstract class OAuth2Action<T>
         return client;
     }
 
-    protected abstract T handle(@WillClose Response response) throws IOException;
+    // An action made of other actions, which makes no request of its own
+    private static final class CombinedAction<T> extends OAuth2Action<T>
+    {
+        private final Supplier<CompletableFuture<T>> submitter;
+
+        private CombinedAction(OAuth2ClientImpl client, Supplier<CompletableFuture<T>> submitter)
+        {
+            super(client);
+            this.submitter = submitter;
+        }
+
+        @Override
+        protected CompletableFuture<T> submitRequest()
+        {
+            return submitter.get();
+        }
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2018 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.requests;
+
+import net.dv8tion.jda.internal.utils.Checks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A batch of independent {@link OAuth2Action OAuth2Actions}, possibly of different types, that are
+ * executed concurrently.
+ *
+ * <p>Each action added returns its own future, and {@link #submit()} returns a future completed once all
+ * of them have completed. All the requests go through the same {@link OAuth2Requester}, sharing its
+ * connection pool and rate limit buckets:
+ * <pre><code>
+ * OAuth2Batch batch = new OAuth2Batch();
+ * CompletableFuture&lt;OAuth2User&gt; user = batch.add(client.getUser(session));
+ * CompletableFuture&lt;List&lt;OAuth2Guild&gt;&gt; guilds = batch.add(client.getGuilds(session));
+ * batch.submit().thenRun(() -&gt; render(user.join(), guilds.join()));
+ * </code></pre>
+ */
+public class OAuth2Batch
+{
+    private final List<Entry<?>> entries = new ArrayList<>();
+    private boolean submitted = false;
+
+    /**
+     * Adds an OAuth2Action to this batch.
+     *
+     * @param  action
+     *         The OAuth2Action to add.
+     * @param  <T>
+     *         The type of the value of the OAuth2Action.
+     *
+     * @return A future completed with the value of the OAuth2Action once this batch is submitted.
+     *
+     * @throws java.lang.IllegalStateException
+     *         If this batch was already submitted.
+     */
+    public synchronized <T> CompletableFuture<T> add(OAuth2Action<T> action)
+    {
+        Checks.notNull(action, "OAuth2Action");
+        Checks.check(!submitted, "Cannot add to a batch that was already submitted!");
+        Entry<T> entry = new Entry<>(action);
+        entries.add(entry);
+        return entry.result;
+    }
+
+    /**
+     * Gets the number of OAuth2Actions in this batch.
+     *
+     * @return The number of OAuth2Actions.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Executes all OAuth2Actions of this batch concurrently.
+     *
+     * @return A future completed once all OAuth2Actions have completed, or completed exceptionally
+     *         with the failure of the first OAuth2Action that failed.
+     *
+     * @throws java.lang.IllegalStateException
+     *         If this batch was already submitted.
+     */
+    public synchronized CompletableFuture<Void> submit()
+    {
+        Checks.check(!submitted, "This batch was already submitted!");
+        submitted = true;
+        CompletableFuture<?>[] futures = new CompletableFuture[entries.size()];
+        for(int i = 0; i < futures.length; i++)
+            futures[i] = entries.get(i).submit();
+        return CompletableFuture.allOf(futures);
+    }
+
+    private static final class Entry<T>
+    {
+        private final OAuth2Action<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Entry(OAuth2Action<T> action)
+        {
+            this.action = action;
+        }
+
+        private CompletableFuture<T> submit()
+        {
+            action.submitRequest().whenComplete((value, error) -> {
+                if(error == null)
+                    result.complete(value);
+                else
+                    result.completeExceptionally(error);
+            });
+            return result;
+        }
+    }
+}
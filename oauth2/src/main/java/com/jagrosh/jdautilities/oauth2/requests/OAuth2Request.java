@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2018 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.requests;
+
+import com.jagrosh.jdautilities.oauth2.entities.impl.OAuth2ClientImpl;
+import net.dv8tion.jda.internal.requests.Method;
+import net.dv8tion.jda.internal.utils.Checks;
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import javax.annotation.WillClose;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link OAuth2Action} that makes a single HTTP request through the {@link OAuth2Requester},
+ * and constructs its value from the response.
+ */
+public abstract class OAuth2Request<T> extends OAuth2Action<T>
+{
+    protected final Method method;
+    protected final String url;
+
+    public OAuth2Request(OAuth2ClientImpl client, Method method, String url)
+    {
+        super(client);
+        Checks.notNull(method, "Request method");
+        Checks.notEmpty(url, "URL");
+
+        this.method = method;
+        this.url = url;
+    }
+
+    protected RequestBody getBody()
+    {
+        return OAuth2Requester.EMPTY_BODY;
+    }
+
+    protected Headers getHeaders()
+    {
+        return Headers.of();
+    }
+
+    /**
+     * Called before the request is built, to asynchronously do anything it depends on,
+     * such as refreshing the access token of the session it uses.
+     *
+     * @return A future completed once the request can be built.
+     */
+    protected CompletableFuture<?> prepare()
+    {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Submits this OAuth2Request to the {@link OAuth2Requester}.
+     *
+     * @return A future completed with the value constructed from the response.
+     */
+    @Override
+    protected CompletableFuture<T> submitRequest()
+    {
+        return client.getRequester().submit(this);
+    }
+
+    protected Request buildRequest()
+    {
+        Request.Builder builder = new Request.Builder();
+
+        switch(method)
+        {
+            case GET:
+                builder.get();
+                break;
+            case POST:
+                builder.post(getBody());
+                break;
+            default:
+                throw new IllegalArgumentException(method.name() + " requests are not supported!");
+        }
+
+        builder.url(url);
+        builder.header("User-Agent", OAuth2Requester.USER_AGENT);
+        builder.headers(getHeaders());
+
+        return builder.build();
+    }
+
+    protected Method getMethod()
+    {
+        return method;
+    }
+
+    protected String getUrl()
+    {
+        return url;
+    }
+
+    protected abstract T handle(@WillClose Response response) throws IOException;
+}
@@ -18,12 +18,36 @@ package com.jagrosh.jdautilities.oauth2.requests;
 import com.jagrosh.jdautilities.commons.JDAUtilitiesInfo;
 import net.dv8tion.jda.internal.utils.JDALogger;
 import okhttp3.*;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
+ * Executes {@link OAuth2Request OAuth2Requests}, respecting Discord's rate limits.
+ *
+ * <p>Requests are queued in buckets, one for each route and authorization, and each bucket sends
+ * its requests one after the other. The {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset-After}
+ * headers of each response delay the next request of the bucket once its limit is exhausted, and
+ * a {@code 429} response delays and retries the request (up to {@value #MAX_RETRIES} times),
+ * pausing every bucket if the rate limit is global.
+ *
+ * <p>The number of queued requests and the time spent waiting for each route can be retrieved
+ * using {@link #getRouteStats()}.
+ *
  * @author Kaidan Gustave
  */
 public class OAuth2Requester
@@ -32,75 +56,467 @@ public class OAuth2Requester
     protected static final String USER_AGENT = "JDA-Utils Oauth2("+JDAUtilitiesInfo.GITHUB+" | "+JDAUtilitiesInfo.VERSION+")";
     protected static final RequestBody EMPTY_BODY = RequestBody.create(null, new byte[0]);
 
+    /** The maximum number of times a request is retried after being rate limited. */
+    public static final int MAX_RETRIES = 5;
+
     private final OkHttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RouteStats> routeStats = new ConcurrentHashMap<>();
+    private volatile long globalResetAt = 0;
+    private volatile boolean shutdown = false;
 
     public OAuth2Requester(OkHttpClient httpClient)
     {
         this.httpClient = httpClient;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "OAuth2-RateLimiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the statistics of every route requested so far, mapped by route
+     * (for example {@code GET /users/@me}).
+     *
+     * @return An unmodifiable snapshot of the statistics of every route.
+     */
+    public Map<String, RouteStats> getRouteStats()
+    {
+        return Collections.unmodifiableMap(new HashMap<>(routeStats));
+    }
+
+    /**
+     * Stops scheduling delayed requests.
+     *
+     * <p>Requests submitted afterwards, and queued requests that would have to wait
+     * for a rate limit, fail with a {@link RejectedExecutionException}.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        scheduler.shutdown();
     }
 
     <T> void submitAsync(OAuth2Action<T> request, Consumer<T> success, Consumer<Throwable> failure)
     {
-        httpClient.newCall(request.buildRequest()).enqueue(new Callback()
+        request.submitRequest().whenComplete((value, error) -> {
+            // Handle end-user exception differently
+            try
+            {
+                if(error != null)
+                    failure.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                else if(value != null)
+                    success.accept(value);
+            }
+            catch(Throwable t)
+            {
+                LOGGER.error("OAuth2Action {} callback threw an exception!", error == null ? "success" : "failure", t);
+            }
+        });
+    }
+
+    <T> T submitSync(OAuth2Action<T> request) throws IOException
+    {
+        try
+        {
+            return request.submitRequest().join();
+        }
+        catch(CompletionException ex)
+        {
+            // Rethrow what the request failed with, as complete() did before requests were queued
+            Throwable cause = ex;
+            while(cause instanceof CompletionException && cause.getCause() != null)
+                cause = cause.getCause();
+            if(cause instanceof IOException)
+                throw (IOException) cause;
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if(cause instanceof Error)
+                throw (Error) cause;
+            throw ex;
+        }
+    }
+
+    <T> CompletableFuture<T> submit(OAuth2Request<T> request)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if(shutdown)
         {
-            @Override
-            public void onResponse(Call call, Response response)
+            future.completeExceptionally(rejected());
+            return future;
+        }
+        request.prepare().whenComplete((ignored, error) -> {
+            if(error != null)
             {
-                try
-                {
-                    T value = request.handle(response);
-                    logSuccessfulRequest(request);
+                future.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            try
+            {
+                enqueue(new QueuedRequest<>(request, future));
+            }
+            catch(Throwable t)
+            {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
 
-                    // Handle end-user exception differently
-                    try
-                    {
-                        if(value != null)
-                            success.accept(value);
-                    }
-                    catch(Throwable t)
+    private void enqueue(QueuedRequest<?> call)
+    {
+        if(shutdown)
+            throw rejected();
+        while(true)
+        {
+            Bucket bucket = buckets.computeIfAbsent(call.bucketKey, key -> new Bucket(key, call.route));
+            synchronized(bucket)
+            {
+                // The bucket may have been dropped as idle since we got it
+                if(bucket.removed)
+                    continue;
+                bucket.queue.addLast(call);
+                bucket.stats.queued.incrementAndGet();
+            }
+            bucket.drain();
+            return;
+        }
+    }
+
+    private static RejectedExecutionException rejected()
+    {
+        return new RejectedExecutionException("The OAuth2Requester has been shut down");
+    }
+
+    private static void logSuccessfulRequest(OAuth2Request<?> request)
+    {
+        LOGGER.debug("Got a response for {} - {}\nHeaders: {}", request.getMethod(),
+            request.getUrl(), request.getHeaders());
+    }
+
+    // Parses the delay in seconds given by a header, or -1 if absent or invalid
+    private static long parseDelay(String seconds)
+    {
+        if(seconds == null)
+            return -1;
+        try
+        {
+            return (long) (Double.parseDouble(seconds) * TimeUnit.SECONDS.toNanos(1));
+        }
+        catch(NumberFormatException ex)
+        {
+            return -1;
+        }
+    }
+
+    private final class QueuedRequest<T>
+    {
+        private final OAuth2Request<T> action;
+        private final CompletableFuture<T> future;
+        private final Request request;
+        private final String route;
+        private final String bucketKey;
+        private long enqueuedAt = System.nanoTime();
+        private int retries = 0;
+
+        private QueuedRequest(OAuth2Request<T> action, CompletableFuture<T> future)
+        {
+            this.action = action;
+            this.future = future;
+            this.request = action.buildRequest();
+            this.route = request.method() + " " + request.url().encodedPath();
+            String authorization = request.header("Authorization");
+            // OAuth2 rate limits apply per user, so keep a bucket per access token
+            this.bucketKey = authorization == null ? route : route + "#" + authorization.hashCode();
+        }
+
+        private void handle(Response response)
+        {
+            try
+            {
+                T value = action.handle(response);
+                logSuccessfulRequest(action);
+                future.complete(value);
+            }
+            catch(Throwable t)
+            {
+                future.completeExceptionally(t);
+            }
+            finally
+            {
+                response.close();
+            }
+        }
+    }
+
+    private final class Bucket implements Callback
+    {
+        private final String key;
+        private final RouteStats stats;
+        private final Deque<QueuedRequest<?>> queue = new ArrayDeque<>();
+        private QueuedRequest<?> inFlight = null;
+        private boolean drainScheduled = false;
+        private boolean removed = false;
+        private int remaining = 1;
+        private long resetAt = 0;
+
+        private Bucket(String key, String route)
+        {
+            this.key = key;
+            this.stats = routeStats.computeIfAbsent(route, RouteStats::new);
+        }
+
+        private void drain()
+        {
+            QueuedRequest<?> call = null;
+            List<QueuedRequest<?>> rejectedCalls = null;
+            synchronized(this)
+            {
+                if(inFlight != null || drainScheduled)
+                    return;
+                if(queue.isEmpty())
+                {
+                    // Idle buckets are dropped, unless they still hold a rate limit
+                    if(remaining > 0 || resetAt - System.nanoTime() <= 0)
                     {
-                        LOGGER.error("OAuth2Action success callback threw an exception!", t);
+                        removed = true;
+                        buckets.remove(key, this);
                     }
+                    return;
                 }
-                catch(Throwable t)
+                long now = System.nanoTime();
+                long delay = Math.max(globalResetAt - now, remaining <= 0 ? resetAt - now : 0);
+                if(delay > 0)
                 {
-                    // Handle end-user exception differently
                     try
                     {
-                        failure.accept(t);
+                        drainScheduled = true;
+                        scheduler.schedule(() -> {
+                            synchronized(this)
+                            {
+                                drainScheduled = false;
+                                remaining = Math.max(remaining, 1);
+                            }
+                            drain();
+                        }, delay, TimeUnit.NANOSECONDS);
+                        return;
                     }
-                    catch(Throwable t1)
+                    catch(RejectedExecutionException ex)
                     {
-                        LOGGER.error("OAuth2Action success callback threw an exception!", t1);
+                        // The requester was shut down, so nothing would ever send the queued requests
+                        drainScheduled = false;
+                        removed = true;
+                        buckets.remove(key, this);
+                        rejectedCalls = new ArrayList<>(queue);
+                        queue.clear();
+                        stats.queued.addAndGet(-rejectedCalls.size());
                     }
                 }
-                finally
+                else
                 {
-                    response.close();
+                    call = queue.pollFirst();
+                    inFlight = call;
+                    stats.queued.decrementAndGet();
+                    stats.recordWait(now - call.enqueuedAt);
                 }
             }
+            if(rejectedCalls != null)
+            {
+                for(QueuedRequest<?> rejectedCall : rejectedCalls)
+                    rejectedCall.future.completeExceptionally(rejected());
+                return;
+            }
+            httpClient.newCall(call.request).enqueue(this);
+        }
 
-            @Override
-            public void onFailure(Call call, IOException e)
+        @Override
+        public void onResponse(Call httpCall, Response response)
+        {
+            QueuedRequest<?> call;
+            synchronized(this)
             {
-                LOGGER.error("Requester encountered an error when submitting a request!", e);
+                call = inFlight;
+                inFlight = null;
+                updateLimits(response);
             }
-        });
-    }
 
-    <T> T submitSync(OAuth2Action<T> request) throws IOException
-    {
-        try(Response response = httpClient.newCall(request.buildRequest()).execute())
+            if(response.code() == 429 && call.retries < MAX_RETRIES)
+            {
+                long retryAfter = getRetryAfter(response);
+                boolean global = Boolean.parseBoolean(response.header("X-RateLimit-Global"));
+                response.close();
+                stats.rateLimited.incrementAndGet();
+                LOGGER.warn("Hit {}rate limit on {}, retrying in {}ms", global ? "global " : "", call.route,
+                    TimeUnit.NANOSECONDS.toMillis(retryAfter));
+                synchronized(this)
+                {
+                    long until = System.nanoTime() + retryAfter;
+                    if(global)
+                        globalResetAt = until;
+                    remaining = 0;
+                    resetAt = Math.max(resetAt, until);
+                    call.retries++;
+                    call.enqueuedAt = System.nanoTime();
+                    queue.addFirst(call);
+                    stats.queued.incrementAndGet();
+                }
+            }
+            else
+            {
+                call.handle(response);
+            }
+            drain();
+        }
+
+        @Override
+        public void onFailure(Call httpCall, IOException e)
         {
-            T value = request.handle(response);
-            logSuccessfulRequest(request);
-            return value;
+            QueuedRequest<?> call;
+            synchronized(this)
+            {
+                call = inFlight;
+                inFlight = null;
+            }
+            LOGGER.debug("Requester encountered an error when submitting a request to {}", call.route, e);
+            call.future.completeExceptionally(e);
+            drain();
+        }
+
+        private void updateLimits(Response response)
+        {
+            String remainingHeader = response.header("X-RateLimit-Remaining");
+            long resetAfter = parseDelay(response.header("X-RateLimit-Reset-After"));
+            if(remainingHeader != null)
+            {
+                try
+                {
+                    remaining = Integer.parseInt(remainingHeader);
+                }
+                catch(NumberFormatException ignored) {}
+            }
+            if(resetAfter >= 0)
+                resetAt = System.nanoTime() + resetAfter;
+        }
+
+        private long getRetryAfter(Response response)
+        {
+            long retryAfter = parseDelay(response.header("Retry-After"));
+            if(retryAfter < 0)
+            {
+                try
+                {
+                    // Older API versions only give it in the body
+                    retryAfter = (long) (new JSONObject(response.peekBody(4096).string()).getDouble("retry_after")
+                        * TimeUnit.SECONDS.toNanos(1));
+                }
+                catch(Exception ex)
+                {
+                    retryAfter = TimeUnit.SECONDS.toNanos(1);
+                }
+            }
+            return retryAfter;
         }
     }
 
-    private static void logSuccessfulRequest(OAuth2Action request)
+    /**
+     * Statistics of the requests made to a single route.
+     */
+    public static final class RouteStats
     {
-        LOGGER.debug("Got a response for {} - {}\nHeaders: {}", request.getMethod(),
-            request.getUrl(), request.getHeaders());
+        private final String route;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong rateLimited = new AtomicLong();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder totalWait = new LongAdder();
+        private final LongAccumulator maxWait = new LongAccumulator(Math::max, 0);
+
+        private RouteStats(String route)
+        {
+            this.route = route;
+        }
+
+        private void recordWait(long nanos)
+        {
+            requests.increment();
+            totalWait.add(nanos);
+            maxWait.accumulate(nanos);
+        }
+
+        /**
+         * Gets the route, made of the HTTP method and the path.
+         *
+         * @return The route.
+         */
+        public String getRoute()
+        {
+            return route;
+        }
+
+        /**
+         * Gets the number of requests currently waiting to be sent on this route.
+         *
+         * @return The queue depth.
+         */
+        public int getQueueDepth()
+        {
+            return queued.get();
+        }
+
+        /**
+         * Gets the number of requests sent on this route, counting retries.
+         *
+         * @return The number of requests sent.
+         */
+        public long getRequestCount()
+        {
+            return requests.sum();
+        }
+
+        /**
+         * Gets the number of {@code 429} responses received on this route.
+         *
+         * @return The number of times this route was rate limited.
+         */
+        public long getRateLimitedCount()
+        {
+            return rateLimited.get();
+        }
+
+        /**
+         * Gets the average time requests spent queued before being sent.
+         *
+         * @param  unit
+         *         The unit to get the time in.
+         *
+         * @return The average wait time.
+         */
+        public long getAverageWait(TimeUnit unit)
+        {
+            long count = requests.sum();
+            return count == 0 ? 0 : unit.convert(totalWait.sum() / count, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Gets the longest time a request spent queued before being sent.
+         *
+         * @param  unit
+         *         The unit to get the time in.
+         *
+         * @return The maximum wait time.
+         */
+        public long getMaxWait(TimeUnit unit)
+        {
+            return unit.convert(maxWait.get(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("RouteStats(%s, queued: %d, requests: %d, rate-limited: %d, avg-wait: %dms, max-wait: %dms)",
+                route, getQueueDepth(), getRequestCount(), getRateLimitedCount(),
+                getAverageWait(TimeUnit.MILLISECONDS), getMaxWait(TimeUnit.MILLISECONDS));
+        }
     }
 }
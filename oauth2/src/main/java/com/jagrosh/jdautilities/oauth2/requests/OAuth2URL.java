@@ -37,6 +37,11 @@ public enum OAuth2URL
         "code=%s",
         "client_secret=%s",
         "scope=%s"),
+    REFRESH_TOKEN("/oauth2/token",
+        "client_id=%d",
+        "client_secret=%s",
+        "grant_type=refresh_token",
+        "refresh_token=%s"),
     CURRENT_USER("/users/@me"),
     CURRENT_USER_GUILDS("/users/@me/guilds");
 
@@ -88,11 +93,21 @@ public enum OAuth2URL
 
     public String getRouteWithBaseUrl()
     {
-        return BASE_API_URL + route;
+        return getRouteWithBaseUrl(BASE_API_URL);
+    }
+
+    public String getRouteWithBaseUrl(String baseUrl)
+    {
+        return baseUrl + route;
     }
 
     public String compile(Object... values)
     {
-        return BASE_API_URL + (hasQueryParams? String.format(formattableRoute, values) : formattableRoute);
+        return compileWithBaseUrl(BASE_API_URL, values);
+    }
+
+    public String compileWithBaseUrl(String baseUrl, Object... values)
+    {
+        return baseUrl + (hasQueryParams? String.format(formattableRoute, values) : formattableRoute);
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016-2018 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.requests;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A cache of OAuth2 responses, used by an {@link com.jagrosh.jdautilities.oauth2.OAuth2Client OAuth2Client}
+ * to avoid requesting the same data from Discord on every call.
+ *
+ * <p>Responses are cached by key (usually the route and the access token it was requested with) for a fixed
+ * time. Concurrent requests for a key that is not cached share a single request. Once a response has expired,
+ * its {@code ETag} (if Discord sent one) is kept so that the next request can be made conditional.
+ * Once the cache is full, the least recently used responses are dropped.
+ */
+public class ResponseCache
+{
+    private final long ttl;
+    private final Map<String, Entry<?>> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<?>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new ResponseCache.
+     *
+     * @param  ttl
+     *         The time during which a response is served from the cache.
+     * @param  unit
+     *         The unit of the time.
+     * @param  maxEntries
+     *         The number of cached responses past which the least recently used ones are dropped.
+     */
+    public ResponseCache(long ttl, TimeUnit unit, int maxEntries)
+    {
+        this.ttl = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<String, Entry<?>>(16, 0.75F, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<?>> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached value of a key, or loads it if it is not cached or has expired.
+     *
+     * <p>The loader is given the expired entry of the key (or {@code null}), so that it can revalidate it
+     * using its {@link Entry#getETag() ETag}, and must return a future completed with the new entry.
+     *
+     * @param  key
+     *         The key of the response.
+     * @param  loader
+     *         The function requesting the response.
+     * @param  <T>
+     *         The type of the value.
+     *
+     * @return A future completed with the cached or loaded value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> get(String key, Function<Entry<T>, CompletableFuture<Entry<T>>> loader)
+    {
+        Entry<T> entry;
+        synchronized(entries)
+        {
+            entry = (Entry<T>) entries.get(key);
+        }
+        if(entry != null && System.nanoTime() - entry.fetchedAt < ttl)
+            return CompletableFuture.completedFuture(entry.value);
+
+        CompletableFuture<T> future = (CompletableFuture<T>) loading.get(key);
+        if(future != null)
+            return future;
+        CompletableFuture<T> created = new CompletableFuture<>();
+        future = (CompletableFuture<T>) loading.putIfAbsent(key, created);
+        if(future != null)
+            return future;
+
+        CompletableFuture<Entry<T>> loaded;
+        try
+        {
+            loaded = loader.apply(entry);
+        }
+        catch(Throwable t)
+        {
+            loaded = new CompletableFuture<>();
+            loaded.completeExceptionally(t);
+        }
+        loaded.whenComplete((result, error) -> {
+            if(error == null)
+                put(key, result);
+            loading.remove(key, created);
+            if(error == null)
+                created.complete(result.value);
+            else
+                created.completeExceptionally(error);
+        });
+        return created;
+    }
+
+    /**
+     * Removes all cached responses with a key starting with the provided prefix,
+     * such as all the responses requested with an access token.
+     *
+     * @param  prefix
+     *         The prefix of the keys to remove.
+     */
+    public void invalidate(String prefix)
+    {
+        synchronized(entries)
+        {
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    public void invalidateAll()
+    {
+        synchronized(entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached responses, including expired ones.
+     *
+     * @return The number of cached responses.
+     */
+    public int size()
+    {
+        synchronized(entries)
+        {
+            return entries.size();
+        }
+    }
+
+    private void put(String key, Entry<?> entry)
+    {
+        synchronized(entries)
+        {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * A cached response.
+     *
+     * @param  <T>
+     *         The type of the value.
+     */
+    public static final class Entry<T>
+    {
+        private final T value;
+        private final String etag;
+        private final long fetchedAt = System.nanoTime();
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param  value
+         *         The value built from the response.
+         * @param  etag
+         *         The {@code ETag} header of the response, or {@code null} if it had none.
+         */
+        public Entry(T value, String etag)
+        {
+            this.value = value;
+            this.etag = etag;
+        }
+
+        /**
+         * Gets the value built from the response.
+         *
+         * @return The value.
+         */
+        public T getValue()
+        {
+            return value;
+        }
+
+        /**
+         * Gets the {@code ETag} header of the response.
+         *
+         * @return The ETag, or {@code null} if the response had none.
+         */
+        public String getETag()
+        {
+            return etag;
+        }
+    }
+}
@@ -17,40 +17,219 @@ package com.jagrosh.jdautilities.oauth2.session;
 
 import com.jagrosh.jdautilities.oauth2.Scope;
 import com.jagrosh.jdautilities.oauth2.session.DefaultSessionController.DefaultSession;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import java.io.IOException;
 import java.time.OffsetDateTime;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The default {@link com.jagrosh.jdautilities.oauth2.session.SessionController SessionController} implementation.
  *
+ * <p>Sessions are held in a concurrent map, and are dropped once they reach their
+ * {@link Session#getExpiration() expiration}, unless they have a refresh token: those are kept so that they
+ * can still be looked up and refreshed, and are only dropped when {@link #removeSession(String) removed},
+ * for example because refreshing them failed. The number of sessions is bounded: when it goes over the maximum,
+ * the sessions closest to expiring are evicted first. Sessions are also kept sorted by expiration, so evicting
+ * them only visits expired sessions and the sessions being evicted.
+ *
+ * <p>Sessions can optionally be persisted through a {@link SessionStore}, such as a {@link FileSessionStore},
+ * in which case they are loaded back when the controller is created.
+ *
  * @author John Grosh (john.a.grosh@gmail.com)
  */
 public class DefaultSessionController implements SessionController<DefaultSession>
 {
-    private final HashMap<String, DefaultSession> sessions = new HashMap<>();
-    
+    private static final Logger LOG = JDALogger.getLog(DefaultSessionController.class);
+    private static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final ConcurrentHashMap<String, DefaultSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<DefaultSession> byExpiration = new ConcurrentSkipListSet<>(
+        Comparator.comparing(DefaultSession::getExpiration).thenComparingLong(session -> session.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final SessionStore store;
+    private final int maxSessions;
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * Constructs a new DefaultSessionController, holding up to 10000 sessions in memory only.
+     */
+    public DefaultSessionController()
+    {
+        this(null, 10000);
+    }
+
+    /**
+     * Constructs a new DefaultSessionController, holding sessions in memory only.
+     *
+     * @param  maxSessions
+     *         The maximum number of sessions to hold.
+     */
+    public DefaultSessionController(int maxSessions)
+    {
+        this(null, maxSessions);
+    }
+
+    /**
+     * Constructs a new DefaultSessionController, persisting sessions to the provided store.
+     * <br>Sessions are loaded from the store right away, skipping those that have expired and cannot be refreshed.
+     *
+     * @param  store
+     *         The store to persist sessions to, or {@code null} to hold them in memory only.
+     * @param  maxSessions
+     *         The maximum number of sessions to hold.
+     */
+    public DefaultSessionController(SessionStore store, int maxSessions)
+    {
+        Checks.positive(maxSessions, "Max sessions");
+        this.store = store;
+        this.maxSessions = maxSessions;
+        if(store != null)
+        {
+            try
+            {
+                OffsetDateTime now = OffsetDateTime.now();
+                for(SessionData data : store.load())
+                {
+                    if(data.getRefreshToken() != null || data.getExpiration().isAfter(now))
+                        put(new DefaultSession(data));
+                    else
+                        remove(data.getIdentifier());
+                }
+                evict();
+            }
+            catch(IOException ex)
+            {
+                LOG.error("Failed to load sessions", ex);
+            }
+        }
+    }
+
     @Override
     public DefaultSession getSession(String identifier)
     {
-        return sessions.get(identifier);
+        DefaultSession session = sessions.get(identifier);
+        if(session != null && session.isDead(OffsetDateTime.now()))
+        {
+            if(sessions.remove(identifier, session))
+            {
+                byExpiration.remove(session);
+                remove(identifier);
+            }
+            return null;
+        }
+        return session;
     }
 
     @Override
     public DefaultSession createSession(SessionData data)
     {
         DefaultSession created = new DefaultSession(data);
-        sessions.put(data.getIdentifier(), created);
+        put(created);
+        if(store != null)
+        {
+            try
+            {
+                store.store(data);
+            }
+            catch(IOException ex)
+            {
+                LOG.error("Failed to store session {}", data.getIdentifier(), ex);
+            }
+        }
+        long now = System.currentTimeMillis();
+        long next = nextSweep.get();
+        if(sessions.size() > maxSessions || (now >= next && nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)))
+            evict();
         return created;
     }
 
+    /**
+     * Removes a session, for example when its user logs out.
+     *
+     * @param  identifier
+     *         The identifier of the session to remove.
+     */
+    @Override
+    public void removeSession(String identifier)
+    {
+        DefaultSession removed = sessions.remove(identifier);
+        if(removed != null)
+        {
+            byExpiration.remove(removed);
+            remove(identifier);
+        }
+    }
+
+    /**
+     * Gets the number of sessions currently held, including expired ones that were not swept yet.
+     *
+     * @return The number of sessions.
+     */
+    public int size()
+    {
+        return sessions.size();
+    }
+
+    private void put(DefaultSession session)
+    {
+        // Indexed before it is visible, so eviction never misses a session
+        byExpiration.add(session);
+        DefaultSession previous = sessions.put(session.getIdentifier(), session);
+        if(previous != null)
+            byExpiration.remove(previous);
+    }
+
+    // Drops expired sessions that cannot be refreshed, then the sessions closest to expiring until under the maximum
+    private void evict()
+    {
+        OffsetDateTime now = OffsetDateTime.now();
+        for(DefaultSession session : byExpiration)
+        {
+            // The rest are younger
+            if(!session.isExpired(now))
+                break;
+            if(session.isDead(now) && byExpiration.remove(session) && sessions.remove(session.getIdentifier(), session))
+                remove(session.getIdentifier());
+        }
+        DefaultSession session;
+        while(sessions.size() > maxSessions && (session = byExpiration.pollFirst()) != null)
+        {
+            if(sessions.remove(session.getIdentifier(), session))
+                remove(session.getIdentifier());
+        }
+    }
+
+    private void remove(String identifier)
+    {
+        if(store == null)
+            return;
+        try
+        {
+            store.remove(identifier);
+        }
+        catch(IOException ex)
+        {
+            LOG.error("Failed to remove session {}", identifier, ex);
+        }
+    }
+
     public class DefaultSession implements Session
     {
-        private final String accessToken, refreshToken, tokenType;
+        private final String identifier, accessToken, refreshToken, tokenType;
         private final OffsetDateTime expiration;
         private final Scope[] scopes;
-        
-        private DefaultSession(String accessToken, String refreshToken, String tokenType, OffsetDateTime expiration, Scope[] scopes)
+        private final long sequence = DefaultSessionController.this.sequence.getAndIncrement();
+
+        private DefaultSession(String identifier, String accessToken, String refreshToken, String tokenType, OffsetDateTime expiration, Scope[] scopes)
         {
+            this.identifier = identifier;
             this.accessToken = accessToken;
             this.refreshToken = refreshToken;
             this.tokenType = tokenType;
@@ -60,7 +239,13 @@ public class DefaultSessionController implements SessionController<DefaultSessio
 
         private DefaultSession(SessionData data)
         {
-            this(data.getAccessToken(), data.getRefreshToken(), data.getTokenType(), data.getExpiration(), data.getScopes());
+            this(data.getIdentifier(), data.getAccessToken(), data.getRefreshToken(), data.getTokenType(), data.getExpiration(), data.getScopes());
+        }
+
+        @Override
+        public String getIdentifier()
+        {
+            return identifier;
         }
         
         @Override
@@ -92,5 +277,16 @@ public class DefaultSessionController implements SessionController<DefaultSessio
         {
             return expiration;
         }
+
+        private boolean isExpired(OffsetDateTime now)
+        {
+            return !expiration.isAfter(now);
+        }
+
+        // Expired sessions can still be refreshed as long as they have a refresh token
+        private boolean isDead(OffsetDateTime now)
+        {
+            return refreshToken == null && isExpired(now);
+        }
     }
 }
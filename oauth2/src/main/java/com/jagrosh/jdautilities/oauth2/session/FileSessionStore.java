@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016-2018 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.session;
+
+import com.jagrosh.jdautilities.oauth2.Scope;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link com.jagrosh.jdautilities.oauth2.session.SessionStore SessionStore} that saves sessions to a JSON file.
+ *
+ * <p>Changes are written in the background: any number of changes made while the file is being written
+ * are coalesced into a single rewrite. The file is replaced atomically, so a crash never leaves it
+ * half-written, and is only readable by its owner on systems supporting POSIX permissions.
+ */
+public class FileSessionStore implements SessionStore, AutoCloseable
+{
+    private static final Logger LOG = JDALogger.getLog(FileSessionStore.class);
+    private static final FileAttribute<Set<PosixFilePermission>> OWNER_ONLY =
+        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+
+    private final Path file;
+    private final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "OAuth2-SessionStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs a new FileSessionStore.
+     *
+     * @param  file
+     *         The file to save sessions to, created if it does not exist.
+     */
+    public FileSessionStore(Path file)
+    {
+        this.file = file;
+    }
+
+    @Override
+    public Collection<SessionData> load() throws IOException
+    {
+        sessions.clear();
+        if(Files.exists(file))
+        {
+            try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+            {
+                JSONArray array = new JSONArray(new JSONTokener(reader));
+                for(int i = 0; i < array.length(); i++)
+                {
+                    SessionData data = fromJSON(array.getJSONObject(i));
+                    sessions.put(data.getIdentifier(), data);
+                }
+            }
+            catch(JSONException ex)
+            {
+                throw new IOException("Malformed sessions file " + file, ex);
+            }
+        }
+        return new ArrayList<>(sessions.values());
+    }
+
+    @Override
+    public void store(SessionData data)
+    {
+        sessions.put(data.getIdentifier(), data);
+        scheduleWrite();
+    }
+
+    @Override
+    public void remove(String identifier)
+    {
+        if(sessions.remove(identifier) != null)
+            scheduleWrite();
+    }
+
+    /**
+     * Writes any pending changes and stops the background writer.
+     */
+    @Override
+    public void close()
+    {
+        writer.shutdown();
+        try
+        {
+            if(!writer.awaitTermination(10, TimeUnit.SECONDS))
+                LOG.warn("Timed out waiting for sessions to be written to {}", file);
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleWrite()
+    {
+        // Only queue a write if none is pending, the pending one will pick this change up
+        if(dirty.compareAndSet(false, true))
+            writer.execute(this::write);
+    }
+
+    private void write()
+    {
+        dirty.set(false);
+        JSONArray array = new JSONArray();
+        List<SessionData> snapshot = new ArrayList<>(sessions.values());
+        for(SessionData data : snapshot)
+            array.put(toJSON(data));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try
+        {
+            // Created with its final permissions, so the tokens are never readable by others
+            Files.deleteIfExists(temp);
+            try
+            {
+                Files.createFile(temp, OWNER_ONLY);
+            }
+            catch(UnsupportedOperationException ex)
+            {
+                Files.createFile(temp);
+            }
+            try(Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8, StandardOpenOption.WRITE))
+            {
+                array.write(writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException ex)
+        {
+            LOG.error("Failed to write {} sessions to {}", snapshot.size(), file, ex);
+        }
+    }
+
+    private static JSONObject toJSON(SessionData data)
+    {
+        return new JSONObject()
+            .put("identifier", data.getIdentifier())
+            .put("access_token", data.getAccessToken())
+            .put("refresh_token", data.getRefreshToken())
+            .put("token_type", data.getTokenType())
+            .put("expiration", data.getExpiration().toEpochSecond())
+            .put("scope", Scope.join(true, data.getScopes()));
+    }
+
+    private static SessionData fromJSON(JSONObject json)
+    {
+        String[] scopeStrings = json.getString("scope").split(" ");
+        Scope[] scopes = new Scope[scopeStrings.length];
+        for(int i = 0; i < scopeStrings.length; i++)
+            scopes[i] = Scope.from(scopeStrings[i]);
+        return new SessionData(json.getString("identifier"), json.getString("access_token"),
+            json.optString("refresh_token", null), json.getString("token_type"),
+            OffsetDateTime.ofInstant(Instant.ofEpochSecond(json.getLong("expiration")), ZoneOffset.UTC), scopes);
+    }
+}
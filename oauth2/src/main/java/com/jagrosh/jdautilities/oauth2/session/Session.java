@@ -30,6 +30,20 @@ import java.time.OffsetDateTime;
  */
 public interface Session
 {
+    /**
+     * Gets the identifier the session was created with.
+     *
+     * <p>This is used to write the session back to its
+     * {@link com.jagrosh.jdautilities.oauth2.session.SessionController SessionController} when it is refreshed.
+     * Sessions that do not provide it are still refreshed, but only for the request being made.
+     *
+     * @return The session's identifier, or {@code null} if not provided by the implementation.
+     */
+    default String getIdentifier()
+    {
+        return null;
+    }
+
     /**
      * Gets the session's access token.
      *
@@ -40,8 +40,8 @@ public interface SessionController<S extends Session>
      *
      * <p>Note that Sessions that have elapsed their effective
      * {@link com.jagrosh.jdautilities.oauth2.session.SessionData#getExpiration() expiration}
-     * are not necessary to maintain, unless they have been refreshed in which case they
-     * should be updated to reflect this.
+     * are not necessary to maintain, unless they have a refresh token, in which case they
+     * should be kept so that they can be refreshed, and updated once they are.
      *
      * @param  identifier
      *         The identifier to get a Session by.
@@ -64,4 +64,16 @@ public interface SessionController<S extends Session>
      * @return A new Session.
      */
     S createSession(SessionData data);
+
+    /**
+     * Removes the {@link com.jagrosh.jdautilities.oauth2.session.Session Session} mapped
+     * to the provided identifier, if any.
+     *
+     * <p>This is called when a session can no longer be refreshed, for example because
+     * its refresh token was revoked. The default implementation does nothing.
+     *
+     * @param  identifier
+     *         The identifier of the Session to remove.
+     */
+    default void removeSession(String identifier) {}
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2018 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.session;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A persistent backend for a {@link com.jagrosh.jdautilities.oauth2.session.DefaultSessionController DefaultSessionController},
+ * allowing sessions to survive restarts without users having to authorize again.
+ *
+ * <p>The standard implementation is {@link com.jagrosh.jdautilities.oauth2.session.FileSessionStore FileSessionStore}.
+ *
+ * <p>Note that stored sessions contain access and refresh tokens, and implementations should
+ * protect them accordingly.
+ */
+public interface SessionStore
+{
+    /**
+     * Loads all stored sessions.
+     * <br>This is called once, when the controller is created.
+     *
+     * @return The stored sessions.
+     *
+     * @throws IOException
+     *         If the sessions could not be loaded.
+     */
+    Collection<SessionData> load() throws IOException;
+
+    /**
+     * Stores a new or refreshed session, replacing any session with the same identifier.
+     *
+     * @param  data
+     *         The data of the session to store.
+     *
+     * @throws IOException
+     *         If the session could not be stored.
+     */
+    void store(SessionData data) throws IOException;
+
+    /**
+     * Removes an expired or evicted session.
+     *
+     * @param  identifier
+     *         The identifier of the session to remove.
+     *
+     * @throws IOException
+     *         If the session could not be removed.
+     */
+    void remove(String identifier) throws IOException;
+}
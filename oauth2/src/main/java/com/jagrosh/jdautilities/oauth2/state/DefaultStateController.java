@@ -15,37 +15,193 @@
  */
 package com.jagrosh.jdautilities.oauth2.state;
 
-import java.util.HashMap;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The default {@link com.jagrosh.jdautilities.oauth2.state.StateController StateController} implementation.
  *
+ * <p>States are 32 URL-safe characters generated from a {@link java.security.SecureRandom SecureRandom}, so they
+ * cannot be guessed. Pending states expire after a configurable time (10 minutes by default), and at most a
+ * configurable number of them (10000 by default) are kept: past that, the oldest pending states are dropped first.
+ *
+ * <p>Expired states are swept with a timing wheel advanced by the calls to this controller, so sweeping
+ * only costs time proportional to the number of states expiring, and no background thread is needed.
+ *
  * @author John Grosh (john.a.grosh@gmail.com)
  */
 public class DefaultStateController implements StateController
 {
-    private final static String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    private final HashMap<String,String> states = new HashMap<>();
-    
+    private static final int STATE_BYTES = 24; // 32 characters in base64
+    private static final int WHEEL_TICKS = 64;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[STATE_BYTES]);
+    private final ConcurrentHashMap<String, PendingState> states = new ConcurrentHashMap<>();
+    // Each slot holds the states expiring during one tick
+    private final Queue<String>[] wheel;
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final long ttl;
+    private final long tick;
+    private final int maxPending;
+    // Times are measured from here, so that they are never negative
+    private final long origin = System.nanoTime();
+    private long sweptTick;
+
+    /**
+     * Constructs a new DefaultStateController, with states expiring after 10 minutes
+     * and up to 10000 pending states.
+     */
+    public DefaultStateController()
+    {
+        this(10, TimeUnit.MINUTES, 10000);
+    }
+
+    /**
+     * Constructs a new DefaultStateController.
+     *
+     * @param  ttl
+     *         The time after which a state that was not consumed expires.
+     * @param  unit
+     *         The unit of the time.
+     * @param  maxPending
+     *         The maximum number of pending states.
+     */
+    @SuppressWarnings("unchecked")
+    public DefaultStateController(long ttl, TimeUnit unit, int maxPending)
+    {
+        Checks.check(ttl > 0, "Time to live must be positive!");
+        Checks.check(maxPending > 0, "Max pending states must be positive!");
+        this.ttl = unit.toNanos(ttl);
+        this.tick = Math.max(TimeUnit.MILLISECONDS.toNanos(1), this.ttl / WHEEL_TICKS);
+        this.maxPending = maxPending;
+        // Enough slots that a slot is never reused before all of its states have expired
+        this.wheel = new Queue[(int) (this.ttl / tick) + 2];
+        for(int i = 0; i < wheel.length; i++)
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        this.sweptTick = 0;
+    }
+
     @Override
     public String generateNewState(String redirectUri)
     {
-        String state = randomState();
-        states.put(state, redirectUri);
+        long now = System.nanoTime() - origin;
+        sweep(now);
+        if(states.size() >= maxPending)
+            evictOldest();
+
+        PendingState pending = new PendingState(redirectUri, now + ttl);
+        String state;
+        do
+        {
+            state = randomState();
+        }
+        while(states.putIfAbsent(state, pending) != null);
+        wheel[(int) (pending.expiresAt / tick % wheel.length)].offer(state);
         return state;
     }
 
     @Override
     public String consumeState(String state)
     {
-        return states.remove(state);
+        long now = System.nanoTime() - origin;
+        sweep(now);
+        PendingState pending = states.remove(state);
+        if(pending == null || pending.expiresAt <= now)
+            return null;
+        return pending.redirectUri;
     }
-    
-    private static String randomState()
+
+    /**
+     * Gets the number of states that were generated but not consumed yet,
+     * including expired states that were not swept yet.
+     *
+     * @return The number of pending states.
+     */
+    public int getPendingCount()
     {
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < 10; i++)
-            sb.append(CHARACTERS.charAt((int)(Math.random()*CHARACTERS.length())));
-        return sb.toString();
+        return states.size();
+    }
+
+    private String randomState()
+    {
+        byte[] buffer = buffers.get();
+        random.nextBytes(buffer);
+        return new String(ENCODER.encode(buffer), StandardCharsets.US_ASCII);
+    }
+
+    // Drains the slots of every tick that fully elapsed since the last sweep
+    private void sweep(long now)
+    {
+        long current = now / tick;
+        if(current <= sweptTick + 1 || !sweepLock.tryLock())
+            return;
+        try
+        {
+            long from = Math.max(sweptTick, current - wheel.length);
+            for(long t = from; t < current; t++)
+                drain(wheel[(int) (t % wheel.length)], now, false);
+            sweptTick = current - 1;
+        }
+        finally
+        {
+            sweepLock.unlock();
+        }
+    }
+
+    // Drops pending states starting from the ones expiring first, until under the maximum
+    private void evictOldest()
+    {
+        sweepLock.lock();
+        try
+        {
+            for(int i = 0; i < wheel.length && states.size() >= maxPending; i++)
+                drain(wheel[(int) ((sweptTick + i) % wheel.length)], 0, true);
+        }
+        finally
+        {
+            sweepLock.unlock();
+        }
+    }
+
+    private void drain(Queue<String> slot, long now, boolean evict)
+    {
+        int count = slot.size();
+        for(int i = 0; i < count; i++)
+        {
+            if(evict && states.size() < maxPending)
+                return;
+            String state = slot.poll();
+            if(state == null)
+                return;
+            PendingState pending = states.get(state);
+            if(pending == null)
+                continue; // Already consumed
+            if(evict || pending.expiresAt <= now)
+                states.remove(state, pending);
+            else
+                slot.offer(state); // Not due yet, keep it for its own tick
+        }
+    }
+
+    private static final class PendingState
+    {
+        private final String redirectUri;
+        private final long expiresAt;
+
+        private PendingState(String redirectUri, long expiresAt)
+        {
+            this.redirectUri = redirectUri;
+            this.expiresAt = expiresAt;
+        }
     }
 }
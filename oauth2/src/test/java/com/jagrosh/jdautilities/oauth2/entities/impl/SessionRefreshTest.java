@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016-2021 John Grosh (jagrosh) & Kaidan Gustave (TheMonitorLizard)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jdautilities.oauth2.entities.impl;
+
+import com.jagrosh.jdautilities.oauth2.OAuth2Client;
+import com.jagrosh.jdautilities.oauth2.Scope;
+import com.jagrosh.jdautilities.oauth2.session.Session;
+import com.jagrosh.jdautilities.oauth2.session.SessionData;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Refreshes sessions against a local stand-in of the Discord token endpoint, which rotates the refresh token
+ * on every refresh and rejects the previous one with {@code invalid_grant}, like Discord does.
+ */
+public class SessionRefreshTest
+{
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private volatile String validRefreshToken = "refresh-0";
+    private HttpServer server;
+    private OAuth2ClientImpl client;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/oauth2/token", this::token);
+        server.start();
+
+        client = (OAuth2ClientImpl) new OAuth2Client.Builder()
+            .setClientId(1)
+            .setClientSecret("secret")
+            .setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+            .setRefreshMargin(300)
+            .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void concurrentCallersShareOneRefresh() throws Exception
+    {
+        Session expiring = createExpiringSession();
+
+        List<CompletableFuture<Session>> futures = new ArrayList<>();
+        for(int i = 0; i < 10; i++)
+            futures.add(client.refreshIfNeeded(expiring));
+
+        Session refreshed = futures.get(0).get(5, TimeUnit.SECONDS);
+        for(CompletableFuture<Session> future : futures)
+            assertSame(refreshed, future.get(5, TimeUnit.SECONDS));
+        assertEquals(1, refreshes.get());
+        assertEquals("access-1", refreshed.getAccessToken());
+        assertEquals("refresh-1", refreshed.getRefreshToken());
+    }
+
+    @Test
+    public void staleSessionResolvesToTheRefreshedOne() throws Exception
+    {
+        Session expiring = createExpiringSession();
+        Session refreshed = client.refreshIfNeeded(expiring).get(5, TimeUnit.SECONDS);
+
+        // Still holding the session from before the refresh, whose refresh token was rotated
+        Session again = client.refreshIfNeeded(expiring).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, refreshes.get());
+        assertEquals(refreshed.getAccessToken(), again.getAccessToken());
+        assertTrue(again.getExpiration().isAfter(OffsetDateTime.now().plusDays(1)));
+    }
+
+    @Test
+    public void freshSessionIsNotRefreshed() throws Exception
+    {
+        Session fresh = client.getSessionController().createSession(new SessionData("fresh", "access-0", "refresh-0",
+            "Bearer", OffsetDateTime.now().plusDays(7), new Scope[]{Scope.IDENTIFY}));
+
+        assertSame(fresh, client.refreshIfNeeded(fresh).get(5, TimeUnit.SECONDS));
+        assertEquals(0, refreshes.get());
+    }
+
+    @Test
+    public void expiredSessionIsRefreshedByIdentifier() throws Exception
+    {
+        client.getSessionController().createSession(new SessionData("user", "access-0", "refresh-0",
+            "Bearer", OffsetDateTime.now().minusDays(1), new Scope[]{Scope.IDENTIFY}));
+
+        // Past its access token's expiration, the session is kept as long as it can be refreshed
+        Session expired = client.getSessionController().getSession("user");
+        assertNotNull(expired);
+
+        Session refreshed = client.refreshIfNeeded(expired).get(5, TimeUnit.SECONDS);
+        assertEquals("access-1", refreshed.getAccessToken());
+        assertEquals("access-1", client.getSessionController().getSession("user").getAccessToken());
+    }
+
+    @Test
+    public void rejectedRefreshRemovesTheSession() throws Exception
+    {
+        Session revoked = client.getSessionController().createSession(new SessionData("user", "access-0", "revoked",
+            "Bearer", OffsetDateTime.now().minusDays(1), new Scope[]{Scope.IDENTIFY}));
+
+        try
+        {
+            client.refreshIfNeeded(revoked).get(5, TimeUnit.SECONDS);
+            throw new AssertionError("The refresh should have been rejected");
+        }
+        catch(ExecutionException expected) {}
+
+        assertNull(client.getSessionController().getSession("user"));
+    }
+
+    private Session createExpiringSession()
+    {
+        return client.getSessionController().createSession(new SessionData("user", "access-0", "refresh-0",
+            "Bearer", OffsetDateTime.now().plusSeconds(10), new Scope[]{Scope.IDENTIFY}));
+    }
+
+    private void token(HttpExchange exchange) throws IOException
+    {
+        String refreshToken = null;
+        for(String parameter : read(exchange.getRequestBody()).split("&"))
+        {
+            String[] pair = parameter.split("=", 2);
+            if(pair[0].equals("refresh_token") && pair.length == 2)
+                refreshToken = URLDecoder.decode(pair[1], "UTF-8");
+        }
+
+        JSONObject body;
+        int status;
+        synchronized(this)
+        {
+            if(refreshToken == null || !refreshToken.equals(validRefreshToken))
+            {
+                status = 400;
+                body = new JSONObject().put("error", "invalid_grant");
+            }
+            else
+            {
+                int refresh = refreshes.incrementAndGet();
+                validRefreshToken = "refresh-" + refresh;
+                status = 200;
+                body = new JSONObject()
+                    .put("access_token", "access-" + refresh)
+                    .put("refresh_token", validRefreshToken)
+                    .put("token_type", "Bearer")
+                    .put("expires_in", TimeUnit.DAYS.toSeconds(7))
+                    .put("scope", "identify");
+            }
+        }
+        try
+        {
+            // Leaves concurrent callers the time to pile up on the same refresh
+            Thread.sleep(100);
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] response = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try(OutputStream out = exchange.getResponseBody())
+        {
+            out.write(response);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}